@@ -0,0 +1,128 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.inject.Guice;
+import io.github.michaljonko.guiceliquibase.annotation.GuiceLiquibaseConfiguration;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import liquibase.resource.DirectoryResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import org.hsqldb.jdbc.JDBCDataSource;
+
+/**
+ * In-memory HSQLDB databases and generated changelogs used by benchmarks.
+ */
+final class BenchmarkDatabases {
+
+  static final String CHANGELOG_FILE = "changeLog.xml";
+
+  private BenchmarkDatabases() {
+  }
+
+  /**
+   * Writes changelog with one table and inserts into it.
+   *
+   * @param changeSets number of changesets in the changelog
+   * @return directory with the changelog
+   * @throws IOException when changelog cannot be written
+   */
+  static Path writeChangeLog(int changeSets) throws IOException {
+    Path directory = Files.createTempDirectory("guice-liquibase-jmh");
+    try (Writer writer = Files.newBufferedWriter(
+        directory.resolve(CHANGELOG_FILE), StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<databaseChangeLog\n"
+          + "  xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+          + "  xmlns=\"http://www.liquibase.org/xml/ns/dbchangelog\"\n"
+          + "  xsi:schemaLocation=\"http://www.liquibase.org/xml/ns/dbchangelog\n"
+          + "         http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.1.xsd\">\n"
+          + "  <changeSet author=\"benchmark\" id=\"0\">\n"
+          + "    <createTable tableName=\"benchmark\">\n"
+          + "      <column name=\"id\" type=\"int\">\n"
+          + "        <constraints nullable=\"false\" primaryKey=\"true\"/>\n"
+          + "      </column>\n"
+          + "      <column name=\"name\" type=\"varchar(50)\"/>\n"
+          + "    </createTable>\n"
+          + "  </changeSet>\n");
+      for (int id = 1; id < changeSets; id++) {
+        writer.write("  <changeSet author=\"benchmark\" id=\"" + id + "\">\n"
+            + "    <insert tableName=\"benchmark\">\n"
+            + "      <column name=\"id\" value=\"" + id + "\"/>\n"
+            + "      <column name=\"name\" value=\"name" + id + "\"/>\n"
+            + "    </insert>\n"
+            + "  </changeSet>\n");
+      }
+      writer.write("</databaseChangeLog>\n");
+    }
+    return directory;
+  }
+
+  static void deleteChangeLog(Path directory) throws IOException {
+    MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  static ResourceAccessor createResourceAccessor(Path directory) throws IOException {
+    return new DirectoryResourceAccessor(directory);
+  }
+
+  static List<DataSource> createDataSources(int count) {
+    ImmutableList.Builder<DataSource> dataSources = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      JDBCDataSource dataSource = new JDBCDataSource();
+      dataSource.setDatabase("jdbc:hsqldb:mem:" + UUID.randomUUID());
+      dataSource.setUser("SA");
+      dataSources.add(dataSource);
+    }
+    return dataSources.build();
+  }
+
+  static void shutdown(List<DataSource> dataSources) throws SQLException {
+    for (DataSource dataSource : dataSources) {
+      try (Connection connection = dataSource.getConnection();
+          Statement statement = connection.createStatement()) {
+        statement.execute("SHUTDOWN");
+      }
+    }
+  }
+
+  /**
+   * Creates injector with <code>GuiceLiquibaseModule</code>, which applies the changelog to all
+   * passed DataSources.
+   *
+   * @param dataSources      migrated databases
+   * @param resourceAccessor accessor of the generated changelog
+   * @return report of the migration
+   */
+  static MigrationReport migrate(List<DataSource> dataSources, ResourceAccessor resourceAccessor) {
+    LiquibaseConfig template = LiquibaseConfig.Builder.of(dataSources.get(0))
+        .withChangeLogPath(CHANGELOG_FILE)
+        .withResourceAccessor(resourceAccessor)
+        .build();
+    GuiceLiquibaseConfig config = GuiceLiquibaseConfig.Builder.of()
+        .withTenants(template, dataSources)
+        .build();
+    MigrationReport report = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(config))
+        .getInstance(MigrationHandle.class)
+        .getReport()
+        .join();
+    if (!report.isSuccessful()) {
+      throw new IllegalStateException("Benchmark migration failed: " + report.getFailures());
+    }
+    return report;
+  }
+}
@@ -0,0 +1,66 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import liquibase.resource.ResourceAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the first <code>GuiceLiquibaseEngine.process()</code> call in a new JVM, which is what
+ * application startup pays. Every fork runs a single migration without warmup.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  int changeSets;
+  @Param({"1", "4", "16"})
+  int configs;
+  Path directory;
+  ResourceAccessor resourceAccessor;
+  List<DataSource> dataSources;
+
+  /**
+   * Writes the changelog and creates new databases for the fork.
+   *
+   * @throws IOException when changelog cannot be written
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = BenchmarkDatabases.writeChangeLog(changeSets);
+    resourceAccessor = BenchmarkDatabases.createResourceAccessor(directory);
+    dataSources = BenchmarkDatabases.createDataSources(configs);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException, SQLException {
+    BenchmarkDatabases.shutdown(dataSources);
+    BenchmarkDatabases.deleteChangeLog(directory);
+  }
+
+  @Benchmark
+  public MigrationReport firstMigration() {
+    return BenchmarkDatabases.migrate(dataSources, resourceAccessor);
+  }
+}
@@ -0,0 +1,108 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import liquibase.resource.ResourceAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures <code>GuiceLiquibaseEngine.process()</code> in a warm JVM, for new databases and for
+ * databases where all changesets are already applied.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MigrationEngineBenchmark {
+
+  @Benchmark
+  public MigrationReport freshDatabases(ChangeLog changeLog, FreshDatabases databases) {
+    return BenchmarkDatabases.migrate(databases.dataSources, changeLog.resourceAccessor);
+  }
+
+  @Benchmark
+  public MigrationReport alreadyApplied(ChangeLog changeLog, AppliedDatabases databases) {
+    return BenchmarkDatabases.migrate(databases.dataSources, changeLog.resourceAccessor);
+  }
+
+  /**
+   * Generated changelog shared by all invocations.
+   */
+  @State(Scope.Benchmark)
+  public static class ChangeLog {
+
+    @Param({"10", "1000", "10000"})
+    int changeSets;
+    @Param({"1", "4", "16"})
+    int configs;
+    Path directory;
+    ResourceAccessor resourceAccessor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      directory = BenchmarkDatabases.writeChangeLog(changeSets);
+      resourceAccessor = BenchmarkDatabases.createResourceAccessor(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      BenchmarkDatabases.deleteChangeLog(directory);
+    }
+  }
+
+  /**
+   * New databases for every invocation.
+   */
+  @State(Scope.Benchmark)
+  public static class FreshDatabases {
+
+    List<DataSource> dataSources;
+
+    @Setup(Level.Invocation)
+    public void setUp(ChangeLog changeLog) {
+      dataSources = BenchmarkDatabases.createDataSources(changeLog.configs);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws SQLException {
+      BenchmarkDatabases.shutdown(dataSources);
+    }
+  }
+
+  /**
+   * Databases migrated once before the measurement.
+   */
+  @State(Scope.Benchmark)
+  public static class AppliedDatabases {
+
+    List<DataSource> dataSources;
+
+    @Setup(Level.Trial)
+    public void setUp(ChangeLog changeLog) {
+      dataSources = BenchmarkDatabases.createDataSources(changeLog.configs);
+      BenchmarkDatabases.migrate(dataSources, changeLog.resourceAccessor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+      BenchmarkDatabases.shutdown(dataSources);
+    }
+  }
+}
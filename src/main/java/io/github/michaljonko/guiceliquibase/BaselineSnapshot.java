@@ -0,0 +1,217 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import liquibase.Scope;
+import liquibase.change.core.SQLFileChange;
+import liquibase.changelog.ChangeLogHistoryService;
+import liquibase.changelog.ChangeLogHistoryServiceFactory;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.database.Database;
+import liquibase.exception.LiquibaseException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.resource.ResourceAccessor;
+import liquibase.statement.core.MarkChangeSetRanStatement;
+
+/**
+ * Consolidated SQL script creating the schema of many historical changesets at once. When
+ * <code>DATABASECHANGELOG</code> table of the database is empty, the script is executed instead
+ * of the changesets it covers, these changesets are recorded as executed and only changesets
+ * added after the baseline are applied by Liquibase.
+ * <br>
+ * Covered changesets are recorded regardless of contexts and labels of the config. Script is
+ * split into statements on semicolons and <code>GO</code> lines, like Liquibase
+ * <code>sqlFile</code> change.
+ *
+ * @since 0.1.2
+ */
+public final class BaselineSnapshot {
+
+  private final String scriptPath;
+  private final Set<String> changeSets;
+
+  private BaselineSnapshot(String scriptPath, Set<String> changeSets) {
+    this.scriptPath = scriptPath;
+    this.changeSets = changeSets;
+  }
+
+  String getScriptPath() {
+    return scriptPath;
+  }
+
+  Set<String> getChangeSets() {
+    return changeSets;
+  }
+
+  /**
+   * Returns whether no changeset was applied to the database, so the baseline has to be applied.
+   * Caller holds the Liquibase lock.
+   *
+   * @param database database of the config
+   * @return true when <code>DATABASECHANGELOG</code> table is empty
+   * @throws LiquibaseException when history cannot be read
+   */
+  boolean isApplicable(Database database) throws LiquibaseException {
+    return ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database)
+        .getRanChangeSets()
+        .isEmpty();
+  }
+
+  /**
+   * Returns changesets of the changelog covered by the baseline.
+   *
+   * @param changeLog parsed changelog or an included changelog file
+   * @return covered changesets in changelog order
+   */
+  List<ChangeSet> getCoveredChangeSets(DatabaseChangeLog changeLog) {
+    return changeLog.getChangeSets().stream()
+        .filter(changeSet -> changeSets.contains(changeSet.toString()))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Executes the script and records covered changesets as executed before any of them is
+   * applied by Liquibase, with a single commit. Caller holds the Liquibase lock and checked
+   * <code>isApplicable</code>. Databases which commit DDL implicitly still commit the script
+   * on their own.
+   *
+   * @param database         database of the config
+   * @param resourceAccessor resource accessor of the config
+   * @param covered          covered changesets of all files of the changelog
+   * @return number of recorded changesets
+   * @throws LiquibaseException when the script failed or history cannot be written
+   */
+  int apply(Database database, ResourceAccessor resourceAccessor, Collection<ChangeSet> covered)
+      throws LiquibaseException {
+    SQLFileChange script = new SQLFileChange();
+    script.setPath(scriptPath);
+    script.setSplitStatements(true);
+    script.setStripComments(true);
+    Executor executor = getExecutor(database);
+    try {
+      Scope.child(Scope.Attr.resourceAccessor.name(), resourceAccessor,
+          () -> executor.execute(script));
+    } catch (LiquibaseException exception) {
+      throw exception;
+    } catch (Exception exception) {
+      throw new LiquibaseException(exception);
+    }
+    ChangeLogHistoryService history =
+        ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database);
+    history.init();
+    history.generateDeploymentId();
+    for (ChangeSet changeSet : covered) {
+      executor.execute(new MarkChangeSetRanStatement(changeSet, ChangeSet.ExecType.EXECUTED));
+    }
+    database.commit();
+    // History read before the script is cached by the service.
+    history.reset();
+    return covered.size();
+  }
+
+  private static Executor getExecutor(Database database) {
+    return Scope.getCurrentScope().getSingleton(ExecutorService.class)
+        .getExecutor("jdbc", database);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    BaselineSnapshot that = (BaselineSnapshot) obj;
+    return Objects.equals(scriptPath, that.scriptPath)
+        && Objects.equals(changeSets, that.changeSets);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(scriptPath, changeSets);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", BaselineSnapshot.class.getSimpleName() + "[", "]")
+        .add("scriptPath='" + scriptPath + "'")
+        .add("changeSets=" + changeSets)
+        .toString();
+  }
+
+  /**
+   * Builder for <code>BaselineSnapshot</code>.
+   */
+  public static final class Builder {
+
+    private final String scriptPath;
+    private final ImmutableSet.Builder<String> changeSets;
+
+    private Builder(String scriptPath) {
+      this.scriptPath = scriptPath;
+      this.changeSets = ImmutableSet.builder();
+    }
+
+    /**
+     * Creates new builder for the script.
+     *
+     * @param scriptPath path of the SQL script in the resource accessor of the config
+     * @return new Builder instance
+     * @throws IllegalArgumentException when scriptPath is null or empty
+     */
+    public static Builder of(String scriptPath) {
+      checkArgument(!Strings.isNullOrEmpty(scriptPath), "scriptPath must be defined.");
+      return new Builder(scriptPath);
+    }
+
+    /**
+     * Adds changeset covered by the script.
+     *
+     * @param value changeset in <code>path::id::author</code> form, as logged by Liquibase
+     * @return itself
+     * @throws IllegalArgumentException when value is null or empty
+     */
+    public Builder withChangeSet(String value) {
+      checkArgument(!Strings.isNullOrEmpty(value), "changeSet must be defined.");
+      this.changeSets.add(value);
+      return this;
+    }
+
+    /**
+     * Adds changesets covered by the script.
+     *
+     * @param values changesets in <code>path::id::author</code> form, as logged by Liquibase
+     * @return itself
+     * @throws NullPointerException     when values is null
+     * @throws IllegalArgumentException when a value is null or empty
+     */
+    public Builder withChangeSets(Collection<String> values) {
+      checkNotNull(values, "changeSets must be defined.").forEach(this::withChangeSet);
+      return this;
+    }
+
+    /**
+     * Creates new <code>BaselineSnapshot</code> object for defined properties.
+     *
+     * @return new <code>BaselineSnapshot</code> object
+     * @throws IllegalArgumentException when no changeset was added
+     */
+    public BaselineSnapshot build() {
+      Set<String> covered = changeSets.build();
+      checkArgument(!covered.isEmpty(), "changeSets must be defined.");
+      return new BaselineSnapshot(scriptPath, covered);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running at most <code>limit</code> tasks at the same time on the delegate. Remaining
+ * tasks are queued without occupying delegate threads.
+ */
+final class BoundedExecutor implements Executor {
+
+  private final Executor delegate;
+  private final int limit;
+  private final Queue<Runnable> queue;
+  private final AtomicInteger running;
+
+  BoundedExecutor(Executor delegate, int limit) {
+    checkArgument(limit > 0, "limit must be positive.");
+    this.delegate = checkNotNull(delegate, "delegate must be defined.");
+    this.limit = limit;
+    this.queue = new ConcurrentLinkedQueue<>();
+    this.running = new AtomicInteger();
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    queue.offer(checkNotNull(command, "command must be defined."));
+    drain();
+  }
+
+  private void drain() {
+    while (!queue.isEmpty()) {
+      int current = running.get();
+      if (current >= limit) {
+        return;
+      }
+      if (running.compareAndSet(current, current + 1)) {
+        Runnable task = queue.poll();
+        if (task == null) {
+          running.decrementAndGet();
+        } else {
+          submit(task);
+        }
+      }
+    }
+  }
+
+  private void submit(Runnable task) {
+    try {
+      delegate.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          running.decrementAndGet();
+          drain();
+        }
+      });
+    } catch (RuntimeException exception) {
+      running.decrementAndGet();
+      throw exception;
+    }
+  }
+}
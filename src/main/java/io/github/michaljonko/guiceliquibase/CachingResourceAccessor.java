@@ -0,0 +1,228 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.resource.AbstractResource;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * <code>ResourceAccessor</code> decorator which remembers lookups and contents of resources. The
+ * first search in a directory lists it recursively once and later searches in it are answered
+ * from that index. Resources smaller than <code>maxResourceBytes</code> are kept in memory until
+ * all cached contents exceed <code>maxCachedBytes</code>, larger ones are always read from the
+ * decorated accessor.
+ * <br>
+ * Resources are expected not to change while the accessor is used, which holds for changelogs
+ * packaged in the application.
+ *
+ * @since 0.1.2
+ */
+public final class CachingResourceAccessor implements ResourceAccessor {
+
+  private static final long DEFAULT_MAX_RESOURCE_BYTES = 1024 * 1024;
+  private static final long DEFAULT_MAX_CACHED_BYTES = 32 * 1024 * 1024;
+  private static final int MAXIMUM_LOOKUPS = 10_000;
+  private static final CachingResourceAccessor DEFAULT = new CachingResourceAccessor(
+      new ClassLoaderResourceAccessor(CachingResourceAccessor.class.getClassLoader()));
+  private final ResourceAccessor delegate;
+  private final long maxResourceBytes;
+  private final Cache<String, List<Resource>> resources;
+  private final Cache<String, List<Resource>> directories;
+  private final Cache<URI, byte[]> contents;
+
+  /**
+   * Creates caching decorator with default limits: 1 MB for a single resource and 32 MB for all
+   * cached contents.
+   *
+   * @param delegate decorated <code>ResourceAccessor</code>
+   * @throws NullPointerException when delegate is null
+   */
+  public CachingResourceAccessor(ResourceAccessor delegate) {
+    this(delegate, DEFAULT_MAX_RESOURCE_BYTES, DEFAULT_MAX_CACHED_BYTES);
+  }
+
+  /**
+   * Creates caching decorator.
+   *
+   * @param delegate         decorated <code>ResourceAccessor</code>
+   * @param maxResourceBytes maximum size of a resource kept in memory
+   * @param maxCachedBytes   maximum size of all resources kept in memory
+   * @throws NullPointerException     when delegate is null
+   * @throws IllegalArgumentException when any limit is negative
+   */
+  public CachingResourceAccessor(
+      ResourceAccessor delegate, long maxResourceBytes, long maxCachedBytes) {
+    checkArgument(maxResourceBytes >= 0, "maxResourceBytes must be positive.");
+    checkArgument(maxCachedBytes >= 0, "maxCachedBytes must be positive.");
+    this.delegate = checkNotNull(delegate, "delegate must be defined.");
+    this.maxResourceBytes = maxResourceBytes;
+    this.resources = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_LOOKUPS)
+        .build();
+    this.directories = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_LOOKUPS)
+        .build();
+    this.contents = CacheBuilder.newBuilder()
+        .maximumWeight(maxCachedBytes)
+        .<URI, byte[]>weigher((uri, bytes) -> bytes.length)
+        .build();
+  }
+
+  /**
+   * Returns accessor of the library's class loader shared by all configs which do not define
+   * their own <code>ResourceAccessor</code>.
+   *
+   * @return shared caching accessor
+   */
+  static CachingResourceAccessor getDefault() {
+    return DEFAULT;
+  }
+
+  @Override
+  public List<Resource> search(String path, boolean recursive) throws IOException {
+    List<Resource> found = load(directories, path, () -> wrap(delegate.search(path, true)));
+    if (recursive) {
+      return found;
+    }
+    String prefix = normalize(path).isEmpty() ? "" : normalize(path) + "/";
+    return found.stream()
+        .filter(resource -> resource.getPath().startsWith(prefix)
+            && resource.getPath().indexOf('/', prefix.length()) < 0)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Resource> getAll(String path) throws IOException {
+    return load(resources, path, () -> wrap(delegate.getAll(path)));
+  }
+
+  @Override
+  public List<String> describeLocations() {
+    return delegate.describeLocations();
+  }
+
+  @Override
+  public void close() throws Exception {
+    resources.invalidateAll();
+    directories.invalidateAll();
+    contents.invalidateAll();
+    delegate.close();
+  }
+
+  long cachedBytes() {
+    return contents.asMap().values().stream()
+        .mapToLong(bytes -> bytes.length)
+        .sum();
+  }
+
+  private List<Resource> wrap(List<Resource> found) {
+    if (found == null) {
+      return ImmutableList.of();
+    }
+    return found.stream()
+        .map(CachedResource::new)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private InputStream open(Resource resource) throws IOException {
+    URI uri = resource.getUri();
+    byte[] cached = uri == null ? null : contents.getIfPresent(uri);
+    if (cached != null) {
+      return new ByteArrayInputStream(cached);
+    }
+    InputStream inputStream = resource.openInputStream();
+    byte[] head = ByteStreams.toByteArray(ByteStreams.limit(inputStream, maxResourceBytes + 1));
+    if (head.length > maxResourceBytes) {
+      return new SequenceInputStream(new ByteArrayInputStream(head), inputStream);
+    }
+    inputStream.close();
+    if (uri != null) {
+      contents.put(uri, head);
+    }
+    return new ByteArrayInputStream(head);
+  }
+
+  private static List<Resource> load(
+      Cache<String, List<Resource>> cache, String path, Callable<List<Resource>> loader)
+      throws IOException {
+    try {
+      return cache.get(path, loader);
+    } catch (ExecutionException exception) {
+      if (exception.getCause() instanceof IOException) {
+        throw (IOException) exception.getCause();
+      }
+      throw new UnexpectedLiquibaseException(exception.getCause());
+    }
+  }
+
+  private static String normalize(String path) {
+    return path.replace('\\', '/')
+        .replaceFirst("^classpath\\*?:", "")
+        .replaceFirst("^/", "")
+        .replaceFirst("/$", "");
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", CachingResourceAccessor.class.getSimpleName() + "[", "]")
+        .add("delegate=" + delegate)
+        .add("maxResourceBytes=" + maxResourceBytes)
+        .toString();
+  }
+
+  private final class CachedResource extends AbstractResource {
+
+    private final Resource resource;
+
+    private CachedResource(Resource resource) {
+      super(resource.getPath(), resource.getUri());
+      this.resource = resource;
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return open(resource);
+    }
+
+    @Override
+    public boolean exists() {
+      return resource.exists();
+    }
+
+    @Override
+    public Resource resolve(String other) {
+      return find(resolvePath(other));
+    }
+
+    @Override
+    public Resource resolveSibling(String other) {
+      return find(resolveSiblingPath(other));
+    }
+
+    private Resource find(String path) {
+      try {
+        return get(path);
+      } catch (IOException exception) {
+        throw new UnexpectedLiquibaseException(exception);
+      }
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import liquibase.change.CheckSum;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.ParsedNodeException;
+import liquibase.util.LiquibaseUtil;
+
+/**
+ * Changelog files parsed at build time by {@link ChangeLogPrecompiler}. Archive keeps the node
+ * tree of every changelog file, so at runtime XML parsing and schema validation are skipped, and
+ * checksums of changesets which do not use changelog parameters.
+ * <br>
+ * Node trees are kept before parameters expansion, so parameters defined at runtime are applied
+ * as for parsed changelogs. Checksums are used only with the Liquibase version which computed
+ * them.
+ */
+final class ChangeLogArchive {
+
+  static final String SCOPE_KEY = ChangeLogArchive.class.getName();
+  private static final int MAGIC = 0x474c4341;
+  private static final int FORMAT_VERSION = 1;
+  private final String liquibaseVersion;
+  private final Map<String, byte[]> nodes;
+  private final Map<String, String> checkSums;
+
+  ChangeLogArchive(
+      String liquibaseVersion, Map<String, byte[]> nodes, Map<String, String> checkSums) {
+    this.liquibaseVersion = checkNotNull(liquibaseVersion, "liquibaseVersion must be defined.");
+    this.nodes = ImmutableMap.copyOf(checkNotNull(nodes, "nodes must be defined."));
+    this.checkSums = ImmutableMap.copyOf(checkNotNull(checkSums, "checkSums must be defined."));
+  }
+
+  /**
+   * Reads archive written by <code>write</code>.
+   *
+   * @param inputStream stream with the archive
+   * @return read archive
+   * @throws IOException when stream is not a changelog archive
+   */
+  static ChangeLogArchive read(InputStream inputStream) throws IOException {
+    DataInputStream input = new DataInputStream(new GZIPInputStream(inputStream));
+    if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+      throw new IOException("Stream does not contain precompiled changelog.");
+    }
+    String liquibaseVersion = readString(input);
+    ImmutableMap.Builder<String, byte[]> nodes = ImmutableMap.builder();
+    for (int i = input.readInt(); i > 0; i--) {
+      String path = readString(input);
+      byte[] node = new byte[input.readInt()];
+      input.readFully(node);
+      nodes.put(path, node);
+    }
+    ImmutableMap.Builder<String, String> checkSums = ImmutableMap.builder();
+    for (int i = input.readInt(); i > 0; i--) {
+      checkSums.put(readString(input), readString(input));
+    }
+    return new ChangeLogArchive(liquibaseVersion, nodes.build(), checkSums.build());
+  }
+
+  /**
+   * Writes archive to the stream. Stream is not closed.
+   *
+   * @param outputStream target stream
+   * @throws IOException when archive cannot be written
+   */
+  void write(OutputStream outputStream) throws IOException {
+    GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+    DataOutputStream output = new DataOutputStream(gzipOutputStream);
+    output.writeInt(MAGIC);
+    output.writeInt(FORMAT_VERSION);
+    writeString(output, liquibaseVersion);
+    output.writeInt(nodes.size());
+    for (Map.Entry<String, byte[]> node : nodes.entrySet()) {
+      writeString(output, node.getKey());
+      output.writeInt(node.getValue().length);
+      output.write(node.getValue());
+    }
+    output.writeInt(checkSums.size());
+    for (Map.Entry<String, String> checkSum : checkSums.entrySet()) {
+      writeString(output, checkSum.getKey());
+      writeString(output, checkSum.getValue());
+    }
+    output.flush();
+    gzipOutputStream.finish();
+  }
+
+  boolean contains(String path) {
+    return nodes.containsKey(DatabaseChangeLog.normalizePath(path));
+  }
+
+  /**
+   * Returns new node tree of the changelog file. Liquibase modifies nodes while loading them, so
+   * every call decodes a fresh tree.
+   *
+   * @param path path of the changelog file
+   * @return node tree as returned by the changelog parser
+   * @throws ParsedNodeException when archive does not contain the file
+   */
+  ParsedNode getNode(String path) throws ParsedNodeException {
+    byte[] node = nodes.get(DatabaseChangeLog.normalizePath(path));
+    if (node == null) {
+      throw new ParsedNodeException("Precompiled changelog does not contain " + path);
+    }
+    try {
+      return decode(node);
+    } catch (IOException exception) {
+      throw new ParsedNodeException("Cannot read precompiled " + path, exception);
+    }
+  }
+
+  /**
+   * Returns checksum computed at build time.
+   *
+   * @param path   physical path of the changelog file
+   * @param id     id of the changeset
+   * @param author author of the changeset
+   * @return checksum or empty when it has to be computed
+   */
+  Optional<CheckSum> getCheckSum(String path, String id, String author) {
+    if (!liquibaseVersion.equals(LiquibaseUtil.getBuildVersion())) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(checkSums.get(checkSumKey(path, id, author)))
+        .map(CheckSum::parse);
+  }
+
+  Map<String, byte[]> getNodes() {
+    return nodes;
+  }
+
+  Map<String, String> getCheckSums() {
+    return checkSums;
+  }
+
+  static String checkSumKey(String path, String id, String author) {
+    return DatabaseChangeLog.normalizePath(path) + "::" + id + "::" + author;
+  }
+
+  static byte[] encode(ParsedNode node) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    writeNode(output, node);
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  private static ParsedNode decode(byte[] node) throws IOException, ParsedNodeException {
+    return readNode(new DataInputStream(new ByteArrayInputStream(node)));
+  }
+
+  private static void writeNode(DataOutputStream output, ParsedNode node) throws IOException {
+    Object value = node.getValue();
+    if (value != null && !(value instanceof String)) {
+      throw new IOException("Cannot precompile value of " + node.getName() + " node: " + value);
+    }
+    writeString(output, node.getNamespace());
+    writeString(output, node.getName());
+    writeString(output, (String) value);
+    output.writeInt(node.getChildren().size());
+    for (ParsedNode child : node.getChildren()) {
+      writeNode(output, child);
+    }
+  }
+
+  private static ParsedNode readNode(DataInputStream input)
+      throws IOException, ParsedNodeException {
+    ParsedNode node = new ParsedNode(readString(input), readString(input));
+    String value = readString(input);
+    if (value != null) {
+      node.setValue(value);
+    }
+    for (int i = input.readInt(); i > 0; i--) {
+      node.addChild(readNode(input));
+    }
+    return node;
+  }
+
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,238 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Scope;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.database.Database;
+import liquibase.exception.ChangeLogParseException;
+import liquibase.exception.LiquibaseException;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Bounded cache of parsed changelogs shared by all engines in the JVM. Changelog is parsed once
+ * for the changelog path, resource accessor (compared by identity), parameters, contexts, labels
+ * and the database properties which Liquibase exposes as <code>database.*</code> parameters, so
+ * configs which differ only in DataSource reuse the same parsed changelog.
+ * <br>
+ * Liquibase keeps per-run state in parsed changesets, so a parsed changelog is used by one update
+ * at a time: it is acquired for the update and released after it. Concurrent updates of the same
+ * changelog parse additional instances, which are cached as well.
+ * <br>
+ * When config defines precompiled changelog archive, changelog files it contains are loaded from
+ * the archive instead of being parsed.
+ */
+final class ChangeLogCache {
+
+  private static final int MAXIMUM_SIZE = 128;
+  private static final ChangeLogCache INSTANCE = new ChangeLogCache(MAXIMUM_SIZE);
+  private final Cache<Key, Queue<DatabaseChangeLog>> changeLogs;
+
+  ChangeLogCache(int maximumSize) {
+    this.changeLogs = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .build();
+  }
+
+  static ChangeLogCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns parsed changelog for the config and database. Returned changelog has to be passed
+   * to <code>release</code> after the update, also when the update failed.
+   *
+   * @param config   config with changelog
+   * @param database database where changelog will be applied
+   * @return parsed changelog used exclusively by the caller
+   * @throws LiquibaseException when changelog cannot be parsed
+   */
+  DatabaseChangeLog acquire(LiquibaseConfig config, Database database)
+      throws LiquibaseException {
+    DatabaseChangeLog changeLog = getQueue(Key.of(config, database)).poll();
+    if (changeLog == null) {
+      return parse(config, config.getChangeLogPath(), database);
+    }
+    for (ChangeSet changeSet : changeLog.getChangeSets()) {
+      changeSet.setValidationFailed(false);
+      changeSet.setStoredCheckSum(null);
+    }
+    return changeLog;
+  }
+
+  /**
+   * Returns parsed changelog to the cache, so it can be used by the next update.
+   *
+   * @param config    config with changelog
+   * @param database  database where changelog was applied
+   * @param changeLog changelog returned by <code>acquire</code>
+   */
+  void release(LiquibaseConfig config, Database database, DatabaseChangeLog changeLog) {
+    getQueue(Key.of(config, database)).offer(changeLog);
+  }
+
+  long size() {
+    return changeLogs.size();
+  }
+
+  private Queue<DatabaseChangeLog> getQueue(Key key) {
+    try {
+      return changeLogs.get(key, ConcurrentLinkedQueue::new);
+    } catch (ExecutionException exception) {
+      throw new IllegalStateException(exception.getCause());
+    }
+  }
+
+  /**
+   * Parses a changelog file with parameters, contexts, labels and precompiled archive of the
+   * config, without caching it.
+   *
+   * @param config        config with changelog
+   * @param changeLogPath path of the parsed file
+   * @param database      database where changelog will be applied
+   * @return parsed changelog
+   * @throws LiquibaseException when changelog cannot be parsed
+   */
+  static DatabaseChangeLog parse(LiquibaseConfig config, String changeLogPath, Database database)
+      throws LiquibaseException {
+    return parse(config, changeLogPath, createParameters(config, database), database);
+  }
+
+  /**
+   * Parses a changelog file like <code>parse(LiquibaseConfig, String, Database)</code> with
+   * passed parameters, so properties declared by files parsed before with the same parameters
+   * are visible, as in files included by one changelog.
+   *
+   * @param config        config with changelog
+   * @param changeLogPath path of the parsed file
+   * @param parameters    parameters created by <code>createParameters</code>
+   * @param database      database where changelog will be applied
+   * @return parsed changelog
+   * @throws LiquibaseException when changelog cannot be parsed
+   */
+  static DatabaseChangeLog parse(LiquibaseConfig config, String changeLogPath,
+      ChangeLogParameters parameters, Database database) throws LiquibaseException {
+    ResourceAccessor resourceAccessor = config.getResourceAccessor();
+    Map<String, Object> scopeObjects = Maps.newHashMap();
+    scopeObjects.put(Scope.Attr.database.name(), database);
+    scopeObjects.put(Scope.Attr.resourceAccessor.name(), resourceAccessor);
+    if (config.getArchivePath().isPresent()) {
+      scopeObjects.put(ChangeLogArchive.SCOPE_KEY,
+          readArchive(resourceAccessor, config.getArchivePath().get()));
+    }
+    try {
+      return Scope.child(scopeObjects, () -> ChangeLogParserFactory.getInstance()
+          .getParser(changeLogPath, resourceAccessor)
+          .parse(changeLogPath, parameters, resourceAccessor));
+    } catch (LiquibaseException exception) {
+      throw exception;
+    } catch (Exception exception) {
+      throw new LiquibaseException(exception);
+    }
+  }
+
+  /**
+   * Creates changelog parameters with parameters, contexts and labels of the config.
+   *
+   * @param config   config with changelog
+   * @param database database where changelog will be applied
+   * @return new parameters
+   */
+  static ChangeLogParameters createParameters(LiquibaseConfig config, Database database) {
+    ChangeLogParameters parameters = new ChangeLogParameters(database);
+    config.getParameters().forEach(parameters::set);
+    parameters.setContexts(new Contexts(config.getContexts()));
+    parameters.setLabels(new LabelExpression(config.getLabels()));
+    return parameters;
+  }
+
+  private static ChangeLogArchive readArchive(ResourceAccessor resourceAccessor, String path)
+      throws LiquibaseException {
+    try (InputStream inputStream = resourceAccessor.getExisting(path).openInputStream()) {
+      return ChangeLogArchive.read(inputStream);
+    } catch (IOException exception) {
+      throw new ChangeLogParseException("Cannot read precompiled changelog " + path, exception);
+    }
+  }
+
+  private static final class Key {
+
+    private final String changeLogPath;
+    private final String archivePath;
+    private final ResourceAccessor resourceAccessor;
+    private final Map<String, String> parameters;
+    private final Set<String> contexts;
+    private final Set<String> labels;
+    private final List<Object> database;
+
+    private Key(LiquibaseConfig config, List<Object> database) {
+      this.changeLogPath = config.getChangeLogPath();
+      this.archivePath = config.getArchivePath().orElse(null);
+      this.resourceAccessor = config.getResourceAccessor();
+      this.parameters = ImmutableMap.copyOf(config.getParameters());
+      this.contexts = ImmutableSet.copyOf(config.getContexts());
+      this.labels = ImmutableSet.copyOf(config.getLabels());
+      this.database = database;
+    }
+
+    private static Key of(LiquibaseConfig config, Database database) {
+      List<Object> properties;
+      try {
+        properties = Arrays.asList(
+            database.getClass(),
+            database.getDatabaseProductVersion(),
+            database.getDefaultCatalogName(),
+            database.getDefaultSchemaName(),
+            database.getLiquibaseSchemaName(),
+            database.getDatabaseChangeLogTableName(),
+            database.getDatabaseChangeLogLockTableName());
+      } catch (Exception exception) {
+        properties = ImmutableList.of(database);
+      }
+      return new Key(config, properties);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Key that = (Key) obj;
+      return resourceAccessor == that.resourceAccessor
+          && Objects.equals(changeLogPath, that.changeLogPath)
+          && Objects.equals(archivePath, that.archivePath)
+          && Objects.equals(parameters, that.parameters)
+          && Objects.equals(contexts, that.contexts)
+          && Objects.equals(labels, that.labels)
+          && Objects.equals(database, that.database);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(changeLogPath, archivePath, System.identityHashCode(resourceAccessor),
+          parameters, contexts, labels, database);
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.ParsedNodeException;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+/**
+ * Computes digest of the changelog graph, baseline snapshot and Liquibase settings of
+ * <code>LiquibaseConfig</code>.
+ * Changelog is not parsed by Liquibase. Changelog files are walked with a light XML, YAML or
+ * precompiled node reader following <code>include</code>, <code>includeAll</code>,
+ * <code>sqlFile</code>, <code>loadData</code> and other elements which reference resources, and
+ * raw bytes of every reached resource are hashed, together with lookups of missing resources.
+ * <br>
+ * Referenced paths may use parameters of the config. Fingerprint is not computed when a path
+ * uses a property defined in the changelog.
+ */
+final class ChangeLogFingerprint {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChangeLogFingerprint.class);
+  private static final String RELATIVE = "relativeToChangelogFile";
+  private static final String INCLUDE = "include";
+  private static final String INCLUDE_ALL = "includeAll";
+  private static final Pattern PARAMETER = Pattern.compile("\\$\\{([^}]+)}");
+  /**
+   * Elements referencing a resource mapped to the attribute with its path.
+   */
+  private static final Map<String, String> REFERENCES = ImmutableMap.<String, String>builder()
+      .put(INCLUDE, "file")
+      .put(INCLUDE_ALL, "path")
+      .put("property", "file")
+      .put("sqlFile", "path")
+      .put("loadData", "file")
+      .put("loadUpdateData", "file")
+      .put("createProcedure", "path")
+      .put("createView", "path")
+      .build();
+
+  private final LiquibaseConfig config;
+  private final ResourceAccessor resourceAccessor;
+  private final Hasher hasher;
+  private final Set<String> walked;
+  private ChangeLogArchive archive;
+
+  private ChangeLogFingerprint(LiquibaseConfig config, Hasher hasher) {
+    this.config = config;
+    this.resourceAccessor = config.getResourceAccessor();
+    this.hasher = hasher;
+    this.walked = Sets.newHashSet();
+  }
+
+  /**
+   * Computes fingerprint of the config.
+   *
+   * @param config config with changelog
+   * @return fingerprint or empty when the changelog graph cannot be fully resolved
+   */
+  static Optional<String> of(LiquibaseConfig config) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString("changeLogPath=" + config.getChangeLogPath(), StandardCharsets.UTF_8);
+    try {
+      ChangeLogFingerprint fingerprint = new ChangeLogFingerprint(config, hasher);
+      if (!fingerprint.walk()) {
+        LOGGER.warn("Cannot find changelog {} for its fingerprint.", config.getChangeLogPath());
+        return Optional.empty();
+      }
+    } catch (Exception exception) {
+      LOGGER.warn("Cannot resolve changelog {} for its fingerprint.", config.getChangeLogPath(),
+          exception);
+      return Optional.empty();
+    }
+
+    putSettings(config, hasher);
+    return Optional.of(hasher.hash().toString());
+  }
+
+  /**
+   * Returns key of the config in <code>FingerprintStore</code>: changelog path with digest of
+   * settings covered by the fingerprint, so configs applying one changelog with different
+   * contexts, labels, parameters or baseline keep separate fingerprints.
+   *
+   * @param config config with changelog
+   * @return key of the stored fingerprint
+   */
+  static String configKey(LiquibaseConfig config) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putSettings(config, hasher);
+    return config.getChangeLogPath() + "#" + hasher.hash().toString().substring(0, 16);
+  }
+
+  private static void putSettings(LiquibaseConfig config, Hasher hasher) {
+    hasher.putString("archivePath=" + config.getArchivePath().orElse(""),
+        StandardCharsets.UTF_8);
+    hasher.putString("baseline=" + config.getBaseline()
+        .map(baseline -> baseline.getScriptPath() + baseline.getChangeSets())
+        .orElse(""), StandardCharsets.UTF_8);
+    hasher.putString("contexts=" + new TreeSet<>(config.getContexts()), StandardCharsets.UTF_8);
+    hasher.putString("labels=" + new TreeSet<>(config.getLabels()), StandardCharsets.UTF_8);
+    Map<String, String> parameters = new TreeMap<>(config.getParameters());
+    hasher.putString("parameters=" + parameters, StandardCharsets.UTF_8);
+  }
+
+  private boolean walk() throws IOException, XMLStreamException, ParsedNodeException {
+    if (config.getArchivePath().isPresent()) {
+      Optional<byte[]> content = read(config.getArchivePath().get());
+      if (!content.isPresent()) {
+        return false;
+      }
+      archive = ChangeLogArchive.read(new ByteArrayInputStream(content.get()));
+    }
+    if (!isChangeLog(config.getChangeLogPath())) {
+      return false;
+    }
+    walkChangeLog(config.getChangeLogPath());
+    if (config.getBaseline().isPresent()) {
+      hash(config.getBaseline().get().getScriptPath());
+    }
+    return true;
+  }
+
+  private boolean isChangeLog(String path) throws IOException {
+    if (archive != null && archive.contains(path)) {
+      return true;
+    }
+    List<Resource> resources = resourceAccessor.getAll(path);
+    return resources != null && !resources.isEmpty();
+  }
+
+  private void walkChangeLog(String path)
+      throws IOException, XMLStreamException, ParsedNodeException {
+    if (!walked.add(DatabaseChangeLog.normalizePath(path))) {
+      return;
+    }
+    List<Reference> references = Lists.newArrayList();
+    if (archive != null && archive.contains(path)) {
+      hasher.putString("archived:" + path, StandardCharsets.UTF_8);
+      collectNode(archive.getNode(path), references);
+    } else {
+      Optional<byte[]> content = read(path);
+      if (!content.isPresent()) {
+        return;
+      }
+      String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+      if ("xml".equals(extension)) {
+        collectXml(content.get(), references);
+      } else if ("yaml".equals(extension) || "yml".equals(extension)
+          || "json".equals(extension)) {
+        Object document = new Yaml(new SafeConstructor(new LoaderOptions()))
+            .load(new ByteArrayInputStream(content.get()));
+        collectYaml(document, references);
+      }
+    }
+    for (Reference reference : references) {
+      String referencedPath = ChangeLogStream.resolveInclude(
+          resourceAccessor, path, expand(reference.path), reference.relative);
+      if (INCLUDE.equals(reference.element)) {
+        walkChangeLog(referencedPath);
+      } else if (INCLUDE_ALL.equals(reference.element)) {
+        walkDirectory(referencedPath);
+      } else {
+        hash(referencedPath);
+      }
+    }
+  }
+
+  private void walkDirectory(String path)
+      throws IOException, XMLStreamException, ParsedNodeException {
+    List<Resource> found = Lists.newArrayList(resourceAccessor.search(path, true));
+    found.sort(Comparator.comparing(Resource::getPath));
+    hasher.putString("search:" + path, StandardCharsets.UTF_8);
+    hasher.putInt(found.size());
+    for (Resource resource : found) {
+      walkChangeLog(resource.getPath());
+    }
+  }
+
+  /**
+   * Hashes the resource without keeping it in memory.
+   */
+  private void hash(String path) throws IOException {
+    Optional<Resource> resource = find(path);
+    if (resource.isPresent()) {
+      hasher.putString("read:" + path, StandardCharsets.UTF_8);
+      try (InputStream inputStream = resource.get().openInputStream()) {
+        hasher.putLong(ByteStreams.copy(inputStream, Funnels.asOutputStream(hasher)));
+      }
+    }
+  }
+
+  private Optional<byte[]> read(String path) throws IOException {
+    Optional<Resource> resource = find(path);
+    if (!resource.isPresent()) {
+      return Optional.empty();
+    }
+    byte[] content;
+    try (InputStream inputStream = resource.get().openInputStream()) {
+      content = ByteStreams.toByteArray(inputStream);
+    }
+    hasher.putString("read:" + path, StandardCharsets.UTF_8);
+    hasher.putInt(content.length);
+    hasher.putBytes(content);
+    return Optional.of(content);
+  }
+
+  private Optional<Resource> find(String path) throws IOException {
+    List<Resource> resources = resourceAccessor.getAll(path);
+    if (resources == null || resources.isEmpty()) {
+      hasher.putString("missing:" + path, StandardCharsets.UTF_8);
+      return Optional.empty();
+    }
+    return Optional.of(resources.get(0));
+  }
+
+  private String expand(String path) throws IOException {
+    Matcher matcher = PARAMETER.matcher(path);
+    StringBuffer expanded = new StringBuffer();
+    while (matcher.find()) {
+      String value = config.getParameters().get(matcher.group(1));
+      if (value == null) {
+        throw new IOException("Path " + path + " uses property defined in the changelog.");
+      }
+      matcher.appendReplacement(expanded, Matcher.quoteReplacement(value));
+    }
+    matcher.appendTail(expanded);
+    return expanded.toString();
+  }
+
+  private static void collectXml(byte[] content, List<Reference> references)
+      throws XMLStreamException {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(content));
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          String attribute = REFERENCES.get(reader.getLocalName());
+          String path = attribute == null ? null : reader.getAttributeValue(null, attribute);
+          if (path != null) {
+            references.add(new Reference(reader.getLocalName(), path,
+                Boolean.parseBoolean(reader.getAttributeValue(null, RELATIVE))));
+          }
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void collectNode(ParsedNode node, List<Reference> references)
+      throws ParsedNodeException {
+    String attribute = REFERENCES.get(node.getName());
+    String path = attribute == null ? null : node.getChildValue(null, attribute, String.class);
+    if (path != null) {
+      references.add(new Reference(node.getName(), path,
+          Boolean.TRUE.equals(node.getChildValue(null, RELATIVE, Boolean.class))));
+    }
+    for (ParsedNode child : node.getChildren()) {
+      collectNode(child, references);
+    }
+  }
+
+  private static void collectYaml(Object value, List<Reference> references) {
+    if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        String element = String.valueOf(entry.getKey());
+        String attribute = REFERENCES.get(element);
+        if (attribute != null && entry.getValue() instanceof Map) {
+          Map<?, ?> attributes = (Map<?, ?>) entry.getValue();
+          if (attributes.get(attribute) != null) {
+            references.add(new Reference(element, String.valueOf(attributes.get(attribute)),
+                Boolean.parseBoolean(String.valueOf(attributes.get(RELATIVE)))));
+          }
+        }
+        collectYaml(entry.getValue(), references);
+      }
+    } else if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        collectYaml(element, references);
+      }
+    }
+  }
+
+  private static final class Reference {
+
+    private final String element;
+    private final String path;
+    private final boolean relative;
+
+    private Reference(String element, String path, boolean relative) {
+      this.element = element;
+      this.path = path;
+      this.relative = relative;
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import liquibase.Scope;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.exception.ChangeLogParseException;
+import liquibase.exception.LiquibaseException;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.ParsedNodeException;
+import liquibase.parser.core.xml.XMLChangeLogSAXParser;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.CompositeResourceAccessor;
+import liquibase.resource.DirectoryResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import liquibase.util.LiquibaseUtil;
+
+/**
+ * Build time tool which parses XML changelog with all its includes and writes them into a compact
+ * archive used by {@link LiquibaseConfig.Builder#withPrecompiledChangeLog(String)}. Archive
+ * contains checksums of changesets which do not use changelog parameters, so they are not
+ * computed at runtime. Changelogs in other formats included by the root changelog are not
+ * archived and are parsed at runtime.
+ * <br>
+ * Usage: <code>ChangeLogPrecompiler changeLogPath outputFile [resourceDirectory...]</code>. When no
+ * resource directory is defined, changelogs are loaded from the classpath.
+ *
+ * @since 0.1.2
+ */
+public final class ChangeLogPrecompiler {
+
+  private ChangeLogPrecompiler() {
+  }
+
+  /**
+   * Precompiles changelog from the command line.
+   *
+   * @param args changelog path, output file and optional resource directories
+   * @throws Exception when changelog cannot be precompiled
+   */
+  public static void main(String... args) throws Exception {
+    checkArgument(args.length >= 2,
+        "Usage: ChangeLogPrecompiler changeLogPath outputFile [resourceDirectory...]");
+    CompositeResourceAccessor resourceAccessor = new CompositeResourceAccessor();
+    for (int i = 2; i < args.length; i++) {
+      resourceAccessor.addResourceAccessor(new DirectoryResourceAccessor(Paths.get(args[i])));
+    }
+    if (args.length == 2) {
+      resourceAccessor.addResourceAccessor(
+          new ClassLoaderResourceAccessor(ChangeLogPrecompiler.class.getClassLoader()));
+    }
+    Path output = Paths.get(args[1]);
+    if (output.getParent() != null) {
+      Files.createDirectories(output.getParent());
+    }
+    try (OutputStream outputStream = Files.newOutputStream(output)) {
+      precompile(args[0], resourceAccessor, outputStream);
+    }
+  }
+
+  /**
+   * Parses changelog with its includes and writes the archive to the stream.
+   *
+   * @param changeLogPath    path of the root changelog
+   * @param resourceAccessor accessor used to load changelogs
+   * @param outputStream     target stream, which is not closed
+   * @throws LiquibaseException when changelog cannot be parsed
+   * @throws IOException        when archive cannot be written
+   */
+  public static void precompile(String changeLogPath, ResourceAccessor resourceAccessor,
+      OutputStream outputStream) throws LiquibaseException, IOException {
+    checkArgument(!Strings.isNullOrEmpty(changeLogPath), "changeLogPath must be defined.");
+    checkNotNull(resourceAccessor, "resourceAccessor must be defined.");
+    checkNotNull(outputStream, "outputStream must be defined.");
+    createArchive(changeLogPath, resourceAccessor).write(outputStream);
+  }
+
+  static ChangeLogArchive createArchive(String changeLogPath, ResourceAccessor resourceAccessor)
+      throws LiquibaseException {
+    RecordingParser recordingParser = new RecordingParser();
+    ChangeLogParserFactory parserFactory = ChangeLogParserFactory.getInstance();
+    parserFactory.register(recordingParser);
+    DatabaseChangeLog changeLog;
+    try {
+      changeLog = Scope.child(
+          Collections.singletonMap(Scope.Attr.resourceAccessor.name(), resourceAccessor),
+          () -> parserFactory.getParser(changeLogPath, resourceAccessor)
+              .parse(changeLogPath, new ChangeLogParameters(), resourceAccessor));
+    } catch (LiquibaseException exception) {
+      throw exception;
+    } catch (Exception exception) {
+      throw new LiquibaseException(exception);
+    } finally {
+      parserFactory.unregister(recordingParser);
+    }
+
+    Map<String, String> checkSums = Maps.newHashMap();
+    for (ChangeSet changeSet : changeLog.getChangeSets()) {
+      String key = ChangeLogArchive.checkSumKey(changeSet.getChangeLog().getPhysicalFilePath(),
+          changeSet.getId(), changeSet.getAuthor());
+      if (recordingParser.constantChangeSets.contains(key)) {
+        checkSums.put(key, changeSet.generateCheckSum().toString());
+      }
+    }
+    return new ChangeLogArchive(LiquibaseUtil.getBuildVersion(), recordingParser.nodes, checkSums);
+  }
+
+  /**
+   * XML parser which records node trees before Liquibase loads them and expands parameters.
+   */
+  private static final class RecordingParser extends XMLChangeLogSAXParser {
+
+    private final Map<String, byte[]> nodes = Maps.newLinkedHashMap();
+    private final Set<String> constantChangeSets = Sets.newHashSet();
+
+    @Override
+    public int getPriority() {
+      return PRIORITY_DEFAULT + 10;
+    }
+
+    @Override
+    protected ParsedNode parseToNode(String physicalChangeLogLocation,
+        ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor)
+        throws ChangeLogParseException {
+      ParsedNode node =
+          super.parseToNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+      if (node == null) {
+        return null;
+      }
+      String path = DatabaseChangeLog.normalizePath(physicalChangeLogLocation);
+      try {
+        nodes.put(path, ChangeLogArchive.encode(node));
+        for (ParsedNode changeSet : node.getChildren(null, "changeSet")) {
+          if (!usesParameters(changeSet)) {
+            constantChangeSets.add(ChangeLogArchive.checkSumKey(path,
+                changeSet.getChildValue(null, "id", String.class),
+                changeSet.getChildValue(null, "author", String.class)));
+          }
+        }
+      } catch (IOException | ParsedNodeException exception) {
+        throw new ChangeLogParseException(exception);
+      }
+      return node;
+    }
+
+    private static boolean usesParameters(ParsedNode node) {
+      return String.valueOf(node.getValue()).contains("${")
+          || node.getChildren().stream().anyMatch(RecordingParser::usesParameters);
+    }
+  }
+}
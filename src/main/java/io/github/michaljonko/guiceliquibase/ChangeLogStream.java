@@ -0,0 +1,134 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads root XML changelog of a config in streaming mode. Root changelog is streamed when it
+ * contains only <code>include</code> elements with <code>file</code> and
+ * <code>relativeToChangelogFile</code> attributes, so included files can be applied one at a time
+ * in the same order and with the same paths as Liquibase would record them.
+ */
+final class ChangeLogStream {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChangeLogStream.class);
+  private static final String INCLUDE = "include";
+  private static final Set<String> INCLUDE_ATTRIBUTES =
+      ImmutableSet.of("file", "relativeToChangelogFile");
+
+  private ChangeLogStream() {
+  }
+
+  /**
+   * Returns paths of changelog files included by the root changelog of the config.
+   *
+   * @param config config in streaming mode
+   * @return paths of included files in include order, empty Optional when root changelog cannot
+   *     be streamed
+   */
+  static Optional<List<String>> readIncludes(LiquibaseConfig config) {
+    String changeLogPath = config.getChangeLogPath();
+    if (!changeLogPath.toLowerCase(Locale.ROOT).endsWith(".xml")) {
+      return Optional.empty();
+    }
+    ResourceAccessor resourceAccessor = config.getResourceAccessor();
+    try (InputStream inputStream = resourceAccessor.getExisting(changeLogPath)
+        .openInputStream()) {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+      try {
+        ImmutableList.Builder<String> includes = ImmutableList.builder();
+        int depth = 0;
+        while (reader.hasNext()) {
+          int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+            if (depth == 2) {
+              Optional<String> include = readInclude(reader, config);
+              if (!include.isPresent()) {
+                LOGGER.info("Changelog {} contains {} element and is applied as a whole.",
+                    changeLogPath, reader.getLocalName());
+                return Optional.empty();
+              }
+              includes.add(include.get());
+            }
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            depth--;
+          }
+        }
+        return Optional.of(includes.build());
+      } finally {
+        reader.close();
+      }
+    } catch (IOException | XMLStreamException exception) {
+      LOGGER.warn("Cannot read includes of changelog {}.", changeLogPath, exception);
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<String> readInclude(XMLStreamReader reader, LiquibaseConfig config)
+      throws IOException {
+    if (!INCLUDE.equals(reader.getLocalName())) {
+      return Optional.empty();
+    }
+    String file = null;
+    boolean relative = false;
+    for (int index = 0; index < reader.getAttributeCount(); index++) {
+      String name = reader.getAttributeLocalName(index);
+      if (!INCLUDE_ATTRIBUTES.contains(name)) {
+        return Optional.empty();
+      }
+      if ("file".equals(name)) {
+        file = reader.getAttributeValue(index);
+      } else {
+        relative = Boolean.parseBoolean(reader.getAttributeValue(index));
+      }
+    }
+    if (file == null) {
+      return Optional.empty();
+    }
+    return Optional.of(resolveInclude(
+        config.getResourceAccessor(), config.getChangeLogPath(), file, relative));
+  }
+
+  /**
+   * Resolves path of a file included by a changelog file the way Liquibase does, so history rows
+   * of streamed files match the whole changelog.
+   *
+   * @param resourceAccessor accessor of changelog resources
+   * @param changeLogPath    path of the including changelog file
+   * @param file             included path
+   * @param relative         whether included path is relative to the changelog file
+   * @return path of the included file
+   * @throws IOException when changelog file cannot be looked up
+   */
+  static String resolveInclude(ResourceAccessor resourceAccessor, String changeLogPath,
+      String file, boolean relative) throws IOException {
+    // Same separators as DatabaseChangeLog.handleChildNode.
+    String path = file.replace('\\', '/');
+    if (!relative) {
+      return path;
+    }
+    // Same resolution as DatabaseChangeLog.include.
+    String sibling = resourceAccessor.get(changeLogPath)
+        .resolveSibling(path)
+        .getPath();
+    return Paths.get(sibling).normalize().toString().replace('\\', '/');
+  }
+}
@@ -0,0 +1,92 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import javax.sql.DataSource;
+import liquibase.GlobalConfiguration;
+
+/**
+ * Plain JDBC queries of Liquibase tables used where creating Liquibase would be too expensive.
+ * Table names are taken from Liquibase global configuration.
+ */
+final class ChangeLogTables {
+
+  private static final Splitter CHANGE_SET_SPLITTER = Splitter.on("::");
+
+  private ChangeLogTables() {
+  }
+
+  /**
+   * Checks if the changeset is recorded in <code>DATABASECHANGELOG</code> table. Changeset is
+   * matched on its id and author and, when the path is passed, on the changelog file.
+   *
+   * @param dataSource checked database
+   * @param changeSet  changeset in <code>id::author</code> or <code>path::id::author</code> form
+   * @return true when the changeset was applied
+   * @throws SQLException when the table cannot be queried, e.g. it does not exist yet
+   */
+  static boolean containsChangeSet(DataSource dataSource, String changeSet)
+      throws SQLException {
+    List<String> parts = splitChangeSet(changeSet);
+    String query = "SELECT COUNT(*) FROM "
+        + tableName(GlobalConfiguration.DATABASECHANGELOG_TABLE_NAME.getCurrentValue())
+        + " WHERE ID = ? AND AUTHOR = ?"
+        + (parts.size() == 3 ? " AND FILENAME = ?" : "");
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(query)) {
+      statement.setString(1, parts.get(parts.size() - 2));
+      statement.setString(2, parts.get(parts.size() - 1));
+      if (parts.size() == 3) {
+        statement.setString(3, parts.get(0));
+      }
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() && resultSet.getInt(1) > 0;
+      }
+    }
+  }
+
+  /**
+   * Splits the changeset into its path, id and author.
+   *
+   * @param changeSet changeset in <code>id::author</code> or <code>path::id::author</code> form
+   * @return id and author, preceded by the path when it was passed
+   * @throws IllegalArgumentException when changeSet is not in one of the forms
+   */
+  static List<String> splitChangeSet(String changeSet) {
+    List<String> parts = CHANGE_SET_SPLITTER.splitToList(Strings.nullToEmpty(changeSet));
+    checkArgument((parts.size() == 2 || parts.size() == 3)
+            && parts.stream().noneMatch(String::isEmpty),
+        "changeSet must be defined as id::author or path::id::author.");
+    return parts;
+  }
+
+  /**
+   * Checks if Liquibase lock is held in <code>DATABASECHANGELOGLOCK</code> table.
+   *
+   * @param dataSource checked database
+   * @return true when somebody holds the lock
+   * @throws SQLException when the table cannot be queried, e.g. it does not exist yet
+   */
+  static boolean isLocked(DataSource dataSource) throws SQLException {
+    String query = "SELECT LOCKED FROM "
+        + tableName(GlobalConfiguration.DATABASECHANGELOGLOCK_TABLE_NAME.getCurrentValue())
+        + " WHERE ID = 1";
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(query);
+        ResultSet resultSet = statement.executeQuery()) {
+      return resultSet.next() && resultSet.getBoolean(1);
+    }
+  }
+
+  private static String tableName(String table) {
+    String schema = GlobalConfiguration.LIQUIBASE_SCHEMA_NAME.getCurrentValue();
+    return Strings.isNullOrEmpty(schema) ? table : schema + "." + table;
+  }
+}
@@ -0,0 +1,223 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Strings;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Predicate;
+import liquibase.exception.UnexpectedLiquibaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coordination of instances of a cluster migrating the same database. Only the leader runs
+ * Liquibase, other instances (followers) skip it and poll <code>DATABASECHANGELOG</code> table
+ * until the expected last changeset is recorded there. Config finishes with
+ * {@link MigrationOutcome#UP_TO_DATE} without any election when the expected changeset is
+ * already applied.
+ * <br>
+ * Leader is chosen by the predicate or, by default, through the Liquibase lock: instance which
+ * finds the lock free runs Liquibase with a fail fast <code>LockStrategy</code> (unless the
+ * config defines its own one) and becomes a follower when another instance took the lock first.
+ *
+ * @since 0.1.2
+ */
+public final class ClusterCoordination {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClusterCoordination.class);
+  private final String expectedChangeSet;
+  private final Predicate<LiquibaseConfig> leaderPredicate;
+  private final Duration pollInterval;
+  private final Duration timeout;
+
+  private ClusterCoordination(String expectedChangeSet,
+      Predicate<LiquibaseConfig> leaderPredicate, Duration pollInterval, Duration timeout) {
+    this.expectedChangeSet = expectedChangeSet;
+    this.leaderPredicate = leaderPredicate;
+    this.pollInterval = pollInterval;
+    this.timeout = timeout;
+  }
+
+  String getExpectedChangeSet() {
+    return expectedChangeSet;
+  }
+
+  Optional<Predicate<LiquibaseConfig>> getLeaderPredicate() {
+    return Optional.ofNullable(leaderPredicate);
+  }
+
+  /**
+   * Checks with a single query if the expected changeset is already applied.
+   *
+   * @param config coordinated config
+   * @return true when the expected changeset is recorded
+   */
+  boolean isReached(LiquibaseConfig config) {
+    try {
+      return ChangeLogTables.containsChangeSet(
+          config.getMigrationDataSource(), expectedChangeSet);
+    } catch (SQLException exception) {
+      LOGGER.debug("Cannot check changeset {}.", expectedChangeSet, exception);
+      return false;
+    }
+  }
+
+  /**
+   * Checks if this instance should run Liquibase for the config.
+   *
+   * @param config coordinated config
+   * @return true for the leader
+   */
+  boolean isLeader(LiquibaseConfig config) {
+    if (leaderPredicate != null) {
+      return leaderPredicate.test(config);
+    }
+    try {
+      return !ChangeLogTables.isLocked(config.getMigrationDataSource());
+    } catch (SQLException exception) {
+      LOGGER.debug("Cannot check Liquibase lock.", exception);
+      return true;
+    }
+  }
+
+  /**
+   * Waits until the expected changeset is applied by the leader.
+   *
+   * @param config   coordinated config
+   * @param deadline deadline of the config, which stops waiting when cancelled or passed
+   * @throws UnexpectedLiquibaseException when the changeset was not applied before the timeout
+   * @throws MigrationAbortedException    when the config was cancelled or its deadline passed
+   */
+  void awaitLeader(LiquibaseConfig config, MigrationDeadline deadline) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    while (!isReached(config)) {
+      if (stopwatch.elapsed().compareTo(timeout) >= 0) {
+        throw new UnexpectedLiquibaseException(String.format(
+            "Changeset %s of %s was not applied by the leader in %s.",
+            expectedChangeSet, config.getChangeLogPath(), timeout));
+      }
+      try {
+        deadline.sleep(pollInterval);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        throw new UnexpectedLiquibaseException(exception);
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    ClusterCoordination that = (ClusterCoordination) obj;
+    return Objects.equals(expectedChangeSet, that.expectedChangeSet)
+        && Objects.equals(leaderPredicate, that.leaderPredicate)
+        && Objects.equals(pollInterval, that.pollInterval)
+        && Objects.equals(timeout, that.timeout);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(expectedChangeSet, leaderPredicate, pollInterval, timeout);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", ClusterCoordination.class.getSimpleName() + "[", "]")
+        .add("expectedChangeSet='" + expectedChangeSet + "'")
+        .add("leaderPredicate=" + leaderPredicate)
+        .add("pollInterval=" + pollInterval)
+        .add("timeout=" + timeout)
+        .toString();
+  }
+
+  /**
+   * Builder for <code>ClusterCoordination</code>.
+   */
+  public static final class Builder {
+
+    private final String expectedChangeSet;
+    private Predicate<LiquibaseConfig> leaderPredicate;
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private Duration timeout = Duration.ofMinutes(10);
+
+    private Builder(String expectedChangeSet) {
+      this.expectedChangeSet = expectedChangeSet;
+    }
+
+    /**
+     * Creates new builder with 1 second poll interval and 10 minutes timeout.
+     *
+     * @param expectedChangeSet last changeset of the changelog in <code>id::author</code> or
+     *                          <code>path::id::author</code> form, as logged by Liquibase
+     * @return new Builder instance
+     * @throws IllegalArgumentException when expectedChangeSet is null, empty or not in one of
+     *                                  the forms
+     */
+    public static Builder of(String expectedChangeSet) {
+      checkArgument(!Strings.isNullOrEmpty(expectedChangeSet),
+          "expectedChangeSet must be defined.");
+      ChangeLogTables.splitChangeSet(expectedChangeSet);
+      return new Builder(expectedChangeSet);
+    }
+
+    /**
+     * Sets predicate electing the leader, e.g. checking the ordinal of the instance. By default
+     * leader is elected through the Liquibase lock.
+     *
+     * @param value predicate returning true on the leader or null to use the Liquibase lock
+     * @return itself
+     */
+    public Builder withLeaderPredicate(Predicate<LiquibaseConfig> value) {
+      this.leaderPredicate = value;
+      return this;
+    }
+
+    /**
+     * Sets interval between checks of followers.
+     *
+     * @param value positive interval
+     * @return itself
+     * @throws IllegalArgumentException when value is not positive
+     */
+    public Builder withPollInterval(Duration value) {
+      checkArgument(!checkNotNull(value, "pollInterval must be defined.").isNegative()
+          && !value.isZero(), "pollInterval must be positive.");
+      this.pollInterval = value;
+      return this;
+    }
+
+    /**
+     * Sets maximum time of waiting for the leader, after which follower fails.
+     *
+     * @param value not negative timeout
+     * @return itself
+     * @throws IllegalArgumentException when value is negative
+     */
+    public Builder withTimeout(Duration value) {
+      checkArgument(!checkNotNull(value, "timeout must be defined.").isNegative(),
+          "timeout cannot be negative.");
+      this.timeout = value;
+      return this;
+    }
+
+    /**
+     * Creates new <code>ClusterCoordination</code> object for defined properties.
+     *
+     * @return new <code>ClusterCoordination</code> object
+     */
+    public ClusterCoordination build() {
+      return new ClusterCoordination(expectedChangeSet, leaderPredicate, pollInterval, timeout);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Objects.nonNull;
+
+import com.google.common.collect.Maps;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps one connection and Liquibase <code>Database</code> per DataSource, shared by all configs
+ * of that DataSource. Configs of the same DataSource are applied one after another, so a session
+ * is never used concurrently. Session is closed when the last config of its DataSource is
+ * released or when applying a config failed.
+ */
+final class DataSourceSessions {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceSessions.class);
+  private static final long BUDGET_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private final Map<DataSource, AtomicInteger> pendingConfigs;
+  private final Map<DataSource, Session> sessions;
+
+  DataSourceSessions(Collection<LiquibaseConfig> configs) {
+    Map<DataSource, AtomicInteger> pending = Maps.newHashMap();
+    configs.forEach(config -> pending
+        .computeIfAbsent(config.getDataSource(), dataSource -> new AtomicInteger())
+        .incrementAndGet());
+    this.pendingConfigs = pending;
+    this.sessions = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns <code>Database</code> of the DataSource, opening new connection when there is no
+   * open session for it.
+   *
+   * @param dataSource DataSource of the config
+   * @param recorder   recorder of the config, which times opening of a new session
+   * @return Liquibase <code>Database</code> shared by configs of the DataSource
+   * @throws SQLException      when connection cannot be opened
+   * @throws DatabaseException when database implementation cannot be found
+   */
+  Database getDatabase(DataSource dataSource, PhaseRecorder recorder)
+      throws SQLException, DatabaseException {
+    return getDatabase(dataSource, () -> new Session(dataSource.getConnection()), null, recorder);
+  }
+
+  /**
+   * Returns <code>Database</code> of the config's DataSource, opening new connection when there
+   * is no open session for it. Connection is opened by the migration DataSource of the config
+   * and holds a permit of its connection budget until the session is closed. Wait for the
+   * permit stops when the config is cancelled.
+   *
+   * @param config   config applied on the session
+   * @param deadline deadline of the config in its migration handle
+   * @param recorder recorder of the config, which times opening of a new session
+   * @return Liquibase <code>Database</code> shared by configs of the DataSource
+   * @throws SQLException              when connection cannot be opened or there was no permit
+   *                                   of the connection budget before the deadline of the config
+   * @throws DatabaseException         when database implementation cannot be found
+   * @throws MigrationAbortedException when config was cancelled while waiting for the permit
+   */
+  Database getDatabase(LiquibaseConfig config, MigrationDeadline deadline,
+      PhaseRecorder recorder) throws SQLException, DatabaseException {
+    return getDatabase(config.getDataSource(), () -> openConnection(config, deadline),
+        config.getDatabaseClass().orElse(null), recorder);
+  }
+
+  private Database getDatabase(DataSource dataSource, ConnectionOpener opener,
+      Class<? extends Database> databaseClass, PhaseRecorder recorder)
+      throws SQLException, DatabaseException {
+    Session session = sessions.get(checkNotNull(dataSource, "DataSource must be defined."));
+    if (session == null) {
+      session = recorder.record(MigrationPhase.CONNECTION, opener::open);
+      // Statements of every config can be cancelled by the migration handle.
+      session = new Session(MigrationDeadline.wrap(session.connection), session.budget);
+      sessions.put(dataSource, session);
+      Connection connection = session.connection;
+      session.database = recorder.record(MigrationPhase.DIALECT_DETECTION,
+          () -> DatabaseDialects.getInstance().getDatabase(connection, databaseClass));
+    }
+    return session.database;
+  }
+
+  /**
+   * Closes session of the DataSource. Next config of the DataSource opens a new one.
+   *
+   * @param dataSource DataSource of the failed config
+   */
+  void invalidate(DataSource dataSource) {
+    Session session = sessions.remove(dataSource);
+    if (nonNull(session)) {
+      session.close();
+    }
+  }
+
+  /**
+   * Marks config as finished and closes the session when it was the last config of the
+   * DataSource.
+   *
+   * @param config finished config
+   */
+  void release(LiquibaseConfig config) {
+    AtomicInteger pending = pendingConfigs.get(config.getDataSource());
+    if (nonNull(pending) && pending.decrementAndGet() == 0) {
+      invalidate(config.getDataSource());
+    }
+  }
+
+  private static Session openConnection(LiquibaseConfig config, MigrationDeadline deadline)
+      throws SQLException {
+    Semaphore budget = config.getConnectionBudget().orElse(null);
+    if (budget != null) {
+      acquire(budget, config, deadline);
+    }
+    try {
+      return new Session(config.getMigrationDataSource().getConnection(), budget);
+    } catch (SQLException | RuntimeException exception) {
+      if (budget != null) {
+        budget.release();
+      }
+      throw exception;
+    }
+  }
+
+  /**
+   * Polls the budget, so a config without deadline does not wait forever once it is cancelled.
+   */
+  private static void acquire(Semaphore budget, LiquibaseConfig config,
+      MigrationDeadline deadline) throws SQLException {
+    Optional<Long> waitUntil = config.getDeadline()
+        .map(value -> System.nanoTime() + value.toNanos());
+    try {
+      while (true) {
+        deadline.check();
+        long slice = waitUntil.map(value -> Math.min(value - System.nanoTime(), BUDGET_POLL_NANOS))
+            .orElse(BUDGET_POLL_NANOS);
+        if (budget.tryAcquire(Math.max(slice, 0), TimeUnit.NANOSECONDS)) {
+          return;
+        }
+        if (waitUntil.filter(value -> System.nanoTime() - value >= 0).isPresent()) {
+          throw new SQLException(String.format(
+              "No connection of the migration budget was free in %s for %s.",
+              config.getDeadline().get(), config.getChangeLogPath()));
+        }
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for the migration connection budget.",
+          exception);
+    }
+  }
+
+  /**
+   * Opens connection of a new session.
+   */
+  @FunctionalInterface
+  private interface ConnectionOpener {
+
+    Session open() throws SQLException;
+  }
+
+  private static final class Session {
+
+    private final Connection connection;
+    private final Semaphore budget;
+    private Database database;
+
+    private Session(Connection connection) {
+      this(connection, null);
+    }
+
+    private Session(Connection connection, Semaphore budget) {
+      this.budget = budget;
+      this.connection = checkNotNull(connection, "DataSource returns null connection instance.");
+    }
+
+    private void close() {
+      if (nonNull(database)) {
+        try {
+          database.close();
+        } catch (DatabaseException exception) {
+          LOGGER.error("Problem during database.close() call.", exception);
+        }
+      }
+      try {
+        connection.close();
+      } catch (SQLException exception) {
+        LOGGER.error("Problem during connection.close() call.", exception);
+      } finally {
+        if (nonNull(budget)) {
+          budget.release();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.core.UnsupportedDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.UnexpectedLiquibaseException;
+
+/**
+ * Bounded cache of Liquibase <code>Database</code> implementations shared by all engines in the
+ * JVM. Detection done by <code>DatabaseFactory</code> asks every registered implementation about
+ * the connection, which costs many metadata calls on remote databases. The detected
+ * implementation is cached for the JDBC URL, so other configs and engines of the same database
+ * only create its instance.
+ * <br>
+ * Cache is kept in memory only and every new JVM detects the dialect again. Configs which should
+ * skip detection after restarts pin the class with
+ * {@link LiquibaseConfig.Builder#withDatabaseClass(Class)}.
+ */
+final class DatabaseDialects {
+
+  private static final int MAXIMUM_SIZE = 256;
+  private static final DatabaseDialects INSTANCE = new DatabaseDialects(MAXIMUM_SIZE);
+  private final Cache<String, Class<? extends Database>> dialects;
+
+  DatabaseDialects(int maximumSize) {
+    this.dialects = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .build();
+  }
+
+  static DatabaseDialects getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns Liquibase <code>Database</code> for the connection.
+   *
+   * @param connection    open connection of the DataSource
+   * @param databaseClass implementation pinned in the config or null to detect it
+   * @return <code>Database</code> using passed connection
+   * @throws DatabaseException when implementation cannot be detected
+   */
+  Database getDatabase(Connection connection, Class<? extends Database> databaseClass)
+      throws DatabaseException {
+    JdbcConnection jdbcConnection = new JdbcConnection(connection);
+    if (databaseClass != null) {
+      return createDatabase(databaseClass, jdbcConnection);
+    }
+    String url = getUrl(connection);
+    Class<? extends Database> cached = url == null ? null : dialects.getIfPresent(url);
+    if (cached != null) {
+      return createDatabase(cached, jdbcConnection);
+    }
+    Database database = DatabaseFactory.getInstance()
+        .findCorrectDatabaseImplementation(jdbcConnection);
+    if (url != null && !(database instanceof UnsupportedDatabase)) {
+      dialects.put(url, database.getClass());
+    }
+    return database;
+  }
+
+  long size() {
+    return dialects.size();
+  }
+
+  private static String getUrl(Connection connection) throws DatabaseException {
+    try {
+      DatabaseMetaData metaData = connection.getMetaData();
+      return metaData == null ? null : metaData.getURL();
+    } catch (SQLException exception) {
+      throw new DatabaseException(exception);
+    }
+  }
+
+  private static Database createDatabase(
+      Class<? extends Database> databaseClass, JdbcConnection connection) {
+    Database database;
+    try {
+      database = databaseClass.getConstructor().newInstance();
+    } catch (ReflectiveOperationException exception) {
+      throw new UnexpectedLiquibaseException(
+          "Cannot create Liquibase database " + databaseClass.getName(), exception);
+    }
+    database.setConnection(connection);
+    return database;
+  }
+}
@@ -0,0 +1,109 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+final class DatabaseFingerprintStore implements FingerprintStore {
+
+  static final String DEFAULT_TABLE_NAME = "GUICE_LIQUIBASE_FINGERPRINT";
+  private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseFingerprintStore.class);
+  private final String tableName;
+
+  DatabaseFingerprintStore(String tableName) {
+    this.tableName = tableName;
+  }
+
+  @Override
+  public Optional<String> load(DataSource dataSource, String configKey)
+      throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(
+            "SELECT FINGERPRINT FROM " + tableName + " WHERE CHANGE_LOG = ?")) {
+      statement.setString(1, configKey);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? Optional.ofNullable(resultSet.getString(1)) : Optional.empty();
+      }
+    } catch (SQLException exception) {
+      LOGGER.debug("Cannot read fingerprint from {} - table is probably missing.", tableName,
+          exception);
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void store(DataSource dataSource, String configKey, String fingerprint)
+      throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      int updated;
+      try {
+        updated = update(connection, configKey, fingerprint);
+      } catch (SQLException exception) {
+        LOGGER.debug("Cannot update fingerprint in {} - creating table.", tableName, exception);
+        if (!connection.getAutoCommit()) {
+          // Some databases abort the whole transaction after a failed statement.
+          connection.rollback();
+        }
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("CREATE TABLE " + tableName
+              + " (CHANGE_LOG VARCHAR(255) NOT NULL PRIMARY KEY,"
+              + " FINGERPRINT VARCHAR(64) NOT NULL)");
+        }
+        updated = 0;
+      }
+      if (updated == 0) {
+        try (PreparedStatement statement = connection.prepareStatement(
+            "INSERT INTO " + tableName + " (CHANGE_LOG, FINGERPRINT) VALUES (?, ?)")) {
+          statement.setString(1, configKey);
+          statement.setString(2, fingerprint);
+          statement.executeUpdate();
+        }
+      }
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    }
+  }
+
+  private int update(Connection connection, String configKey, String fingerprint)
+      throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(
+        "UPDATE " + tableName + " SET FINGERPRINT = ? WHERE CHANGE_LOG = ?")) {
+      statement.setString(1, fingerprint);
+      statement.setString(2, configKey);
+      return statement.executeUpdate();
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    DatabaseFingerprintStore that = (DatabaseFingerprintStore) obj;
+    return Objects.equals(tableName, that.tableName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(tableName);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", DatabaseFingerprintStore.class.getSimpleName() + "[", "]")
+        .add("tableName='" + tableName + "'")
+        .toString();
+  }
+}
@@ -0,0 +1,269 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import liquibase.changelog.ChangeLogHistoryServiceFactory;
+import liquibase.database.Database;
+import liquibase.database.core.H2Database;
+import liquibase.database.core.HsqlDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.lockservice.LockServiceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of migrated embedded databases kept as SQL scripts, shared by all engines in the
+ * JVM. Database migrated by Liquibase is scripted under the fingerprint of its config, and
+ * following empty databases of the same fingerprint are restored from the script instead of
+ * replaying changesets.
+ * <br>
+ * HSQLDB is scripted with <code>SCRIPT</code> into a temporary file, as only the file script
+ * contains rows of tables. Users, database settings and LOBs are not scripted, so databases with
+ * LOB values are not kept as templates. H2 is scripted with <code>SCRIPT NOPASSWORDS</code>
+ * without users.
+ */
+final class DatabaseTemplates {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseTemplates.class);
+  private static final int MAXIMUM_SIZE = 32;
+  private static final DatabaseTemplates INSTANCE = new DatabaseTemplates(MAXIMUM_SIZE);
+  private static final Pattern UNICODE_ESCAPE = Pattern.compile("\\\\u([0-9a-fA-F]{4})");
+  private static final Set<String> SYSTEM_SCHEMAS =
+      ImmutableSet.of("INFORMATION_SCHEMA", "SYSTEM_LOBS");
+  private static final List<String> HSQLDB_SKIPPED_STATEMENTS = ImmutableList.of(
+      "SET DATABASE ", "SET FILES ", "CREATE USER ", "ALTER USER ", "GRANT DBA TO ",
+      "CREATE SCHEMA PUBLIC ", "GRANT USAGE ON DOMAIN INFORMATION_SCHEMA.",
+      "ALTER SEQUENCE SYSTEM_LOBS.");
+  private static final String HSQLDB_LOBS_SCHEMA = "SET SCHEMA SYSTEM_LOBS";
+  private static final List<String> HSQLDB_LOB_STATEMENTS =
+      ImmutableList.of("INSERT INTO LOBS ", "INSERT INTO LOB_IDS ");
+  private final Cache<String, Template> templates;
+
+  DatabaseTemplates(int maximumSize) {
+    this.templates = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .build();
+  }
+
+  static DatabaseTemplates getInstance() {
+    return INSTANCE;
+  }
+
+  static boolean isSupported(Database database) {
+    return database instanceof HsqlDatabase || database instanceof H2Database;
+  }
+
+  /**
+   * Restores the database from the template when the database has no tables and the template
+   * exists. Result tells whether the database was empty, so only databases migrated from scratch
+   * are captured as templates.
+   *
+   * @param key      template key, e.g. database name and changelog fingerprint
+   * @param database HSQLDB or H2 database
+   * @return emptiness of the database and number of changesets of the restored template
+   * @throws SQLException when the database cannot be read or the script failed
+   */
+  Restoration restore(String key, Database database) throws SQLException {
+    Connection connection = getConnection(database);
+    if (!isEmpty(connection)) {
+      LOGGER.info("Database {} is not empty and is not restored from the template.",
+          connection.getMetaData().getURL());
+      return Restoration.NOT_EMPTY;
+    }
+    Template template = templates.getIfPresent(key);
+    if (template == null) {
+      return Restoration.EMPTY;
+    }
+    String schema = connection.getSchema();
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : template.statements) {
+        statement.execute(sql);
+      }
+    } finally {
+      // Script switches schemas of the session.
+      connection.setSchema(schema);
+    }
+    if (!connection.getAutoCommit()) {
+      connection.commit();
+    }
+    // Services of the database may remember missing Liquibase tables.
+    LockServiceFactory.getInstance().getLockService(database).reset();
+    ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database).reset();
+    return new Restoration(true, template.changeSets);
+  }
+
+  /**
+   * Scripts the database migrated from scratch as the template for the key. Existing template
+   * of the key is kept.
+   *
+   * @param key        template key, e.g. database name and changelog fingerprint
+   * @param database   HSQLDB or H2 database which was empty before the migration
+   * @param changeSets number of changesets of the changelog
+   * @return true when the database was kept as the template
+   * @throws SQLException when the database cannot be scripted
+   */
+  boolean capture(String key, Database database, int changeSets) throws SQLException {
+    if (templates.getIfPresent(key) != null) {
+      return false;
+    }
+    Connection connection = getConnection(database);
+    Optional<List<String>> statements = database instanceof HsqlDatabase
+        ? scriptHsqldb(connection)
+        : Optional.of(scriptH2(connection));
+    return statements.isPresent() && templates.asMap()
+        .putIfAbsent(key, new Template(statements.get(), changeSets)) == null;
+  }
+
+  long size() {
+    return templates.size();
+  }
+
+  private static Optional<List<String>> scriptHsqldb(Connection connection)
+      throws SQLException {
+    Path directory;
+    try {
+      directory = Files.createTempDirectory("guice-liquibase");
+    } catch (IOException exception) {
+      throw new SQLException("Cannot create directory of the script.", exception);
+    }
+    try {
+      Path file = directory.resolve("template.script");
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("SCRIPT '" + file.toString().replace("'", "''") + "'");
+      }
+      ImmutableList.Builder<String> statements = ImmutableList.builder();
+      boolean lobs = false;
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        if (line.startsWith("SET SCHEMA ")) {
+          lobs = HSQLDB_LOBS_SCHEMA.equals(line);
+        }
+        if (lobs && HSQLDB_LOB_STATEMENTS.stream().anyMatch(line::startsWith)) {
+          LOGGER.info("Database {} contains LOB values and is not kept as a template.",
+              connection.getMetaData().getURL());
+          return Optional.empty();
+        }
+        if (!lobs && HSQLDB_SKIPPED_STATEMENTS.stream().noneMatch(line::startsWith)) {
+          statements.add(unescape(line));
+        }
+      }
+      return Optional.of(statements.build());
+    } catch (IOException exception) {
+      throw new SQLException("Cannot read the script.", exception);
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  private static void deleteDirectory(Path directory) {
+    try {
+      MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    } catch (IOException exception) {
+      LOGGER.warn("Cannot delete script directory {}.", directory, exception);
+    }
+  }
+
+  private static List<String> scriptH2(Connection connection) throws SQLException {
+    ImmutableList.Builder<String> statements = ImmutableList.builder();
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SCRIPT NOPASSWORDS")) {
+      while (resultSet.next()) {
+        String sql = resultSet.getString(1);
+        if (!sql.startsWith("CREATE USER ")) {
+          statements.add(sql);
+        }
+      }
+    }
+    return statements.build();
+  }
+
+  /**
+   * Decodes <code>\\uXXXX</code> escapes of HSQLDB script files, which are also used for
+   * backslashes.
+   */
+  private static String unescape(String line) {
+    Matcher matcher = UNICODE_ESCAPE.matcher(line);
+    StringBuffer result = new StringBuffer(line.length());
+    while (matcher.find()) {
+      char value = (char) Integer.parseInt(matcher.group(1), 16);
+      matcher.appendReplacement(result, Matcher.quoteReplacement(String.valueOf(value)));
+    }
+    return matcher.appendTail(result).toString();
+  }
+
+  private static boolean isEmpty(Connection connection) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet tables = metaData.getTables(null, null, "%", new String[]{"TABLE"})) {
+      while (tables.next()) {
+        String schema = tables.getString("TABLE_SCHEM");
+        if (schema == null || !SYSTEM_SCHEMAS.contains(schema.toUpperCase(Locale.ROOT))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Connection getConnection(Database database) {
+    return ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+  }
+
+  /**
+   * Result of <code>restore</code>.
+   */
+  static final class Restoration {
+
+    private static final Restoration NOT_EMPTY = new Restoration(false, null);
+    private static final Restoration EMPTY = new Restoration(true, null);
+    private final boolean empty;
+    private final Integer changeSets;
+
+    private Restoration(boolean empty, Integer changeSets) {
+      this.empty = empty;
+      this.changeSets = changeSets;
+    }
+
+    /**
+     * Returns whether the database had no tables before the restore.
+     */
+    boolean isEmpty() {
+      return empty;
+    }
+
+    /**
+     * Returns number of changesets of the template when the database was restored.
+     */
+    Optional<Integer> getChangeSets() {
+      return Optional.ofNullable(changeSets);
+    }
+  }
+
+  private static final class Template {
+
+    private final List<String> statements;
+    private final int changeSets;
+
+    private Template(List<String> statements, int changeSets) {
+      this.statements = statements;
+      this.changeSets = changeSets;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.StringJoiner;
+import javax.sql.DataSource;
+
+/**
+ * Properties file with fingerprints keyed by JDBC URL and user of the DataSource and by the
+ * changelog path, so DataSources sharing the file do not take each other's fingerprints.
+ */
+final class FileFingerprintStore implements FingerprintStore {
+
+  private final Path path;
+
+  FileFingerprintStore(Path path) {
+    this.path = path;
+  }
+
+  @Override
+  public synchronized Optional<String> load(DataSource dataSource, String configKey)
+      throws SQLException, IOException {
+    return Optional.ofNullable(read().getProperty(key(dataSource, configKey)));
+  }
+
+  @Override
+  public synchronized void store(DataSource dataSource, String configKey, String fingerprint)
+      throws SQLException, IOException {
+    String key = key(dataSource, configKey);
+    Properties properties = read();
+    properties.setProperty(key, fingerprint);
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      properties.store(outputStream, "GuiceLiquibase changelog fingerprints");
+    }
+  }
+
+  private static String key(DataSource dataSource, String configKey) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      DatabaseMetaData metaData = connection.getMetaData();
+      return metaData.getURL() + "|" + metaData.getUserName() + "|" + configKey;
+    }
+  }
+
+  private Properties read() throws IOException {
+    Properties properties = new Properties();
+    if (Files.exists(path)) {
+      try (InputStream inputStream = Files.newInputStream(path)) {
+        properties.load(inputStream);
+      }
+    }
+    return properties;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    FileFingerprintStore that = (FileFingerprintStore) obj;
+    return Objects.equals(path, that.path);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(path);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", FileFingerprintStore.class.getSimpleName() + "[", "]")
+        .add("path=" + path)
+        .toString();
+  }
+}
@@ -0,0 +1,68 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Optional;
+import javax.sql.DataSource;
+
+/**
+ * Storage of changelog fingerprints. When fingerprint computed for <code>LiquibaseConfig</code>
+ * is equal to the stored one, Liquibase is not executed at all for the config.
+ *
+ * @see LiquibaseConfig.Builder#withFingerprintStore(FingerprintStore)
+ * @since 0.1.2
+ */
+public interface FingerprintStore {
+
+  /**
+   * Creates store keeping fingerprints in <code>GUICE_LIQUIBASE_FINGERPRINT</code> table of the
+   * migrated database. The table is created with the first stored fingerprint.
+   *
+   * @return new store instance
+   */
+  static FingerprintStore database() {
+    return new DatabaseFingerprintStore(DatabaseFingerprintStore.DEFAULT_TABLE_NAME);
+  }
+
+  /**
+   * Creates store keeping fingerprints in a local properties file. Intended for embedded
+   * databases - the file should be removed together with the database files. Fingerprints are
+   * kept per JDBC URL and user of the DataSource, so many DataSources can share the file.
+   *
+   * @param path path to the properties file
+   * @return new store instance
+   * @throws NullPointerException when path is null
+   */
+  static FingerprintStore file(Path path) {
+    return new FileFingerprintStore(checkNotNull(path, "path must be defined."));
+  }
+
+  /**
+   * Loads fingerprint stored for the config.
+   *
+   * @param dataSource migrated DataSource
+   * @param configKey  path of the changelog with digest of contexts, labels, parameters and
+   *                   baseline of the config, so configs of one changelog do not share
+   *                   fingerprints
+   * @return stored fingerprint or empty when there is no fingerprint for the config
+   * @throws SQLException when database cannot be queried
+   * @throws IOException  when storage cannot be read
+   */
+  Optional<String> load(DataSource dataSource, String configKey)
+      throws SQLException, IOException;
+
+  /**
+   * Stores fingerprint of the config applied to the DataSource.
+   *
+   * @param dataSource  migrated DataSource
+   * @param configKey   key of the config, see <code>load</code>
+   * @param fingerprint fingerprint of the config
+   * @throws SQLException when database cannot be updated
+   * @throws IOException  when storage cannot be written
+   */
+  void store(DataSource dataSource, String configKey, String fingerprint)
+      throws SQLException, IOException;
+}
@@ -0,0 +1,196 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import liquibase.changelog.ChangeSet;
+
+/**
+ * <code>MigrationListener</code> emitting Java Flight Recorder events for configs, their phases
+ * and executed changesets, so migration work can be correlated with GC and I/O in the same
+ * recording. It is bound by <code>GuiceLiquibaseModule</code> when the JVM provides Flight
+ * Recorder API. Events are created only when they are enabled in a running recording.
+ * <br>
+ * Phases are reported on the thread applying the config, so events begun on a thread are kept
+ * in a stack of that thread until the matching phase is finished.
+ */
+@Singleton
+final class FlightRecorderListener implements MigrationListener {
+
+  private final ThreadLocal<Deque<Event>> events = ThreadLocal.withInitial(ArrayDeque::new);
+
+  @Override
+  public void migrationStarted(LiquibaseConfig config) {
+    MigrationEvent event = new MigrationEvent();
+    if (event.isEnabled()) {
+      event.changeLogPath = config.getChangeLogPath();
+      event.dataSource = describe(config.getDataSource());
+      begin(event);
+    }
+  }
+
+  @Override
+  public void phaseStarted(LiquibaseConfig config, MigrationPhase phase) {
+    PhaseEvent event = new PhaseEvent();
+    if (event.isEnabled()) {
+      event.changeLogPath = config.getChangeLogPath();
+      event.dataSource = describe(config.getDataSource());
+      event.phase = phase.name();
+      begin(event);
+    }
+  }
+
+  @Override
+  public void phaseFinished(LiquibaseConfig config, MigrationPhase phase, Duration duration) {
+    Event top = events.get().peek();
+    if (top instanceof PhaseEvent && phase.name().equals(((PhaseEvent) top).phase)) {
+      commit(events.get().pop());
+    }
+  }
+
+  @Override
+  public void changeSetStarted(LiquibaseConfig config, ChangeSet changeSet) {
+    ChangeSetEvent event = new ChangeSetEvent();
+    if (event.isEnabled()) {
+      event.changeLogPath = config.getChangeLogPath();
+      event.dataSource = describe(config.getDataSource());
+      event.changeSetId = changeSet.getId();
+      event.changeSetAuthor = changeSet.getAuthor();
+      event.changeSetFilePath = changeSet.getFilePath();
+      begin(event);
+    }
+  }
+
+  @Override
+  public void changeSetExecuted(LiquibaseConfig config, ChangeSet changeSet, Duration duration) {
+    Event top = events.get().peek();
+    if (top instanceof ChangeSetEvent
+        && changeSet.getId().equals(((ChangeSetEvent) top).changeSetId)) {
+      commit(events.get().pop());
+    }
+  }
+
+  @Override
+  public void migrationFinished(LiquibaseConfig config, MigrationOutcome outcome,
+      int appliedChangeSets, int skippedChangeSets) {
+    MigrationEvent event = popMigration();
+    if (event != null) {
+      event.outcome = outcome.name();
+      event.appliedChangeSets = appliedChangeSets;
+      event.skippedChangeSets = skippedChangeSets;
+      commit(event);
+    }
+  }
+
+  @Override
+  public void migrationFailed(LiquibaseConfig config, Throwable failure) {
+    MigrationEvent event = popMigration();
+    if (event != null) {
+      event.failure = String.valueOf(failure);
+      commit(event);
+    }
+  }
+
+  private void begin(Event event) {
+    event.begin();
+    events.get().push(event);
+  }
+
+  /**
+   * Drops events of phases and changesets which did not finish, e.g. failed changeset, and
+   * returns the event of the config.
+   */
+  private MigrationEvent popMigration() {
+    Deque<Event> stack = events.get();
+    while (!stack.isEmpty()) {
+      Event event = stack.pop();
+      if (event instanceof MigrationEvent) {
+        return (MigrationEvent) event;
+      }
+    }
+    events.remove();
+    return null;
+  }
+
+  private static void commit(Event event) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit();
+    }
+  }
+
+  private static String describe(DataSource dataSource) {
+    return dataSource.getClass().getName() + "@"
+        + Integer.toHexString(System.identityHashCode(dataSource));
+  }
+
+  @Name("io.github.michaljonko.guiceliquibase.Migration")
+  @Label("Liquibase Migration")
+  @Description("Liquibase update of a single config")
+  @Category("GuiceLiquibase")
+  static final class MigrationEvent extends Event {
+
+    @Label("Changelog Path")
+    String changeLogPath;
+
+    @Label("DataSource")
+    String dataSource;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Applied Changesets")
+    int appliedChangeSets;
+
+    @Label("Skipped Changesets")
+    int skippedChangeSets;
+
+    @Label("Failure")
+    String failure;
+  }
+
+  @Name("io.github.michaljonko.guiceliquibase.MigrationPhase")
+  @Label("Liquibase Migration Phase")
+  @Description("Phase of a Liquibase update, e.g. connection, parsing or lock wait")
+  @Category("GuiceLiquibase")
+  static final class PhaseEvent extends Event {
+
+    @Label("Changelog Path")
+    String changeLogPath;
+
+    @Label("DataSource")
+    String dataSource;
+
+    @Label("Phase")
+    String phase;
+  }
+
+  @Name("io.github.michaljonko.guiceliquibase.ChangeSet")
+  @Label("Liquibase Changeset")
+  @Description("Execution of a single changeset")
+  @Category("GuiceLiquibase")
+  static final class ChangeSetEvent extends Event {
+
+    @Label("Changelog Path")
+    String changeLogPath;
+
+    @Label("DataSource")
+    String dataSource;
+
+    @Label("Changeset Id")
+    String changeSetId;
+
+    @Label("Changeset Author")
+    String changeSetAuthor;
+
+    @Label("Changeset File")
+    String changeSetFilePath;
+  }
+}
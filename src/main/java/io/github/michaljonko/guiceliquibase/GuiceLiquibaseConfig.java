@@ -1,26 +1,76 @@
 package io.github.michaljonko.guiceliquibase;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import javax.sql.DataSource;
 
 public final class GuiceLiquibaseConfig {
 
   private final Set<LiquibaseConfig> configs;
+  private final Executor executor;
+  private final boolean async;
+  private final Function<DataSource, String> hostResolver;
+  private final int maxConcurrentPerHost;
+  private final Executor deferredExecutor;
+  private final boolean threadLocalScopes;
 
-  private GuiceLiquibaseConfig(Collection<LiquibaseConfig> configs) {
+  private GuiceLiquibaseConfig(
+      Collection<LiquibaseConfig> configs,
+      Executor executor,
+      boolean async,
+      Function<DataSource, String> hostResolver,
+      int maxConcurrentPerHost,
+      Executor deferredExecutor,
+      boolean threadLocalScopes) {
     this.configs = ImmutableSet.copyOf(configs);
+    this.executor = checkNotNull(executor, "executor must be defined.");
+    this.async = async;
+    this.hostResolver = hostResolver;
+    this.maxConcurrentPerHost = maxConcurrentPerHost;
+    this.deferredExecutor = checkNotNull(deferredExecutor, "deferredExecutor must be defined.");
+    this.threadLocalScopes = threadLocalScopes;
   }
 
   Set<LiquibaseConfig> getConfigs() {
     return configs;
   }
 
+  Executor getExecutor() {
+    return executor;
+  }
+
+  boolean isAsync() {
+    return async;
+  }
+
+  Function<DataSource, String> getHostResolver() {
+    return hostResolver;
+  }
+
+  int getMaxConcurrentPerHost() {
+    return maxConcurrentPerHost;
+  }
+
+  Executor getDeferredExecutor() {
+    return deferredExecutor;
+  }
+
+  boolean isThreadLocalScopes() {
+    return threadLocalScopes;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -30,18 +80,31 @@ public final class GuiceLiquibaseConfig {
       return false;
     }
     GuiceLiquibaseConfig that = (GuiceLiquibaseConfig) obj;
-    return Objects.equals(configs, that.configs);
+    return async == that.async
+        && maxConcurrentPerHost == that.maxConcurrentPerHost
+        && threadLocalScopes == that.threadLocalScopes
+        && Objects.equals(configs, that.configs)
+        && Objects.equals(executor, that.executor)
+        && Objects.equals(hostResolver, that.hostResolver)
+        && Objects.equals(deferredExecutor, that.deferredExecutor);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(configs);
+    return Objects.hash(configs, executor, async, hostResolver, maxConcurrentPerHost,
+        deferredExecutor, threadLocalScopes);
   }
 
   @Override
   public String toString() {
     return new StringJoiner(", ", GuiceLiquibaseConfig.class.getSimpleName() + "[", "]")
         .add("configs=" + configs)
+        .add("executor=" + executor)
+        .add("async=" + async)
+        .add("hostResolver=" + hostResolver)
+        .add("maxConcurrentPerHost=" + maxConcurrentPerHost)
+        .add("deferredExecutor=" + deferredExecutor)
+        .add("threadLocalScopes=" + threadLocalScopes)
         .toString();
   }
 
@@ -51,6 +114,12 @@ public final class GuiceLiquibaseConfig {
   public static final class Builder {
 
     private final Set<LiquibaseConfig> configs;
+    private Executor executor = MoreExecutors.directExecutor();
+    private boolean async = false;
+    private Function<DataSource, String> hostResolver;
+    private int maxConcurrentPerHost;
+    private Executor deferredExecutor;
+    private boolean threadLocalScopes = false;
 
     private Builder(Set<LiquibaseConfig> configs) {
       this.configs = configs;
@@ -102,14 +171,148 @@ public final class GuiceLiquibaseConfig {
       return this;
     }
 
+    /**
+     * Adds config for each of passed DataSources (tenants). Configs are copies of the template
+     * with a tenant DataSource.
+     *
+     * @param template    config used as a template for all tenants
+     * @param dataSources DataSources of the tenants
+     * @return itself
+     * @throws NullPointerException when template, dataSources or any of its elements is null
+     * @see LiquibaseConfig.Builder#of(LiquibaseConfig, DataSource)
+     * @since 0.1.2
+     */
+    public Builder withTenants(LiquibaseConfig template, Iterable<DataSource> dataSources) {
+      checkNotNull(template, "template must be defined.");
+      checkNotNull(dataSources, "dataSources must be defined.")
+          .forEach(dataSource -> withLiquibaseConfig(
+              LiquibaseConfig.Builder.of(template, dataSource).build()));
+      return this;
+    }
+
+    /**
+     * Limits number of configs applied concurrently on a single database host, so a large number
+     * of tenants does not overload shared database servers. Host of the DataSource is returned
+     * by passed function. The limit is applied on top of the executor parallelism.
+     *
+     * @param resolver             function returning host (any grouping key) of the DataSource
+     * @param maxConcurrentPerHost maximum number of configs applied concurrently on a host
+     * @return itself
+     * @throws NullPointerException     when resolver is null
+     * @throws IllegalArgumentException when maxConcurrentPerHost is not positive
+     * @since 0.1.2
+     */
+    public Builder withHostConcurrency(
+        Function<DataSource, String> resolver, int maxConcurrentPerHost) {
+      checkArgument(maxConcurrentPerHost > 0, "maxConcurrentPerHost must be positive.");
+      this.hostResolver = checkNotNull(resolver, "resolver must be defined.");
+      this.maxConcurrentPerHost = maxConcurrentPerHost;
+      return this;
+    }
+
+    /**
+     * Sets <code>Executor</code> used to apply <code>LiquibaseConfig</code> objects. By default
+     * all configs are applied one after another in the calling thread. With a multithreaded
+     * executor configs are applied concurrently, but configs sharing the same DataSource are still
+     * applied in the registration order and dependencies declared by
+     * {@link LiquibaseConfig.Builder#withDependency(LiquibaseConfig)} are respected. Executor
+     * other than the direct one requires <code>withThreadLocalScopes</code>.
+     *
+     * @param value <code>Executor</code> instance
+     * @return itself
+     * @throws NullPointerException when executor is null
+     * @since 0.1.2
+     */
+    public Builder withExecutor(Executor value) {
+      this.executor = checkNotNull(value, "executor must be defined.");
+      return this;
+    }
+
+    /**
+     * Default value to false, set it to true to start Liquibase updates on the executor without
+     * waiting for them during injector creation. Progress of the updates is available in
+     * injectable {@link MigrationHandle}. Requires executor defined by
+     * <code>withExecutor</code>.
+     *
+     * @param value true/false flag
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withAsync(boolean value) {
+      this.async = value;
+      return this;
+    }
+
+    /**
+     * Sets <code>Executor</code> applying changesets which are not critical, see
+     * {@link LiquibaseConfig.Builder#withCriticalLabels(String)}. By default the executor defined
+     * by <code>withExecutor</code> is used.
+     *
+     * @param value <code>Executor</code> instance
+     * @return itself
+     * @throws NullPointerException when executor is null
+     * @since 0.1.2
+     */
+    public Builder withDeferredExecutor(Executor value) {
+      this.deferredExecutor = checkNotNull(value, "deferredExecutor must be defined.");
+      return this;
+    }
+
+    /**
+     * Default value to false, set it to true to let Liquibase keep its <code>Scope</code> per
+     * thread. Liquibase keeps the scope in a single global field by default, so configs applied
+     * concurrently need thread-local scopes. Required by <code>withExecutor</code>, lazy configs,
+     * critical labels and concurrent {@link MigrationPlanner}.
+     * <br>
+     * Liquibase scope manager is global: it is replaced for the whole JVM on the first update
+     * and is not restored afterwards.
+     *
+     * @param value true/false flag
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withThreadLocalScopes(boolean value) {
+      this.threadLocalScopes = value;
+      return this;
+    }
+
     /**
      * Creates new <code>GuiceLiquibaseConfig</code> object from defined
      * <code>LiquibaseConfig</code> objects.
      *
      * @return new <code>GuiceLiquibaseConfig</code> object
+     * @throws IllegalArgumentException when dependency of any config is not registered, configs
+     *                                  of one DataSource use different migration DataSources or
+     *                                  connection budgets, async mode is used without executor,
+     *                                  critical labels are used without executor or executor,
+     *                                  lazy configs or critical labels are used without
+     *                                  thread-local scopes
      */
     public GuiceLiquibaseConfig build() {
-      return new GuiceLiquibaseConfig(configs);
+      configs.forEach(config -> checkArgument(configs.containsAll(config.getDependencies()),
+          "Dependencies of %s have to be registered.", config));
+      // Configs of one DataSource share the session opened for the first of them.
+      Map<DataSource, LiquibaseConfig> sessionConfigs = Maps.newHashMap();
+      configs.forEach(config -> {
+        LiquibaseConfig first = sessionConfigs.putIfAbsent(config.getDataSource(), config);
+        checkArgument(first == null
+                || Objects.equals(first.getMigrationDataSource(), config.getMigrationDataSource())
+                && Objects.equals(first.getConnectionBudget(), config.getConnectionBudget()),
+            "Configs of DataSource %s have to use the same migration DataSource and connection "
+                + "budget.", config.getDataSource());
+      });
+      checkArgument(!async || executor != MoreExecutors.directExecutor(),
+          "async mode requires executor.");
+      Executor deferred = deferredExecutor != null ? deferredExecutor : executor;
+      checkArgument(deferred != MoreExecutors.directExecutor()
+              || configs.stream().noneMatch(config -> config.getCriticalLabels().isPresent()),
+          "critical labels require executor.");
+      checkArgument(threadLocalScopes || executor == MoreExecutors.directExecutor()
+              && configs.stream().noneMatch(config -> config.isLazy()
+                  || config.getCriticalLabels().isPresent()),
+          "executor, lazy configs and critical labels require thread-local scopes.");
+      return new GuiceLiquibaseConfig(configs, executor, async, hostResolver,
+          maxConcurrentPerHost, deferred, threadLocalScopes);
     }
 
     @Override
@@ -121,12 +324,19 @@ public final class GuiceLiquibaseConfig {
         return false;
       }
       Builder builder = (Builder) obj;
-      return Objects.equals(configs, builder.configs);
+      return async == builder.async
+          && maxConcurrentPerHost == builder.maxConcurrentPerHost
+          && threadLocalScopes == builder.threadLocalScopes
+          && Objects.equals(configs, builder.configs)
+          && Objects.equals(executor, builder.executor)
+          && Objects.equals(hostResolver, builder.hostResolver)
+          && Objects.equals(deferredExecutor, builder.deferredExecutor);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(configs);
+      return Objects.hash(configs, executor, async, hostResolver, maxConcurrentPerHost,
+          deferredExecutor, threadLocalScopes);
     }
   }
 }
@@ -2,28 +2,42 @@ package io.github.michaljonko.guiceliquibase;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static java.util.Objects.nonNull;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.Monitor;
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.multibindings.Multibinder;
 import io.github.michaljonko.guiceliquibase.annotation.GuiceLiquibaseConfiguration;
-import java.sql.Connection;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
+import javax.sql.DataSource;
 import liquibase.Contexts;
 import liquibase.LabelExpression;
 import liquibase.Liquibase;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
 import liquibase.database.Database;
-import liquibase.database.DatabaseFactory;
-import liquibase.database.jvm.JdbcConnection;
-import liquibase.exception.DatabaseException;
 import liquibase.exception.LiquibaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.integration.commandline.LiquibaseCommandLineConfiguration;
+import liquibase.lockservice.LockServiceFactory;
 import liquibase.util.LiquibaseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,10 +51,32 @@ public final class GuiceLiquibaseModule extends AbstractModule {
   @Override
   protected void configure() {
     requireBinding(LIQUIBASE_CONFIG_KEY);
+    Multibinder<MigrationListener> listeners =
+        Multibinder.newSetBinder(binder(), MigrationListener.class);
+    listeners.addBinding().to(MigrationMetrics.class);
+    listeners.addBinding().to(MigrationStatus.class);
+    if (isFlightRecorderAvailable()) {
+      listeners.addBinding().to(FlightRecorderListener.class);
+    }
     bind(GuiceLiquibaseEngine.class).asEagerSingleton();
     requestInjection(this);
   }
 
+  private static boolean isFlightRecorderAvailable() {
+    // Listener is not even loaded when the JVM has no Flight Recorder API.
+    try {
+      Class.forName("jdk.jfr.Event", false, GuiceLiquibaseModule.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError exception) {
+      return false;
+    }
+  }
+
+  @Provides
+  private MigrationHandle provideMigrationHandle(GuiceLiquibaseEngine guiceLiquibaseEngine) {
+    return guiceLiquibaseEngine.getMigrationHandle();
+  }
+
   @Inject
   private void executeGuiceLiquibaseEngine(GuiceLiquibaseEngine guiceLiquibaseEngine) {
     checkNotNull(guiceLiquibaseEngine, "LiquibaseEngine has to be defined.")
@@ -53,14 +89,27 @@ public final class GuiceLiquibaseModule extends AbstractModule {
     private final Monitor monitor;
     private final GuiceLiquibaseConfig config;
     private final AtomicBoolean updated;
+    private final MigrationHandle migrationHandle;
+    private final ChangeLogCache changeLogCache;
+    private final Set<MigrationListener> listeners;
+    private final Map<LiquibaseConfig, Optional<String>> fingerprints;
 
     @Inject
-    private GuiceLiquibaseEngine(@GuiceLiquibaseConfiguration GuiceLiquibaseConfig config) {
+    private GuiceLiquibaseEngine(@GuiceLiquibaseConfiguration GuiceLiquibaseConfig config,
+        Set<MigrationListener> listeners) {
       LOGGER.info("Creating GuiceLiquibase for Liquibase {}", LiquibaseUtil.getBuildVersion());
       checkArgument(!config.getConfigs().isEmpty(), "Injected configuration set is empty.");
       this.config = config;
+      this.listeners = listeners;
       this.updated = new AtomicBoolean(false);
       this.monitor = new Monitor(true);
+      this.migrationHandle = new MigrationHandle(config.getConfigs());
+      this.changeLogCache = ChangeLogCache.getInstance();
+      this.fingerprints = Maps.newConcurrentMap();
+    }
+
+    MigrationHandle getMigrationHandle() {
+      return migrationHandle;
     }
 
     void process() {
@@ -69,7 +118,42 @@ public final class GuiceLiquibaseModule extends AbstractModule {
           if (updated.get()) {
             LOGGER.warn("Liquibase update has been already executed.");
           } else if (shouldExecuteLiquibaseUpdate()) {
-            config.getConfigs().forEach(this::executeLiquibaseUpdate);
+            if (config.isThreadLocalScopes()) {
+              MigrationScheduler.useThreadLocalScopes();
+            }
+            MigrationScheduler scheduler = new MigrationScheduler(config.getExecutor(),
+                config.getHostResolver(), config.getMaxConcurrentPerHost());
+            DataSourceSessions sessions = new DataSourceSessions(config.getConfigs().stream()
+                .filter(liquibaseConfig -> !liquibaseConfig.isLazy())
+                .collect(Collectors.toList()));
+            Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> migrations =
+                scheduler.schedule(config.getConfigs(), liquibaseConfig -> liquibaseConfig.isLazy()
+                    ? executeLazyLiquibaseUpdate(liquibaseConfig)
+                    : executeLiquibaseUpdate(liquibaseConfig, sessions));
+            migrations.forEach((liquibaseConfig, migration) -> migration.whenComplete(
+                (outcome, failure) -> {
+                  if (!liquibaseConfig.isLazy()) {
+                    sessions.release(liquibaseConfig);
+                  }
+                  migrationHandle.complete(
+                      liquibaseConfig, outcome, MigrationScheduler.unwrap(failure));
+                }));
+            List<CompletableFuture<MigrationOutcome>> triggered = migrations.entrySet().stream()
+                .filter(migration -> scheduler.isTriggered(migration.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+            scheduleDeferredLiquibaseUpdates(migrations,
+                CompletableFuture.allOf(triggered.toArray(new CompletableFuture<?>[0])));
+            migrationHandle.attachTrigger(scheduler::trigger);
+            if (config.isAsync()) {
+              LOGGER.info("Liquibase updates are running in background.");
+            } else {
+              scheduler.await(triggered);
+            }
+          } else {
+            config.getConfigs().forEach(liquibaseConfig -> new PhaseRecorder(
+                liquibaseConfig, listeners).finished(MigrationOutcome.SKIPPED, 0));
+            migrationHandle.completeAll(MigrationOutcome.SKIPPED);
           }
         } finally {
           updated.getAndSet(true);
@@ -90,67 +174,413 @@ public final class GuiceLiquibaseModule extends AbstractModule {
       return globalShouldRun;
     }
 
-    private void executeLiquibaseUpdate(LiquibaseConfig config) {
+    /**
+     * Applies changesets which are not critical after critical updates of all started configs
+     * are finished, one config of a DataSource at a time.
+     */
+    private void scheduleDeferredLiquibaseUpdates(
+        Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> migrations,
+        CompletableFuture<Void> criticalUpdates) {
+      Map<DataSource, CompletableFuture<?>> previousUpdates = Maps.newHashMap();
+      migrations.forEach((liquibaseConfig, migration) -> {
+        CompletableFuture<MigrationOutcome> deferred = migration;
+        if (liquibaseConfig.getCriticalLabels().isPresent()) {
+          deferred = previousUpdates
+              .getOrDefault(liquibaseConfig.getDataSource(), criticalUpdates)
+              .handle((result, failure) -> liquibaseConfig)
+              .thenCombine(migration, (current, outcome) -> outcome)
+              .thenApplyAsync(outcome -> outcome == MigrationOutcome.APPLIED
+                      ? executeDeferredLiquibaseUpdate(liquibaseConfig)
+                      : outcome,
+                  config.getDeferredExecutor());
+          previousUpdates.put(liquibaseConfig.getDataSource(), deferred);
+        }
+        deferred.whenComplete((outcome, failure) -> migrationHandle.completeDeferred(
+            liquibaseConfig, outcome, MigrationScheduler.unwrap(failure)));
+      });
+    }
+
+    private MigrationOutcome executeDeferredLiquibaseUpdate(LiquibaseConfig config) {
+      DataSourceSessions sessions = new DataSourceSessions(Collections.singleton(config));
+      PhaseRecorder recorder = new PhaseRecorder(config, listeners);
+      try {
+        recorder.started();
+        startDeadline(config);
+        LOGGER.info("Applying deferred changes for {}", config);
+        return applyChangeLog(config, sessions, recorder, storedFingerprint(config),
+            new LabelExpression(config.getLabels()));
+      } catch (RuntimeException exception) {
+        LOGGER.error("Deferred Liquibase update of {} failed.", config.getChangeLogPath(),
+            exception);
+        recorder.failed(exception);
+        throw exception;
+      } finally {
+        sessions.release(config);
+      }
+    }
+
+    private MigrationOutcome executeLazyLiquibaseUpdate(LiquibaseConfig config) {
+      // Lazy config is applied on its own session, as configs of its DataSource may be finished.
+      DataSourceSessions sessions = new DataSourceSessions(Collections.singleton(config));
+      try {
+        return executeLiquibaseUpdate(config, sessions);
+      } finally {
+        sessions.release(config);
+      }
+    }
+
+    private MigrationOutcome executeLiquibaseUpdate(
+        LiquibaseConfig config, DataSourceSessions sessions) {
+      PhaseRecorder recorder = new PhaseRecorder(config, listeners);
+      try {
+        recorder.started();
+        startDeadline(config);
+        MigrationOutcome outcome = executeLiquibaseUpdate(config, sessions, recorder);
+        if (outcome != MigrationOutcome.APPLIED && outcome != MigrationOutcome.CLONED) {
+          recorder.finished(outcome, 0);
+        }
+        return outcome;
+      } catch (RuntimeException exception) {
+        recorder.failed(exception);
+        throw exception;
+      }
+    }
+
+    private MigrationOutcome executeLiquibaseUpdate(
+        LiquibaseConfig config, DataSourceSessions sessions, PhaseRecorder recorder) {
       if (!config.shouldRun()) {
         LOGGER.info(
             "Liquibase did not run on config with changeLogPath {} because "
                 + "LiquibaseConfig.shouldRun was set to false.",
             config.getChangeLogPath());
-        return;
+        return MigrationOutcome.SKIPPED;
+      }
+      if (config.isSharedMigration() && !config.dropFirst()
+          && !config.getCriticalLabels().isPresent()) {
+        return MigrationCoordinator.getInstance().migrate(config,
+            migrationHandle.getDeadline(config), () -> applyConfig(config, sessions, recorder));
+      }
+      return applyConfig(config, sessions, recorder);
+    }
+
+    private MigrationOutcome applyConfig(
+        LiquibaseConfig config, DataSourceSessions sessions, PhaseRecorder recorder) {
+      Optional<String> fingerprint = config.getFingerprintStore().isPresent()
+          ? recorder.record(MigrationPhase.FINGERPRINT, () -> storedFingerprint(config))
+          : Optional.empty();
+      if (fingerprint.isPresent() && recorder.record(MigrationPhase.FINGERPRINT,
+          () -> isUpToDate(config, fingerprint.get()))) {
+        LOGGER.info("Changelog {} was not changed since the last update.",
+            config.getChangeLogPath());
+        return MigrationOutcome.UP_TO_DATE;
+      }
+      Optional<ClusterCoordination> coordination = config.getClusterCoordination()
+          .filter(value -> !config.dropFirst());
+      if (coordination.isPresent()) {
+        if (coordination.get().isReached(config)) {
+          LOGGER.info("Changeset {} of {} is already applied.",
+              coordination.get().getExpectedChangeSet(), config.getChangeLogPath());
+          return MigrationOutcome.UP_TO_DATE;
+        }
+        if (!coordination.get().isLeader(config)) {
+          return followLeader(config, coordination.get(), recorder);
+        }
       }
       LOGGER.info("Applying changes for {}", config);
+      // Fingerprint of a config with critical labels is stored after the deferred update.
+      MigrationOutcome outcome = config.getCriticalLabels().isPresent()
+          ? applyChangeLog(config, sessions, recorder, Optional.empty(), criticalLabels(config))
+          : applyChangeLog(config, sessions, recorder, fingerprint,
+              new LabelExpression(config.getLabels()));
+      if (outcome == MigrationOutcome.LOCKED_ELSEWHERE && coordination.isPresent()) {
+        return followLeader(config, coordination.get(), recorder);
+      }
+      return outcome;
+    }
+
+    private MigrationOutcome followLeader(
+        LiquibaseConfig config, ClusterCoordination coordination, PhaseRecorder recorder) {
+      LOGGER.info("Waiting for changeset {} of {} applied by the leader.",
+          coordination.getExpectedChangeSet(), config.getChangeLogPath());
+      recorder.record(MigrationPhase.LEADER_WAIT, () -> {
+        coordination.awaitLeader(config, migrationHandle.getDeadline(config));
+        return null;
+      });
+      return MigrationOutcome.APPLIED_ELSEWHERE;
+    }
 
-      Connection connection = null;
-      Database database = null;
-      Liquibase liquibase = null;
+    private MigrationOutcome applyChangeLog(LiquibaseConfig config, DataSourceSessions sessions,
+        PhaseRecorder recorder, Optional<String> fingerprint, LabelExpression labelExpression) {
+      boolean applied = false;
       try {
-        connection = checkNotNull(config.getDataSource(), "DataSource must be defined.")
-            .getConnection();
-        database = DatabaseFactory.getInstance()
-            .findCorrectDatabaseImplementation(new JdbcConnection(
-                checkNotNull(connection, "DataSource returns null connection instance.")));
-        liquibase = new Liquibase(
-            config.getChangeLogPath(),
-            config.getResourceAccessor(),
-            database);
-        checkNotNull(config.getParameters(), "Parameters map cannot be null.")
-            .forEach(liquibase::setChangeLogParameter);
-        if (config.dropFirst()) {
-          liquibase.dropAll();
+        Database database = sessions.getDatabase(
+            config, migrationHandle.getDeadline(config), recorder);
+        Optional<String> template = templateKey(config, database);
+        Optional<DatabaseTemplates.Restoration> restoration = template.isPresent()
+            ? Optional.of(recorder.record(MigrationPhase.TEMPLATE,
+                () -> DatabaseTemplates.getInstance().restore(template.get(), database)))
+            : Optional.empty();
+        Optional<Integer> cloned = restoration
+            .flatMap(DatabaseTemplates.Restoration::getChangeSets);
+        if (cloned.isPresent()) {
+          LOGGER.info("Restored {} from the migrated template.", config.getChangeLogPath());
+          applied = true;
+          fingerprint.ifPresent(value -> storeFingerprint(config, value));
+          recorder.parsed(cloned.get());
+          recorder.finished(MigrationOutcome.CLONED, cloned.get());
+          return MigrationOutcome.CLONED;
         }
-        liquibase.update(
-            new Contexts(config.getContexts()),
-            new LabelExpression(config.getLabels()));
+        Optional<List<String>> includes = config.isStreaming()
+            ? ChangeLogStream.readIncludes(config)
+            : Optional.empty();
+        int changeSets = includes.isPresent()
+            ? applyIncludes(config, database, recorder, labelExpression, includes.get())
+            : applyChangeLog(config, database, recorder, labelExpression);
+        applied = true;
+        if (restoration.filter(DatabaseTemplates.Restoration::isEmpty).isPresent()) {
+          // Only database migrated from scratch has the clean schema of the changelog.
+          captureTemplate(config, database, recorder, template.get(), changeSets);
+        }
+        fingerprint.ifPresent(value -> storeFingerprint(config, value));
+        recorder.finished(MigrationOutcome.APPLIED, changeSets);
+        return MigrationOutcome.APPLIED;
       } catch (SQLException exception) {
         LOGGER.error("Problem during SQL and JDBC calls.", exception);
         throw new UnexpectedLiquibaseException(exception);
       } catch (LiquibaseException exception) {
+        if (Throwables.getCausalChain(exception).stream()
+            .anyMatch(LockedElsewhereException.class::isInstance)) {
+          LOGGER.info("Liquibase lock for {} is held by another instance: {}",
+              config.getChangeLogPath(), Throwables.getRootCause(exception).getMessage());
+          return MigrationOutcome.LOCKED_ELSEWHERE;
+        }
         LOGGER.error("Problem during Liquibase calls.", exception);
         throw new UnexpectedLiquibaseException(exception);
       } finally {
-        if (nonNull(liquibase)) {
-          try {
-            liquibase.close();
-          } catch (Exception exception) {
-            LOGGER.error("Problem during liquibase.close() call.", exception);
-          }
+        if (!applied) {
+          sessions.invalidate(config.getDataSource());
         }
-        if (nonNull(database) && nonNull(database.getConnection())) {
-          try {
-            if (!database.getConnection().isClosed()) {
-              database.close();
-            }
-          } catch (DatabaseException exception) {
-            LOGGER.error("Problem during database.close() call.", exception);
+      }
+    }
+
+    private int applyChangeLog(LiquibaseConfig config, Database database, PhaseRecorder recorder,
+        LabelExpression labelExpression) throws LiquibaseException {
+      DatabaseChangeLog changeLog = recorder.record(MigrationPhase.CHANGELOG_PARSING,
+          () -> changeLogCache.acquire(config, database));
+      recorder.parsed(changeLog.getChangeSets().size());
+      try {
+        Liquibase liquibase = createLiquibase(config, changeLog, database);
+        recorder.runInScope(scopeValues(config, migrationHandle.getDeadline(config)), () -> {
+          dropAll(config, liquibase, recorder);
+          if (!config.getBaseline().isPresent()) {
+            return update(config, liquibase, recorder, labelExpression);
           }
-        }
-        if (nonNull(connection)) {
-          try {
-            connection.close();
-          } catch (SQLException exception) {
-            LOGGER.error("Problem during connection.close() call.", exception);
+          return holdLock(database, recorder, () -> {
+            applyBaseline(config, database, recorder,
+                () -> config.getBaseline().get().getCoveredChangeSets(changeLog));
+            return update(config, liquibase, recorder, labelExpression);
+          });
+        });
+      } finally {
+        changeLogCache.release(config, database, changeLog);
+      }
+      return changeLog.getChangeSets().size();
+    }
+
+    /**
+     * Applies changelog files included by the root changelog one at a time, holding the
+     * Liquibase lock for all of them. Parsed files are not cached, so heap keeps the changesets
+     * of a single file, except files with changesets covered by a baseline applied to an empty
+     * database, which are kept until the covered changesets are recorded.
+     */
+    private int applyIncludes(LiquibaseConfig config, Database database, PhaseRecorder recorder,
+        LabelExpression labelExpression, List<String> includes) throws LiquibaseException {
+      LOGGER.info("Streaming {} changelog files included by {}", includes.size(),
+          config.getChangeLogPath());
+      return recorder.runInScope(scopeValues(config, migrationHandle.getDeadline(config)), () -> {
+        dropAll(config, new Liquibase(config.getChangeLogPath(), config.getResourceAccessor(),
+            database), recorder);
+        return holdLock(database, recorder, () -> {
+          if (config.getBaseline().isPresent()) {
+            applyBaseline(config, database, recorder, () -> {
+              List<ChangeSet> covered = Lists.newArrayList();
+              ChangeLogParameters parameters = ChangeLogCache.createParameters(config, database);
+              for (String include : includes) {
+                DatabaseChangeLog changeLog = recorder.record(MigrationPhase.CHANGELOG_PARSING,
+                    () -> ChangeLogCache.parse(config, include, parameters, database));
+                covered.addAll(config.getBaseline().get().getCoveredChangeSets(changeLog));
+              }
+              return covered;
+            });
+          }
+          int changeSets = 0;
+          // Properties of included files are visible in following files, as in the whole
+          // changelog.
+          ChangeLogParameters parameters = ChangeLogCache.createParameters(config, database);
+          for (String include : includes) {
+            DatabaseChangeLog changeLog = recorder.record(MigrationPhase.CHANGELOG_PARSING,
+                () -> ChangeLogCache.parse(config, include, parameters, database));
+            changeSets += changeLog.getChangeSets().size();
+            recorder.parsed(changeSets);
+            update(config, createLiquibase(config, changeLog, database), recorder,
+                labelExpression);
           }
+          return changeSets;
+        });
+      });
+    }
+
+    private static Void update(LiquibaseConfig config, Liquibase liquibase,
+        PhaseRecorder recorder, LabelExpression labelExpression) throws LiquibaseException {
+      liquibase.setChangeExecListener(recorder.createChangeExecListener());
+      return recorder.record(MigrationPhase.UPDATE, () -> {
+        liquibase.update(new Contexts(config.getContexts()), labelExpression);
+        return null;
+      });
+    }
+
+    /**
+     * Executes the action holding the Liquibase lock, so Liquibase updates executed by the
+     * action neither wait for the lock nor release it.
+     */
+    private static <T> T holdLock(Database database, PhaseRecorder recorder,
+        PhaseRecorder.PhaseAction<T, LiquibaseException> action) throws LiquibaseException {
+      LockServiceFactory.getInstance().getLockService(database).waitForLock();
+      try {
+        return recorder.runInScope(
+            ImmutableMap.of(InstrumentedLockService.LOCK_HELD_KEY, Boolean.TRUE), action);
+      } finally {
+        // Liquibase updates replace lock services, so the current one releases the lock.
+        LockServiceFactory.getInstance().getLockService(database).releaseLock();
+      }
+    }
+
+    /**
+     * Applies the baseline of the config to the empty database and records all changesets it
+     * covers before any update, so a failed update does not leave covered changesets of later
+     * files unrecorded.
+     */
+    private static void applyBaseline(LiquibaseConfig config, Database database,
+        PhaseRecorder recorder,
+        PhaseRecorder.PhaseAction<List<ChangeSet>, LiquibaseException> coveredChangeSets)
+        throws LiquibaseException {
+      BaselineSnapshot baseline = config.getBaseline().get();
+      if (!recorder.record(MigrationPhase.BASELINE, () -> baseline.isApplicable(database))) {
+        return;
+      }
+      List<ChangeSet> covered = coveredChangeSets.run();
+      int marked = recorder.record(MigrationPhase.BASELINE,
+          () -> baseline.apply(database, config.getResourceAccessor(), covered));
+      LOGGER.info("Applied baseline {} of {} and recorded {} changesets it covers",
+          baseline.getScriptPath(), config.getChangeLogPath(), marked);
+    }
+
+    private static Liquibase createLiquibase(
+        LiquibaseConfig config, DatabaseChangeLog changeLog, Database database) {
+      Liquibase liquibase = new Liquibase(changeLog, config.getResourceAccessor(), database);
+      checkNotNull(config.getParameters(), "Parameters map cannot be null.")
+          .forEach(liquibase::setChangeLogParameter);
+      return liquibase;
+    }
+
+    private static void dropAll(LiquibaseConfig config, Liquibase liquibase,
+        PhaseRecorder recorder) throws LiquibaseException {
+      if (config.dropFirst()) {
+        recorder.record(MigrationPhase.DROP_ALL, () -> {
+          liquibase.dropAll();
+          return null;
+        });
+      }
+    }
+
+    private static LabelExpression criticalLabels(LiquibaseConfig config) {
+      String critical = config.getCriticalLabels().get();
+      // Collection constructor keeps the expression whole, the String one splits it on commas.
+      return new LabelExpression(Collections.singleton(config.getLabels().isEmpty()
+          ? critical
+          : "(" + String.join(" or ", config.getLabels()) + ") and (" + critical + ")"));
+    }
+
+    private void startDeadline(LiquibaseConfig config) {
+      MigrationDeadline deadline = migrationHandle.getDeadline(config);
+      deadline.start();
+      deadline.check();
+    }
+
+    private static Map<String, Object> scopeValues(
+        LiquibaseConfig config, MigrationDeadline deadline) {
+      Optional<LockStrategy> lockStrategy = config.getLockStrategy();
+      if (!lockStrategy.isPresent() && !config.dropFirst() && config.getClusterCoordination()
+          .filter(coordination -> !coordination.getLeaderPredicate().isPresent())
+          .isPresent()) {
+        // Instance which lost the election through the lock becomes a follower.
+        lockStrategy = Optional.of(LockStrategy.failFast());
+      }
+      ImmutableMap.Builder<String, Object> values = ImmutableMap.builder();
+      lockStrategy.ifPresent(value -> values.put(LockStrategy.SCOPE_KEY, value));
+      return values
+          .put(MigrationDeadline.SCOPE_KEY, deadline)
+          .build();
+    }
+
+    /**
+     * Returns fingerprint of the config computed once by this engine, so the critical update,
+     * the deferred update and the template key do not walk the changelog again.
+     */
+    private Optional<String> fingerprint(LiquibaseConfig config) {
+      return fingerprints.computeIfAbsent(config, ChangeLogFingerprint::of);
+    }
+
+    private Optional<String> storedFingerprint(LiquibaseConfig config) {
+      if (!config.getFingerprintStore().isPresent() || config.dropFirst()) {
+        return Optional.empty();
+      }
+      return fingerprint(config);
+    }
+
+    private Optional<String> templateKey(LiquibaseConfig config, Database database) {
+      if (!config.isTemplateCloning() || config.dropFirst()
+          || config.getCriticalLabels().isPresent() || !DatabaseTemplates.isSupported(database)) {
+        return Optional.empty();
+      }
+      return fingerprint(config)
+          .map(fingerprint -> database.getShortName() + ":" + fingerprint);
+    }
+
+    private static void captureTemplate(LiquibaseConfig config, Database database,
+        PhaseRecorder recorder, String key, int changeSets) {
+      try {
+        if (recorder.record(MigrationPhase.TEMPLATE,
+            () -> DatabaseTemplates.getInstance().capture(key, database, changeSets))) {
+          LOGGER.info("Kept migrated database of {} as the template.", config.getChangeLogPath());
         }
+      } catch (SQLException exception) {
+        LOGGER.warn("Cannot keep migrated database of {} as the template.",
+            config.getChangeLogPath(), exception);
+      }
+    }
+
+    private boolean isUpToDate(LiquibaseConfig config, String fingerprint) {
+      try {
+        return config.getFingerprintStore().get()
+            .load(config.getMigrationDataSource(), ChangeLogFingerprint.configKey(config))
+            .filter(fingerprint::equals)
+            .isPresent();
+      } catch (SQLException | IOException exception) {
+        LOGGER.warn("Cannot load fingerprint of changelog {}.", config.getChangeLogPath(),
+            exception);
+        return false;
+      }
+    }
+
+    private void storeFingerprint(LiquibaseConfig config, String fingerprint) {
+      try {
+        config.getFingerprintStore().get()
+            .store(config.getMigrationDataSource(), ChangeLogFingerprint.configKey(config),
+                fingerprint);
+      } catch (SQLException | IOException exception) {
+        LOGGER.warn("Cannot store fingerprint of changelog {}.", config.getChangeLogPath(),
+            exception);
       }
     }
 
@@ -165,12 +595,17 @@ public final class GuiceLiquibaseModule extends AbstractModule {
       GuiceLiquibaseEngine that = (GuiceLiquibaseEngine) obj;
       return Objects.equals(config, that.config)
           && Objects.equals(updated, that.updated)
-          && Objects.equals(monitor, that.monitor);
+          && Objects.equals(monitor, that.monitor)
+          && Objects.equals(migrationHandle, that.migrationHandle)
+          && Objects.equals(changeLogCache, that.changeLogCache)
+          && Objects.equals(listeners, that.listeners)
+          && Objects.equals(fingerprints, that.fingerprints);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(config, updated, monitor);
+      return Objects.hash(config, updated, monitor, migrationHandle, changeLogCache, listeners,
+          fingerprints);
     }
 
     @Override
@@ -179,6 +614,10 @@ public final class GuiceLiquibaseModule extends AbstractModule {
           .add("monitor=" + monitor)
           .add("config=" + config)
           .add("updated=" + updated)
+          .add("migrationHandle=" + migrationHandle)
+          .add("changeLogCache=" + changeLogCache)
+          .add("listeners=" + listeners)
+          .add("fingerprints=" + fingerprints)
           .toString();
     }
   }
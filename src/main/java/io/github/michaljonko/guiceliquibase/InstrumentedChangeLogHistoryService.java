@@ -0,0 +1,33 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.util.List;
+import java.util.Map;
+import liquibase.changelog.StandardChangeLogHistoryService;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+
+/**
+ * Liquibase <code>ChangeLogHistoryService</code> reporting time of reading the history table for
+ * configs applied by <code>GuiceLiquibaseModule</code>. It is registered as a Liquibase extension
+ * for the whole JVM, so history reads which are not made by the module are delegated to
+ * <code>StandardChangeLogHistoryService</code> unchanged.
+ *
+ * @since 0.1.2
+ */
+public class InstrumentedChangeLogHistoryService extends StandardChangeLogHistoryService {
+
+  @Override
+  public int getPriority() {
+    return super.getPriority() + 1;
+  }
+
+  @Override
+  public List<Map<String, ?>> queryDatabaseChangeLogTable(Database database)
+      throws DatabaseException {
+    if (!PhaseRecorder.isInScope()) {
+      return super.queryDatabaseChangeLogTable(database);
+    }
+    return PhaseRecorder.current().record(MigrationPhase.HISTORY_READ,
+        () -> super.queryDatabaseChangeLogTable(database));
+  }
+}
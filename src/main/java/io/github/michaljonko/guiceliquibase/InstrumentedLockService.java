@@ -0,0 +1,76 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.time.Duration;
+import java.util.Optional;
+import liquibase.Scope;
+import liquibase.exception.LockException;
+import liquibase.lockservice.StandardLockService;
+
+/**
+ * Liquibase <code>LockService</code> reporting lock wait time of configs applied by
+ * <code>GuiceLiquibaseModule</code> and acquiring the lock according to their
+ * <code>LockStrategy</code>. Lock is not taken at all by <code>MigrationPlanner</code> and is
+ * taken once for all files of a streamed changelog and for a baseline snapshot. It is registered
+ * as a Liquibase extension for the whole JVM, so Liquibase calls which are not made by the module
+ * are delegated to <code>StandardLockService</code> unchanged.
+ *
+ * @since 0.1.2
+ */
+public class InstrumentedLockService extends StandardLockService {
+
+  static final String LOCK_HELD_KEY = InstrumentedLockService.class.getName() + ".held";
+
+  @Override
+  public int getPriority() {
+    return super.getPriority() + 1;
+  }
+
+  @Override
+  public void waitForLock() throws LockException {
+    if (MigrationPlanner.isPlanning() || isLockHeld()) {
+      return;
+    }
+    if (!PhaseRecorder.isInScope()) {
+      super.waitForLock();
+      return;
+    }
+    LockStrategy configured = Scope.getCurrentScope().get(
+        LockStrategy.SCOPE_KEY, LockStrategy.class);
+    Optional<Duration> remaining = MigrationDeadline.current().getRemaining();
+    // Lock wait of a config with a deadline ends with the deadline.
+    LockStrategy lockStrategy = remaining.isPresent()
+        ? Optional.ofNullable(configured).orElseGet(() -> LockStrategy.Builder.of().build())
+            .limitWaitBudget(remaining.get())
+        : Optional.ofNullable(configured).orElseGet(this::liquibaseLockStrategy);
+    PhaseRecorder.current().record(MigrationPhase.LOCK_WAIT, () -> {
+      lockStrategy.acquire(this);
+      return null;
+    });
+  }
+
+  @Override
+  public void releaseLock() throws LockException {
+    if (!MigrationPlanner.isPlanning() && !isLockHeld()) {
+      super.releaseLock();
+    }
+  }
+
+  /**
+   * Polls the lock at the interval and for the time of Liquibase settings, like
+   * <code>StandardLockService</code> does, but the wait stops when the update is cancelled.
+   */
+  private LockStrategy liquibaseLockStrategy() {
+    return LockStrategy.fixedInterval(Duration.ofSeconds(getChangeLogLockRecheckTime()),
+        Duration.ofMinutes(getChangeLogLockWaitTime()));
+  }
+
+  /**
+   * Checks if the module holds the lock for many Liquibase updates in the current Liquibase
+   * <code>Scope</code>, so updates do not acquire and release it again.
+   *
+   * @return true while the lock is held by the module
+   */
+  static boolean isLockHeld() {
+    return Boolean.TRUE.equals(Scope.getCurrentScope().get(LOCK_HELD_KEY, Boolean.class));
+  }
+}
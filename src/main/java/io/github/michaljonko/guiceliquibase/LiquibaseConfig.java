@@ -9,13 +9,16 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.Semaphore;
 import javax.sql.DataSource;
-import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.database.Database;
 import liquibase.resource.ResourceAccessor;
 
 public final class LiquibaseConfig {
@@ -28,6 +31,21 @@ public final class LiquibaseConfig {
   private final Set<String> contexts;
   private final Set<String> labels;
   private final Map<String, String> parameters;
+  private final Set<LiquibaseConfig> dependencies;
+  private final FingerprintStore fingerprintStore;
+  private final LockStrategy lockStrategy;
+  private final ClusterCoordination clusterCoordination;
+  private final boolean lazy;
+  private final Class<? extends Database> databaseClass;
+  private final String archivePath;
+  private final String criticalLabels;
+  private final Duration deadline;
+  private final DataSource migrationDataSource;
+  private final Semaphore connectionBudget;
+  private final boolean streaming;
+  private final BaselineSnapshot baseline;
+  private final boolean templateCloning;
+  private final boolean sharedMigration;
 
   /**
    * Creates new <code>LiquiBaseConfig</code> for defined DataSource, changelog file path and its
@@ -35,14 +53,29 @@ public final class LiquibaseConfig {
    * <br>
    * http://www.liquibase.org/documentation/databasechangelog.html
    *
-   * @param dataSource       DataSource where Liquibase will be running
-   * @param changeLogPath    Liquibase changelog with all changesets
-   * @param resourceAccessor Liquibase {@link ResourceAccessor} used for changelog file loading
-   * @param dropFirst        Liquibase switch to drop all schemes and data in database
-   * @param shouldRun        Liquibase switch to disable liquibase run
-   * @param contexts         Liquibase contexts which will be used for changelog
-   * @param labels           Liquibase labels
-   * @param parameters       Liquibase parameters
+   * @param dataSource          DataSource where Liquibase will be running
+   * @param changeLogPath       Liquibase changelog with all changesets
+   * @param resourceAccessor    Liquibase {@link ResourceAccessor} used for changelog file loading
+   * @param dropFirst           Liquibase switch to drop all schemes and data in database
+   * @param shouldRun           Liquibase switch to disable liquibase run
+   * @param contexts            Liquibase contexts which will be used for changelog
+   * @param labels              Liquibase labels
+   * @param parameters          Liquibase parameters
+   * @param dependencies        configs which have to be applied before this one
+   * @param fingerprintStore    store of changelog fingerprints, null when disabled
+   * @param lockStrategy        strategy of acquiring Liquibase lock, null for Liquibase default
+   * @param clusterCoordination coordination of cluster instances, null when disabled
+   * @param lazy                switch to apply the config on the first connection
+   * @param databaseClass       implementation of Liquibase Database skipping dialect detection
+   * @param archivePath         path of the precompiled changelog archive, null to parse
+   * @param criticalLabels      label expression of critical changesets, null for one phase
+   * @param deadline            maximum duration of a single update, null for no limit
+   * @param migrationDataSource DataSource opening migration connections, null to use dataSource
+   * @param connectionBudget    permits of migration connections, null for no limit
+   * @param streaming           switch to apply included changelog files one at a time
+   * @param baseline            baseline snapshot of empty databases, null for none
+   * @param templateCloning     switch to restore empty embedded databases from migrated templates
+   * @param sharedMigration     switch to migrate the config once per DataSource in the JVM
    * @throws NullPointerException     when <code>dataSource</code>/<code>resourceAccessor</code> are
    *                                  null
    * @throws IllegalArgumentException when <code>changeLogPath</code> is null or empty
@@ -54,7 +87,22 @@ public final class LiquibaseConfig {
       boolean shouldRun,
       Collection<String> contexts,
       Collection<String> labels,
-      Map<String, String> parameters) {
+      Map<String, String> parameters,
+      Collection<LiquibaseConfig> dependencies,
+      FingerprintStore fingerprintStore,
+      LockStrategy lockStrategy,
+      ClusterCoordination clusterCoordination,
+      boolean lazy,
+      Class<? extends Database> databaseClass,
+      String archivePath,
+      String criticalLabels,
+      Duration deadline,
+      DataSource migrationDataSource,
+      Semaphore connectionBudget,
+      boolean streaming,
+      BaselineSnapshot baseline,
+      boolean templateCloning,
+      boolean sharedMigration) {
     this.dataSource = checkNotNull(dataSource, "dataSource must be defined.");
     this.resourceAccessor =
         checkNotNull(resourceAccessor, "resourceAccessor must be defined.");
@@ -65,6 +113,21 @@ public final class LiquibaseConfig {
     this.contexts = ImmutableSet.copyOf(checkNotNull(contexts));
     this.labels = ImmutableSet.copyOf(checkNotNull(labels));
     this.parameters = ImmutableMap.copyOf(checkNotNull(parameters));
+    this.dependencies = ImmutableSet.copyOf(checkNotNull(dependencies));
+    this.fingerprintStore = fingerprintStore;
+    this.lockStrategy = lockStrategy;
+    this.clusterCoordination = clusterCoordination;
+    this.lazy = lazy;
+    this.databaseClass = databaseClass;
+    this.archivePath = archivePath;
+    this.criticalLabels = criticalLabels;
+    this.deadline = deadline;
+    this.migrationDataSource = migrationDataSource;
+    this.connectionBudget = connectionBudget;
+    this.streaming = streaming;
+    this.baseline = baseline;
+    this.templateCloning = templateCloning;
+    this.sharedMigration = sharedMigration;
   }
 
   DataSource getDataSource() {
@@ -109,6 +172,66 @@ public final class LiquibaseConfig {
     return ImmutableMap.copyOf(parameters);
   }
 
+  Set<LiquibaseConfig> getDependencies() {
+    return dependencies;
+  }
+
+  Optional<FingerprintStore> getFingerprintStore() {
+    return Optional.ofNullable(fingerprintStore);
+  }
+
+  Optional<LockStrategy> getLockStrategy() {
+    return Optional.ofNullable(lockStrategy);
+  }
+
+  Optional<ClusterCoordination> getClusterCoordination() {
+    return Optional.ofNullable(clusterCoordination);
+  }
+
+  boolean isLazy() {
+    return lazy;
+  }
+
+  Optional<Class<? extends Database>> getDatabaseClass() {
+    return Optional.ofNullable(databaseClass);
+  }
+
+  Optional<String> getArchivePath() {
+    return Optional.ofNullable(archivePath);
+  }
+
+  Optional<String> getCriticalLabels() {
+    return Optional.ofNullable(criticalLabels);
+  }
+
+  Optional<Duration> getDeadline() {
+    return Optional.ofNullable(deadline);
+  }
+
+  DataSource getMigrationDataSource() {
+    return migrationDataSource != null ? migrationDataSource : dataSource;
+  }
+
+  Optional<Semaphore> getConnectionBudget() {
+    return Optional.ofNullable(connectionBudget);
+  }
+
+  boolean isStreaming() {
+    return streaming;
+  }
+
+  Optional<BaselineSnapshot> getBaseline() {
+    return Optional.ofNullable(baseline);
+  }
+
+  boolean isTemplateCloning() {
+    return templateCloning;
+  }
+
+  boolean isSharedMigration() {
+    return sharedMigration;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -125,13 +248,32 @@ public final class LiquibaseConfig {
         && (shouldRun == that.shouldRun)
         && Objects.equals(contexts, that.contexts)
         && Objects.equals(labels, that.labels)
-        && Objects.equals(parameters, that.parameters);
+        && Objects.equals(parameters, that.parameters)
+        && Objects.equals(dependencies, that.dependencies)
+        && Objects.equals(fingerprintStore, that.fingerprintStore)
+        && Objects.equals(lockStrategy, that.lockStrategy)
+        && Objects.equals(clusterCoordination, that.clusterCoordination)
+        && (lazy == that.lazy)
+        && Objects.equals(databaseClass, that.databaseClass)
+        && Objects.equals(archivePath, that.archivePath)
+        && Objects.equals(criticalLabels, that.criticalLabels)
+        && Objects.equals(deadline, that.deadline)
+        && Objects.equals(migrationDataSource, that.migrationDataSource)
+        && Objects.equals(connectionBudget, that.connectionBudget)
+        && (streaming == that.streaming)
+        && Objects.equals(baseline, that.baseline)
+        && (templateCloning == that.templateCloning)
+        && (sharedMigration == that.sharedMigration);
   }
 
   @Override
   public int hashCode() {
     return Objects.hash(this.dataSource, this.changeLogPath, this.resourceAccessor, this.dropFirst,
-        this.shouldRun, this.contexts, this.labels, this.parameters);
+        this.shouldRun, this.contexts, this.labels, this.parameters, this.dependencies,
+        this.fingerprintStore, this.lockStrategy, this.clusterCoordination, this.lazy,
+        this.databaseClass, this.archivePath, this.criticalLabels, this.deadline,
+        this.migrationDataSource, this.connectionBudget, this.streaming, this.baseline,
+        this.templateCloning, this.sharedMigration);
   }
 
   @Override
@@ -143,6 +285,21 @@ public final class LiquibaseConfig {
         .add("contexts=" + contexts)
         .add("labels=" + labels)
         .add("parameters=" + parameters)
+        .add("dependencies=" + dependencies)
+        .add("fingerprintStore=" + fingerprintStore)
+        .add("lockStrategy=" + lockStrategy)
+        .add("clusterCoordination=" + clusterCoordination)
+        .add("lazy=" + lazy)
+        .add("databaseClass=" + databaseClass)
+        .add("archivePath=" + archivePath)
+        .add("criticalLabels=" + criticalLabels)
+        .add("deadline=" + deadline)
+        .add("migrationDataSource=" + migrationDataSource)
+        .add("connectionBudget=" + connectionBudget)
+        .add("streaming=" + streaming)
+        .add("baseline=" + baseline)
+        .add("templateCloning=" + templateCloning)
+        .add("sharedMigration=" + sharedMigration)
         .toString();
   }
 
@@ -158,11 +315,25 @@ public final class LiquibaseConfig {
     private final Set<String> contexts = Sets.newHashSet();
     private final Set<String> labels = Sets.newHashSet();
     private final Map<String, String> parameters = Maps.newHashMap();
+    private final Set<LiquibaseConfig> dependencies = Sets.newLinkedHashSet();
     private String changeLogPath = DEFAULT_CHANGE_LOG_PATH;
-    private ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor(
-        this.getClass().getClassLoader());
+    private ResourceAccessor resourceAccessor = CachingResourceAccessor.getDefault();
     private boolean dropFirst = false;
     private boolean shouldRun = true;
+    private FingerprintStore fingerprintStore;
+    private LockStrategy lockStrategy;
+    private ClusterCoordination clusterCoordination;
+    private boolean lazy = false;
+    private Class<? extends Database> databaseClass;
+    private String archivePath;
+    private String criticalLabels;
+    private Duration deadline;
+    private DataSource migrationDataSource;
+    private Semaphore connectionBudget;
+    private boolean streaming;
+    private BaselineSnapshot baseline;
+    private boolean templateCloning;
+    private boolean sharedMigration;
 
     private Builder(DataSource dataSource) {
       this.dataSource = dataSource;
@@ -191,13 +362,64 @@ public final class LiquibaseConfig {
           .withChangeLogPath(builder.changeLogPath)
           .withDropFirst(builder.dropFirst)
           .withShouldRun(builder.shouldRun)
-          .withResourceAccessor(builder.resourceAccessor);
+          .withResourceAccessor(builder.resourceAccessor)
+          .withFingerprintStore(builder.fingerprintStore)
+          .withLockStrategy(builder.lockStrategy)
+          .withClusterCoordination(builder.clusterCoordination)
+          .withLazy(builder.lazy)
+          .withDatabaseClass(builder.databaseClass)
+          .withPrecompiledChangeLog(builder.archivePath)
+          .withCriticalLabels(builder.criticalLabels)
+          .withDeadline(builder.deadline)
+          .withMigrationDataSource(builder.migrationDataSource)
+          .withConnectionBudget(builder.connectionBudget)
+          .withStreaming(builder.streaming)
+          .withBaseline(builder.baseline)
+          .withTemplateCloning(builder.templateCloning)
+          .withSharedMigration(builder.sharedMigration);
       builder.contexts.forEach(copy::withContext);
       builder.labels.forEach(copy::withLabel);
       builder.parameters.forEach(copy::withParameter);
+      builder.dependencies.forEach(copy::withDependency);
       return copy;
     }
 
+    /**
+     * Creates new builder for <code>LiquibaseConfig</code> with all properties of the template and
+     * passed DataSource. Useful to apply the same changelog to many tenant databases.
+     *
+     * @param template   config used as a source of all properties except DataSources
+     * @param dataSource <code>DataSource</code> used for Liquibase connection
+     * @return new Builder instance
+     * @throws NullPointerException when template or dataSource is null
+     * @since 0.1.2
+     */
+    public static Builder of(LiquibaseConfig template, DataSource dataSource) {
+      checkNotNull(template, "template must be defined.");
+      return of(dataSource)
+          .withChangeLogPath(template.changeLogPath)
+          .withResourceAccessor(template.resourceAccessor)
+          .withDropFirst(template.dropFirst)
+          .withShouldRun(template.shouldRun)
+          .withContexts(template.contexts)
+          .withLabels(template.labels)
+          .withParameters(template.parameters)
+          .withDependencies(template.dependencies)
+          .withFingerprintStore(template.fingerprintStore)
+          .withLockStrategy(template.lockStrategy)
+          .withClusterCoordination(template.clusterCoordination)
+          .withLazy(template.lazy)
+          .withDatabaseClass(template.databaseClass)
+          .withPrecompiledChangeLog(template.archivePath)
+          .withCriticalLabels(template.criticalLabels)
+          .withDeadline(template.deadline)
+          .withConnectionBudget(template.connectionBudget)
+          .withStreaming(template.streaming)
+          .withBaseline(template.baseline)
+          .withTemplateCloning(template.templateCloning)
+          .withSharedMigration(template.sharedMigration);
+    }
+
     /**
      * Sets path to ChangeLog file used by Liquibase.
      *
@@ -210,7 +432,8 @@ public final class LiquibaseConfig {
     }
 
     /**
-     * Sets <code>ResourceAccessor</code> used to find and load ChangeLog file.
+     * Sets <code>ResourceAccessor</code> used to find and load ChangeLog file. By default all
+     * configs share {@link CachingResourceAccessor} of the library's class loader.
      *
      * @param value <code>ResourceAccessor</code> instance
      * @return itself
@@ -332,6 +555,260 @@ public final class LiquibaseConfig {
       return this;
     }
 
+    /**
+     * Declares that this config has to be applied after passed one. Configs without such relation
+     * (and with different DataSources) can be applied concurrently when
+     * <code>GuiceLiquibaseConfig</code> defines an executor. Dependency has to be registered in
+     * the same <code>GuiceLiquibaseConfig</code>.
+     *
+     * @param config config which has to be applied before this one
+     * @return itself
+     * @throws NullPointerException when passed config is null
+     * @since 0.1.2
+     */
+    public Builder withDependency(LiquibaseConfig config) {
+      dependencies.add(checkNotNull(config, "dependency must be defined."));
+      return this;
+    }
+
+    /**
+     * Adds dependencies from passed collection. Internally is using <code>withDependency</code>
+     * for each element of the collection.
+     *
+     * @param value configs which have to be applied before this one
+     * @return itself
+     * @throws NullPointerException when passed collection or any of its elements is null
+     * @see LiquibaseConfig.Builder#withDependency(LiquibaseConfig)
+     * @since 0.1.2
+     */
+    public Builder withDependencies(Collection<LiquibaseConfig> value) {
+      checkNotNull(value, "dependencies must be defined.")
+          .forEach(this::withDependency);
+      return this;
+    }
+
+    /**
+     * Enables fast path for unchanged deployments. Fingerprint of all resources resolved by the
+     * changelog, contexts, labels and parameters is computed before Liquibase is created and when
+     * it is equal to the one stored after the last successful update, Liquibase is not executed
+     * at all. When the changelog cannot be resolved, Liquibase is executed. Disabled by default
+     * and never used together with <code>dropFirst</code>.
+     *
+     * @param value <code>FingerprintStore</code> instance or null to disable fast path
+     * @return itself
+     * @see FingerprintStore#database()
+     * @see FingerprintStore#file(java.nio.file.Path)
+     * @since 0.1.2
+     */
+    public Builder withFingerprintStore(FingerprintStore value) {
+      this.fingerprintStore = value;
+      return this;
+    }
+
+    /**
+     * Sets strategy of acquiring Liquibase lock. By default Liquibase polls the lock table in
+     * fixed intervals until its global wait time passes.
+     *
+     * @param value <code>LockStrategy</code> instance or null to use Liquibase default
+     * @return itself
+     * @see LockStrategy#failFast()
+     * @since 0.1.2
+     */
+    public Builder withLockStrategy(LockStrategy value) {
+      this.lockStrategy = value;
+      return this;
+    }
+
+    /**
+     * Enables "single migrator, many waiters" mode, where only the elected leader of a cluster
+     * runs Liquibase and other instances wait for the expected changeset.
+     *
+     * @param value <code>ClusterCoordination</code> instance or null to disable coordination
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withClusterCoordination(ClusterCoordination value) {
+      this.clusterCoordination = value;
+      return this;
+    }
+
+    /**
+     * Sets lazy mode, where Liquibase update is not executed when the injector is created but
+     * on the first connection acquired from the DataSource returned by
+     * {@link MigrationHandle#getDataSource(LiquibaseConfig)}. Configs which eager configs depend
+     * on are never lazy. Other lazy configs are not awaited by
+     * {@link MigrationHandle#getAllMigrations()} and {@link MigrationHandle#getReport()}.
+     * Requires {@link GuiceLiquibaseConfig.Builder#withThreadLocalScopes(boolean)}.
+     *
+     * @param value true to apply the config on the first connection
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withLazy(boolean value) {
+      this.lazy = value;
+      return this;
+    }
+
+    /**
+     * Pins implementation of Liquibase <code>Database</code>, so the dialect of the DataSource is
+     * not detected. Without it the dialect detected for a JDBC URL is cached in memory and reused
+     * by other configs until the JVM exits, so only pinned class skips detection after restarts.
+     * When configs sharing a DataSource pin different classes, the config which opens the
+     * connection decides.
+     *
+     * @param value <code>Database</code> implementation with public no-args constructor or null to
+     *              detect it
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withDatabaseClass(Class<? extends Database> value) {
+      this.databaseClass = value;
+      return this;
+    }
+
+    /**
+     * Sets path of the changelog archive written at build time by {@link ChangeLogPrecompiler}.
+     * Archive is loaded by the config's <code>ResourceAccessor</code> and replaces parsing of the
+     * changelog files it contains; changelog path still defines the root changelog.
+     *
+     * @param value path of the archive or null to parse changelogs
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withPrecompiledChangeLog(String value) {
+      this.archivePath = value;
+      return this;
+    }
+
+    /**
+     * Splits the update into two phases. Changesets matching passed label expression, combined
+     * with labels of the config, are critical and applied during injector creation. Remaining
+     * changesets are applied afterwards in background, see
+     * {@link MigrationHandle#getDeferredMigration(LiquibaseConfig)}. Liquibase treats changesets
+     * without labels as matching every expression, so they are always critical - changesets
+     * which can be deferred should be labelled and excluded, e.g. <code>!deferred</code>.
+     * Requires {@link GuiceLiquibaseConfig.Builder#withThreadLocalScopes(boolean)}.
+     *
+     * @param value Liquibase label expression of critical changesets, null for one phase
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withCriticalLabels(String value) {
+      this.criticalLabels = value;
+      return this;
+    }
+
+    /**
+     * Sets maximum duration of a single Liquibase update of the config. Executed statements get
+     * query timeout set to the remaining time, lock wait is limited by it and the update fails
+     * before the next changeset when the deadline passed, so a hanging database does not block
+     * injector creation forever. Update can be also stopped by
+     * {@link MigrationHandle#cancel(LiquibaseConfig)}.
+     *
+     * @param value maximum duration of the update or null to disable deadline
+     * @return itself
+     * @throws IllegalArgumentException when value is not positive
+     * @since 0.1.2
+     */
+    public Builder withDeadline(Duration value) {
+      checkArgument(value == null || !(value.isNegative() || value.isZero()),
+          "deadline must be positive.");
+      this.deadline = value;
+      return this;
+    }
+
+    /**
+     * Sets DataSource used only to open connections of Liquibase updates, e.g. a small
+     * dedicated pool, so migrations never take connections of the application pool. Config is
+     * still identified by the DataSource passed to <code>of</code>.
+     *
+     * @param value migration-only DataSource or null to use the config's DataSource
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withMigrationDataSource(DataSource value) {
+      this.migrationDataSource = value;
+      return this;
+    }
+
+    /**
+     * Limits number of connections opened by Liquibase updates at the same time. Each update
+     * holds one permit of the semaphore while its connection is open and waits for a permit
+     * when there is none. The wait is limited by the deadline of the config only; config
+     * without deadline waits until a permit is released or the config is cancelled by
+     * {@link MigrationHandle#cancel(LiquibaseConfig)}. Configs sharing the semaphore share the
+     * budget, and all configs of one DataSource must use the same semaphore and migration
+     * DataSource, because they are applied on one shared connection.
+     *
+     * @param value semaphore with permits for migration connections or null for no limit
+     * @return itself
+     * @see #withDeadline(Duration)
+     * @since 0.1.2
+     */
+    public Builder withConnectionBudget(Semaphore value) {
+      this.connectionBudget = value;
+      return this;
+    }
+
+    /**
+     * Sets streaming mode for changelogs which only include other changelog files. Included files
+     * are parsed and applied one at a time, so heap holds the changesets of a single file instead
+     * of the whole changelog. Liquibase lock is held until all files are applied. Changelog with
+     * other elements than plain <code>include</code> elements is applied as a whole.
+     *
+     * @param value true to apply included changelog files one at a time
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withStreaming(boolean value) {
+      this.streaming = value;
+      return this;
+    }
+
+    /**
+     * Sets baseline snapshot executed instead of the changesets it covers when no changeset was
+     * applied to the database yet, e.g. for new tenants or CI databases.
+     *
+     * @param value baseline snapshot or null to replay all changesets
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withBaseline(BaselineSnapshot value) {
+      this.baseline = value;
+      return this;
+    }
+
+    /**
+     * Sets cloning of migrated embedded test databases. First HSQLDB or H2 database of the
+     * changelog fingerprint is migrated by Liquibase and kept as a template in memory, following
+     * empty databases of the same fingerprint are restored from the template instead of
+     * replaying changesets. Ignored for other databases, <code>dropFirst</code> and critical
+     * labels.
+     *
+     * @param value true to clone migrated embedded databases
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withTemplateCloning(boolean value) {
+      this.templateCloning = value;
+      return this;
+    }
+
+    /**
+     * Sets migration of the config shared by all injectors in the JVM. Config is migrated once
+     * per DataSource instance and changelog: injectors created concurrently wait for the running
+     * migration and later injectors finish with <code>MigrationOutcome.JOINED</code> without
+     * touching the database. Ignored for <code>dropFirst</code> and critical labels.
+     *
+     * @param value true to share migration of the config in the JVM
+     * @return itself
+     * @since 0.1.2
+     */
+    public Builder withSharedMigration(boolean value) {
+      this.sharedMigration = value;
+      return this;
+    }
+
     /**
      * Creates new <code>LiquibaseConfig</code> object for defined properties.
      *
@@ -351,7 +828,22 @@ public final class LiquibaseConfig {
           this.shouldRun,
           this.contexts,
           this.labels,
-          this.parameters);
+          this.parameters,
+          this.dependencies,
+          this.fingerprintStore,
+          this.lockStrategy,
+          this.clusterCoordination,
+          this.lazy,
+          this.databaseClass,
+          this.archivePath,
+          this.criticalLabels,
+          this.deadline,
+          this.migrationDataSource,
+          this.connectionBudget,
+          this.streaming,
+          this.baseline,
+          this.templateCloning,
+          this.sharedMigration);
     }
 
     @Override
@@ -370,7 +862,22 @@ public final class LiquibaseConfig {
           && Objects.equals(resourceAccessor, builder.resourceAccessor)
           && Objects.equals(contexts, builder.contexts)
           && Objects.equals(labels, builder.labels)
-          && Objects.equals(parameters, builder.parameters);
+          && Objects.equals(parameters, builder.parameters)
+          && Objects.equals(dependencies, builder.dependencies)
+          && Objects.equals(fingerprintStore, builder.fingerprintStore)
+          && Objects.equals(lockStrategy, builder.lockStrategy)
+          && Objects.equals(clusterCoordination, builder.clusterCoordination)
+          && lazy == builder.lazy
+          && Objects.equals(databaseClass, builder.databaseClass)
+          && Objects.equals(archivePath, builder.archivePath)
+          && Objects.equals(criticalLabels, builder.criticalLabels)
+          && Objects.equals(deadline, builder.deadline)
+          && Objects.equals(migrationDataSource, builder.migrationDataSource)
+          && Objects.equals(connectionBudget, builder.connectionBudget)
+          && streaming == builder.streaming
+          && Objects.equals(baseline, builder.baseline)
+          && templateCloning == builder.templateCloning
+          && sharedMigration == builder.sharedMigration;
     }
 
     @Override
@@ -0,0 +1,287 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Stopwatch;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import liquibase.exception.LockException;
+import liquibase.lockservice.LockService;
+
+/**
+ * Strategy of acquiring Liquibase lock (<code>DATABASECHANGELOGLOCK</code>) used instead of
+ * Liquibase fixed interval polling. Lock table is polled with jittered exponential backoff until
+ * the wait budget passes. Then the update fails or, when <code>skipWhenLocked</code> is enabled,
+ * config is finished with {@link MigrationOutcome#LOCKED_ELSEWHERE}, so instances which did not
+ * get the lock do not keep their connections busy while another instance migrates the database.
+ *
+ * @since 0.1.2
+ */
+public final class LockStrategy {
+
+  static final String SCOPE_KEY = LockStrategy.class.getName();
+  private final Duration pollInterval;
+  private final Duration maxPollInterval;
+  private final double backoffMultiplier;
+  private final double jitter;
+  private final Duration waitBudget;
+  private final boolean skipWhenLocked;
+
+  private LockStrategy(Duration pollInterval, Duration maxPollInterval, double backoffMultiplier,
+      double jitter, Duration waitBudget, boolean skipWhenLocked) {
+    this.pollInterval = pollInterval;
+    this.maxPollInterval = maxPollInterval;
+    this.backoffMultiplier = backoffMultiplier;
+    this.jitter = jitter;
+    this.waitBudget = waitBudget;
+    this.skipWhenLocked = skipWhenLocked;
+  }
+
+  /**
+   * Creates strategy which tries to acquire the lock once and finishes the config with
+   * {@link MigrationOutcome#LOCKED_ELSEWHERE} when the lock is held by somebody else.
+   *
+   * @return fail fast strategy
+   */
+  public static LockStrategy failFast() {
+    return Builder.of()
+        .withWaitBudget(Duration.ZERO)
+        .withSkipWhenLocked(true)
+        .build();
+  }
+
+  /**
+   * Creates strategy polling the lock at fixed interval.
+   *
+   * @param pollInterval interval between polls
+   * @param waitBudget   maximum time of waiting for the lock
+   * @return fixed interval strategy
+   */
+  static LockStrategy fixedInterval(Duration pollInterval, Duration waitBudget) {
+    return new LockStrategy(pollInterval, pollInterval, 1, 0, waitBudget, false);
+  }
+
+  /**
+   * Acquires the lock of the lock service according to this strategy.
+   *
+   * @param lockService lock service of the migrated database
+   * @throws LockException when lock was not acquired in the wait budget
+   */
+  void acquire(LockService lockService) throws LockException {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    Duration interval = pollInterval;
+    while (!lockService.acquireLock()) {
+      MigrationDeadline.current().check();
+      Duration remaining = waitBudget.minus(stopwatch.elapsed());
+      if (remaining.isNegative() || remaining.isZero()) {
+        String message = String.format("Could not acquire Liquibase lock in %s. Locked by %s.",
+            waitBudget, describeLocks(lockService));
+        throw skipWhenLocked ? new LockedElsewhereException(message) : new LockException(message);
+      }
+      sleep(min(jittered(interval), remaining));
+      interval = min(
+          Duration.ofNanos((long) (interval.toNanos() * backoffMultiplier)), maxPollInterval);
+    }
+  }
+
+  /**
+   * Returns copy of this strategy which waits at most passed time.
+   *
+   * @param maxWaitBudget maximum wait budget
+   * @return strategy with limited wait budget
+   */
+  LockStrategy limitWaitBudget(Duration maxWaitBudget) {
+    return new LockStrategy(pollInterval, maxPollInterval, backoffMultiplier, jitter,
+        min(waitBudget, maxWaitBudget), skipWhenLocked);
+  }
+
+  private Duration jittered(Duration interval) {
+    double factor = 1 - jitter * ThreadLocalRandom.current().nextDouble();
+    return Duration.ofNanos((long) (interval.toNanos() * factor));
+  }
+
+  private static Duration min(Duration first, Duration second) {
+    return first.compareTo(second) <= 0 ? first : second;
+  }
+
+  private static void sleep(Duration duration) throws LockException {
+    try {
+      MigrationDeadline.current().sleep(duration);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new LockException(exception);
+    }
+  }
+
+  private static String describeLocks(LockService lockService) {
+    try {
+      return Arrays.toString(Arrays.stream(lockService.listLocks())
+          .map(lock -> lock.getLockedBy() + " since " + lock.getLockGranted())
+          .toArray());
+    } catch (LockException exception) {
+      return "unknown";
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    LockStrategy that = (LockStrategy) obj;
+    return Double.compare(that.backoffMultiplier, backoffMultiplier) == 0
+        && Double.compare(that.jitter, jitter) == 0
+        && skipWhenLocked == that.skipWhenLocked
+        && Objects.equals(pollInterval, that.pollInterval)
+        && Objects.equals(maxPollInterval, that.maxPollInterval)
+        && Objects.equals(waitBudget, that.waitBudget);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(pollInterval, maxPollInterval, backoffMultiplier, jitter, waitBudget,
+        skipWhenLocked);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", LockStrategy.class.getSimpleName() + "[", "]")
+        .add("pollInterval=" + pollInterval)
+        .add("maxPollInterval=" + maxPollInterval)
+        .add("backoffMultiplier=" + backoffMultiplier)
+        .add("jitter=" + jitter)
+        .add("waitBudget=" + waitBudget)
+        .add("skipWhenLocked=" + skipWhenLocked)
+        .toString();
+  }
+
+  /**
+   * Builder for <code>LockStrategy</code>.
+   */
+  public static final class Builder {
+
+    private Duration pollInterval = Duration.ofMillis(100);
+    private Duration maxPollInterval = Duration.ofSeconds(5);
+    private double backoffMultiplier = 2;
+    private double jitter = 0.5;
+    private Duration waitBudget = Duration.ofMinutes(5);
+    private boolean skipWhenLocked = false;
+
+    private Builder() {
+    }
+
+    /**
+     * Creates new builder with 100 ms initial poll interval doubled up to 5 seconds, 50% jitter
+     * and 5 minutes wait budget.
+     *
+     * @return new Builder instance
+     */
+    public static Builder of() {
+      return new Builder();
+    }
+
+    /**
+     * Sets interval before the second attempt to acquire the lock.
+     *
+     * @param value positive interval
+     * @return itself
+     * @throws IllegalArgumentException when value is not positive
+     */
+    public Builder withPollInterval(Duration value) {
+      checkArgument(isPositive(value), "pollInterval must be positive.");
+      this.pollInterval = value;
+      return this;
+    }
+
+    /**
+     * Sets maximum interval between attempts to acquire the lock.
+     *
+     * @param value positive interval
+     * @return itself
+     * @throws IllegalArgumentException when value is not positive
+     */
+    public Builder withMaxPollInterval(Duration value) {
+      checkArgument(isPositive(value), "maxPollInterval must be positive.");
+      this.maxPollInterval = value;
+      return this;
+    }
+
+    /**
+     * Sets multiplier of the interval applied after each failed attempt.
+     *
+     * @param value multiplier not lower than 1
+     * @return itself
+     * @throws IllegalArgumentException when value is lower than 1
+     */
+    public Builder withBackoffMultiplier(double value) {
+      checkArgument(value >= 1, "backoffMultiplier must be at least 1.");
+      this.backoffMultiplier = value;
+      return this;
+    }
+
+    /**
+     * Sets part of the interval which is randomized, so instances started together do not poll
+     * the lock table at the same time.
+     *
+     * @param value fraction from 0 (no jitter) to 1
+     * @return itself
+     * @throws IllegalArgumentException when value is not in [0, 1] range
+     */
+    public Builder withJitter(double value) {
+      checkArgument(value >= 0 && value <= 1, "jitter must be between 0 and 1.");
+      this.jitter = value;
+      return this;
+    }
+
+    /**
+     * Sets maximum time of waiting for the lock. Zero means a single attempt.
+     *
+     * @param value not negative wait budget
+     * @return itself
+     * @throws IllegalArgumentException when value is negative
+     */
+    public Builder withWaitBudget(Duration value) {
+      checkArgument(!checkNotNull(value, "waitBudget must be defined.").isNegative(),
+          "waitBudget cannot be negative.");
+      this.waitBudget = value;
+      return this;
+    }
+
+    /**
+     * Sets if config should be finished with {@link MigrationOutcome#LOCKED_ELSEWHERE} instead
+     * of failing when the lock was not acquired in the wait budget.
+     *
+     * @param value true to skip the config when database is migrated by somebody else
+     * @return itself
+     */
+    public Builder withSkipWhenLocked(boolean value) {
+      this.skipWhenLocked = value;
+      return this;
+    }
+
+    /**
+     * Creates new <code>LockStrategy</code> object for defined properties.
+     *
+     * @return new <code>LockStrategy</code> object
+     * @throws IllegalArgumentException when maxPollInterval is shorter than pollInterval
+     */
+    public LockStrategy build() {
+      checkArgument(maxPollInterval.compareTo(pollInterval) >= 0,
+          "maxPollInterval cannot be shorter than pollInterval.");
+      return new LockStrategy(pollInterval, maxPollInterval, backoffMultiplier, jitter,
+          waitBudget, skipWhenLocked);
+    }
+
+    private static boolean isPositive(Duration value) {
+      checkNotNull(value, "interval must be defined.");
+      return !value.isNegative() && !value.isZero();
+    }
+  }
+}
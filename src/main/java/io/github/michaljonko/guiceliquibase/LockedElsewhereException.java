@@ -0,0 +1,16 @@
+package io.github.michaljonko.guiceliquibase;
+
+import liquibase.exception.LockException;
+
+/**
+ * Thrown when Liquibase lock is held by another instance and <code>LockStrategy</code> allows
+ * finishing the config without waiting for it.
+ */
+final class LockedElsewhereException extends LockException {
+
+  private static final long serialVersionUID = 1L;
+
+  LockedElsewhereException(String message) {
+    super(message);
+  }
+}
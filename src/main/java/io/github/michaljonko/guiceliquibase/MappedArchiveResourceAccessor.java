@@ -0,0 +1,220 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.resource.AbstractResource;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * <code>ResourceAccessor</code> reading resources from a single archive written by
+ * {@link ResourceArchiveWriter}. Archive is memory-mapped once and its index is read when the
+ * accessor is created, so opening a resource only creates a stream over the mapped bytes without
+ * any file system calls.
+ * <br>
+ * Archive file must not be modified while the accessor is used.
+ *
+ * @since 0.1.2
+ */
+public final class MappedArchiveResourceAccessor implements ResourceAccessor {
+
+  static final int MAGIC = 0x474c5241;
+  static final int FORMAT_VERSION = 1;
+  private final Path archive;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final NavigableMap<String, Entry> entries;
+
+  /**
+   * Maps the archive and reads its index.
+   *
+   * @param archive path of the archive file
+   * @throws IOException              when the archive cannot be read
+   * @throws NullPointerException     when archive is null
+   * @throws IllegalArgumentException when the archive is larger than 2 GB
+   */
+  public MappedArchiveResourceAccessor(Path archive) throws IOException {
+    this.archive = checkNotNull(archive, "archive must be defined.");
+    this.channel = FileChannel.open(archive, StandardOpenOption.READ);
+    try {
+      checkArgument(channel.size() <= Integer.MAX_VALUE, "archive cannot be larger than 2 GB.");
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      this.entries = readIndex(buffer.duplicate());
+    } catch (IOException | RuntimeException exception) {
+      channel.close();
+      throw exception;
+    }
+  }
+
+  @Override
+  public List<Resource> search(String path, boolean recursive) {
+    String directory = normalize(path);
+    String prefix = directory.isEmpty() ? "" : directory + "/";
+    return entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet().stream()
+        .filter(name -> recursive || name.indexOf('/', prefix.length()) < 0)
+        .map(MappedResource::new)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Resource> getAll(String path) {
+    String name = normalize(path);
+    return entries.containsKey(name)
+        ? ImmutableList.of(new MappedResource(name))
+        : ImmutableList.of();
+  }
+
+  @Override
+  public List<String> describeLocations() {
+    return ImmutableList.of(archive.toAbsolutePath().toString());
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private InputStream open(String name) {
+    Entry entry = entries.get(name);
+    ByteBuffer content = buffer.duplicate();
+    ((Buffer) content).position(entry.offset);
+    ((Buffer) content).limit(entry.offset + entry.length);
+    return new ByteBufferInputStream(content.slice());
+  }
+
+  private static NavigableMap<String, Entry> readIndex(ByteBuffer index) throws IOException {
+    if (index.remaining() < 12 || index.getInt() != MAGIC || index.getInt() != FORMAT_VERSION) {
+      throw new IOException("File is not a resource archive.");
+    }
+    NavigableMap<String, Entry> entries = new TreeMap<>();
+    for (int i = index.getInt(); i > 0; i--) {
+      byte[] name = new byte[index.getInt()];
+      index.get(name);
+      entries.put(new String(name, StandardCharsets.UTF_8),
+          new Entry(index.getInt(), index.getInt()));
+    }
+    return entries;
+  }
+
+  private static String normalize(String path) {
+    return path.replace('\\', '/')
+        .replaceFirst("^classpath\\*?:", "")
+        .replaceFirst("^/+", "")
+        .replaceFirst("/+$", "")
+        .replace("/./", "/");
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", MappedArchiveResourceAccessor.class.getSimpleName() + "[", "]")
+        .add("archive=" + archive)
+        .add("entries=" + entries.size())
+        .toString();
+  }
+
+  private static final class Entry {
+
+    private final int offset;
+    private final int length;
+
+    private Entry(int offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private final class MappedResource extends AbstractResource {
+
+    private MappedResource(String name) {
+      super(name, URI.create(archive.toUri() + "!/" + name.replace(" ", "%20")));
+    }
+
+    @Override
+    public InputStream openInputStream() {
+      return open(getPath());
+    }
+
+    @Override
+    public boolean exists() {
+      return true;
+    }
+
+    @Override
+    public Resource resolve(String other) {
+      return find(resolvePath(other));
+    }
+
+    @Override
+    public Resource resolveSibling(String other) {
+      return find(resolveSiblingPath(other));
+    }
+
+    private Resource find(String path) {
+      try {
+        return get(path);
+      } catch (IOException exception) {
+        throw new UnexpectedLiquibaseException(exception);
+      }
+    }
+  }
+
+  /**
+   * Stream reading bytes of the mapped archive without copying them to an intermediate buffer.
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer content;
+
+    private ByteBufferInputStream(ByteBuffer content) {
+      this.content = content;
+    }
+
+    @Override
+    public int read() {
+      return content.hasRemaining() ? content.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!content.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, content.remaining());
+      content.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long count) {
+      int skipped = (int) Math.max(0, Math.min(count, content.remaining()));
+      ((Buffer) content).position(content.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return content.remaining();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * DataSource which returns connections of the delegate only after Liquibase update of its config
+ * is finished. The first connection triggers the update of a lazy config and concurrent callers
+ * wait for the same update. When the update is finished connections are taken directly from the
+ * delegate.
+ */
+final class MigratedDataSource implements DataSource {
+
+  private final DataSource delegate;
+  private final Supplier<CompletableFuture<MigrationOutcome>> migration;
+  private volatile boolean migrated;
+
+  /**
+   * Creates DataSource waiting for the migration.
+   *
+   * @param delegate  DataSource of the config
+   * @param migration supplier triggering the update and returning its future
+   */
+  MigratedDataSource(
+      DataSource delegate, Supplier<CompletableFuture<MigrationOutcome>> migration) {
+    this.delegate = checkNotNull(delegate, "delegate must be defined.");
+    this.migration = checkNotNull(migration, "migration must be defined.");
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    awaitMigration();
+    return delegate.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    awaitMigration();
+    return delegate.getConnection(username, password);
+  }
+
+  private void awaitMigration() throws SQLException {
+    if (migrated) {
+      return;
+    }
+    try {
+      migration.get().join();
+      migrated = true;
+    } catch (CompletionException exception) {
+      throw new SQLException("Liquibase update of the DataSource failed.",
+          MigrationScheduler.unwrap(exception));
+    }
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return delegate.getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    delegate.setLogWriter(out);
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    delegate.setLoginTimeout(seconds);
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return delegate.getLoginTimeout();
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    return delegate.getParentLogger();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    return iface.isInstance(delegate) ? iface.cast(delegate) : delegate.unwrap(iface);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", MigratedDataSource.class.getSimpleName() + "[", "]")
+        .add("delegate=" + delegate)
+        .add("migrated=" + migrated)
+        .toString();
+  }
+}
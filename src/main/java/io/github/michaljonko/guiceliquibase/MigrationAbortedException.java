@@ -0,0 +1,16 @@
+package io.github.michaljonko.guiceliquibase;
+
+import liquibase.exception.UnexpectedLiquibaseException;
+
+/**
+ * Thrown when Liquibase update is stopped because its deadline passed or it was cancelled by
+ * {@link MigrationHandle#cancel(LiquibaseConfig)}.
+ */
+final class MigrationAbortedException extends UnexpectedLiquibaseException {
+
+  private static final long serialVersionUID = 1L;
+
+  MigrationAbortedException(String message) {
+    super(message);
+  }
+}
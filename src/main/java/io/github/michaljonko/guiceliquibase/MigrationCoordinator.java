@@ -0,0 +1,167 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Migrations of shared configs coordinated by all engines in the JVM. Config of a DataSource
+ * instance is migrated once: engines migrating the same changelog of the same DataSource
+ * concurrently wait for the running migration, later engines take its memoized outcome without
+ * touching the database. DataSources are weakly referenced, so outcomes are dropped together
+ * with their DataSources.
+ * <br>
+ * Failed migrations and migrations left to another instance holding the Liquibase lock are not
+ * memoized, so the next engine migrates the config again.
+ */
+final class MigrationCoordinator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MigrationCoordinator.class);
+  private static final MigrationCoordinator INSTANCE = new MigrationCoordinator();
+  private final Cache<DataSource, ConcurrentMap<Key, CompletableFuture<MigrationOutcome>>>
+      migrations;
+
+  MigrationCoordinator() {
+    this.migrations = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+  }
+
+  static MigrationCoordinator getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Migrates the config unless the same config of its DataSource is migrated or was migrated
+   * by another engine.
+   *
+   * @param config    shared config
+   * @param deadline  deadline of the config in this engine, checked while waiting for the
+   *                  migration of another engine
+   * @param migration migration of the config executed by the first engine
+   * @return outcome of the migration, <code>JOINED</code> when it was migrated by another engine
+   * @throws MigrationAbortedException when the config was cancelled or its deadline passed
+   *                                   while waiting for another engine
+   * @throws RuntimeException          failure of the migration, also the one of another engine
+   */
+  MigrationOutcome migrate(LiquibaseConfig config, MigrationDeadline deadline,
+      Supplier<MigrationOutcome> migration) {
+    ConcurrentMap<Key, CompletableFuture<MigrationOutcome>> configs =
+        getConfigs(config.getDataSource());
+    Key key = new Key(config);
+    while (true) {
+      CompletableFuture<MigrationOutcome> created = new CompletableFuture<>();
+      CompletableFuture<MigrationOutcome> running = configs.putIfAbsent(key, created);
+      if (running == null) {
+        return lead(configs, key, created, migration);
+      }
+      LOGGER.info("Joining migration of {} started by another injector.",
+          config.getChangeLogPath());
+      if (await(running, deadline) != MigrationOutcome.LOCKED_ELSEWHERE) {
+        return MigrationOutcome.JOINED;
+      }
+    }
+  }
+
+  long size() {
+    return migrations.size();
+  }
+
+  private ConcurrentMap<Key, CompletableFuture<MigrationOutcome>> getConfigs(
+      DataSource dataSource) {
+    try {
+      return migrations.get(dataSource, ConcurrentHashMap::new);
+    } catch (ExecutionException exception) {
+      throw new IllegalStateException(exception.getCause());
+    }
+  }
+
+  private static MigrationOutcome lead(
+      ConcurrentMap<Key, CompletableFuture<MigrationOutcome>> configs, Key key,
+      CompletableFuture<MigrationOutcome> created, Supplier<MigrationOutcome> migration) {
+    try {
+      MigrationOutcome outcome = migration.get();
+      if (outcome == MigrationOutcome.LOCKED_ELSEWHERE) {
+        configs.remove(key, created);
+      }
+      created.complete(outcome);
+      return outcome;
+    } catch (RuntimeException exception) {
+      configs.remove(key, created);
+      created.completeExceptionally(exception);
+      throw exception;
+    }
+  }
+
+  private static MigrationOutcome await(CompletableFuture<MigrationOutcome> running,
+      MigrationDeadline deadline) {
+    try {
+      return deadline.await(running);
+    } catch (ExecutionException exception) {
+      Throwable cause = exception.getCause();
+      throw cause instanceof RuntimeException
+          ? (RuntimeException) cause
+          : new UnexpectedLiquibaseException(cause);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new MigrationAbortedException("Waiting for migration of another injector was "
+          + "interrupted.");
+    }
+  }
+
+  private static final class Key {
+
+    private final String changeLogPath;
+    private final String archivePath;
+    private final ResourceAccessor resourceAccessor;
+    private final Map<String, String> parameters;
+    private final Set<String> contexts;
+    private final Set<String> labels;
+
+    private Key(LiquibaseConfig config) {
+      this.changeLogPath = config.getChangeLogPath();
+      this.archivePath = config.getArchivePath().orElse(null);
+      this.resourceAccessor = config.getResourceAccessor();
+      this.parameters = ImmutableMap.copyOf(config.getParameters());
+      this.contexts = ImmutableSet.copyOf(config.getContexts());
+      this.labels = ImmutableSet.copyOf(config.getLabels());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Key that = (Key) obj;
+      return resourceAccessor == that.resourceAccessor
+          && Objects.equals(changeLogPath, that.changeLogPath)
+          && Objects.equals(archivePath, that.archivePath)
+          && Objects.equals(parameters, that.parameters)
+          && Objects.equals(contexts, that.contexts)
+          && Objects.equals(labels, that.labels);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(changeLogPath, archivePath, System.identityHashCode(resourceAccessor),
+          parameters, contexts, labels);
+    }
+  }
+}
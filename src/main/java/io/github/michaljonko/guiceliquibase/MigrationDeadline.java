@@ -0,0 +1,202 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.collect.ImmutableSet;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import liquibase.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deadline and cancellation state of a single config. It is kept in Liquibase
+ * <code>Scope</code> during the update, so connections wrapped by <code>wrap</code> set query
+ * timeouts of executed statements to the remaining time and the update can be stopped between
+ * changesets. Cancelling the deadline cancels statements which are being executed.
+ */
+final class MigrationDeadline {
+
+  static final String SCOPE_KEY = MigrationDeadline.class.getName();
+  static final MigrationDeadline NONE = new MigrationDeadline(null);
+  private static final Logger LOGGER = LoggerFactory.getLogger(MigrationDeadline.class);
+  private static final Set<String> EXECUTE_METHODS = ImmutableSet.of("execute", "executeQuery",
+      "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+  private static final long CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private final Duration timeout;
+  private final Set<Statement> statements;
+  private volatile long expiresAt;
+  private volatile boolean cancelled;
+
+  MigrationDeadline(Duration timeout) {
+    this.timeout = timeout;
+    this.statements = ConcurrentHashMap.newKeySet();
+    this.expiresAt = Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns deadline of the config applied in the current Liquibase <code>Scope</code>.
+   *
+   * @return deadline of the current config or deadline which never passes
+   */
+  static MigrationDeadline current() {
+    MigrationDeadline deadline = Scope.getCurrentScope().get(SCOPE_KEY, MigrationDeadline.class);
+    return deadline != null ? deadline : NONE;
+  }
+
+  /**
+   * Starts measuring the timeout. Every update of the config has the whole timeout.
+   */
+  void start() {
+    if (timeout != null) {
+      expiresAt = System.nanoTime() + timeout.toNanos();
+    }
+  }
+
+  /**
+   * Returns time left to the deadline.
+   *
+   * @return remaining time, zero when the deadline passed, empty when there is no timeout
+   */
+  Optional<Duration> getRemaining() {
+    if (timeout == null) {
+      return Optional.empty();
+    }
+    return Optional.of(Duration.ofNanos(Math.max(expiresAt - System.nanoTime(), 0)));
+  }
+
+  /**
+   * Stops the update when it was cancelled or its deadline passed.
+   *
+   * @throws MigrationAbortedException when update has to be stopped
+   */
+  void check() {
+    if (cancelled) {
+      throw new MigrationAbortedException("Liquibase update was cancelled.");
+    }
+    if (getRemaining().filter(Duration::isZero).isPresent()) {
+      throw new MigrationAbortedException("Liquibase update exceeded its deadline of "
+          + timeout + ".");
+    }
+  }
+
+  /**
+   * Sleeps between polls of a wait loop, waking up to stop the update when it was cancelled or
+   * its deadline passed.
+   *
+   * @param duration time to sleep
+   * @throws InterruptedException      when the thread was interrupted
+   * @throws MigrationAbortedException when update has to be stopped
+   */
+  void sleep(Duration duration) throws InterruptedException {
+    long sleepUntil = System.nanoTime() + duration.toNanos();
+    check();
+    for (long left = duration.toNanos(); left > 0; left = sleepUntil - System.nanoTime()) {
+      TimeUnit.NANOSECONDS.sleep(Math.min(left, CHECK_INTERVAL_NANOS));
+      check();
+    }
+  }
+
+  /**
+   * Waits for the future in short slices, waking up to stop the update when it was cancelled or
+   * its deadline passed.
+   *
+   * @param future awaited future
+   * @param <T>    type of the result
+   * @return result of the future
+   * @throws ExecutionException        when the future failed
+   * @throws InterruptedException      when the thread was interrupted
+   * @throws MigrationAbortedException when update has to be stopped
+   */
+  <T> T await(Future<T> future) throws ExecutionException, InterruptedException {
+    while (true) {
+      check();
+      long slice = Math.min(CHECK_INTERVAL_NANOS,
+          getRemaining().map(Duration::toNanos).orElse(CHECK_INTERVAL_NANOS));
+      try {
+        return future.get(Math.max(slice, 1), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException expected) {
+        // Cancellation and deadline are checked before the next slice.
+      }
+    }
+  }
+
+  /**
+   * Cancels the update. Statements executed at the moment are cancelled and next statements
+   * fail, update which has not started yet fails when it starts.
+   */
+  void cancel() {
+    cancelled = true;
+    statements.forEach(MigrationDeadline::cancelStatement);
+  }
+
+  /**
+   * Wraps connection, so statements created by it are executed with the deadline of the
+   * current config.
+   *
+   * @param connection connection of the session
+   * @return connection applying deadlines to its statements
+   */
+  static Connection wrap(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(MigrationDeadline.class.getClassLoader(),
+        new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+          Object result = invoke(connection, method, args);
+          return result instanceof Statement && method.getReturnType().isInterface()
+              ? wrap((Statement) result, method.getReturnType())
+              : result;
+        });
+  }
+
+  private static Object wrap(Statement statement, Class<?> type) {
+    return Proxy.newProxyInstance(MigrationDeadline.class.getClassLoader(),
+        new Class<?>[] {type}, (proxy, method, args) -> EXECUTE_METHODS.contains(method.getName())
+            ? current().execute(statement, method, args)
+            : invoke(statement, method, args));
+  }
+
+  private static void cancelStatement(Statement statement) {
+    try {
+      statement.cancel();
+    } catch (SQLException exception) {
+      LOGGER.warn("Cannot cancel statement of cancelled Liquibase update.", exception);
+    }
+  }
+
+  private Object execute(Statement statement, Method method, Object[] args) throws Throwable {
+    Optional<Duration> remaining = getRemaining();
+    if (remaining.isPresent()) {
+      long seconds = TimeUnit.NANOSECONDS.toSeconds(remaining.get().toNanos() + 999_999_999L);
+      statement.setQueryTimeout((int) Math.min(Math.max(seconds, 1), Integer.MAX_VALUE));
+    }
+    // Statement is registered before the flag is read, so cancel() cannot miss it.
+    statements.add(statement);
+    try {
+      if (cancelled) {
+        MigrationAbortedException cause =
+            new MigrationAbortedException("Liquibase update was cancelled.");
+        throw new SQLException(cause.getMessage(), cause);
+      }
+      return invoke(statement, method, args);
+    } finally {
+      statements.remove(statement);
+    }
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException exception) {
+      throw exception.getCause();
+    }
+  }
+}
@@ -0,0 +1,303 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+
+/**
+ * Gives access to the progress of Liquibase updates started by <code>GuiceLiquibaseModule</code>.
+ * It is bound in the injector, so code which needs the schema can wait only for the configs it
+ * depends on - especially when <code>GuiceLiquibaseConfig</code> is asynchronous.
+ *
+ * @since 0.1.2
+ */
+public final class MigrationHandle {
+
+  private final Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> migrations;
+  private final Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> views;
+  private final Set<LiquibaseConfig> eagerConfigs;
+  private final CompletableFuture<Void> allMigrations;
+  private final CompletableFuture<MigrationReport> report;
+  private final Map<LiquibaseConfig, DataSource> dataSources;
+  private final Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> deferredMigrations;
+  private final Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> deferredViews;
+  private final CompletableFuture<Void> allDeferredMigrations;
+  private final Map<LiquibaseConfig, MigrationDeadline> deadlines;
+  private final Set<LiquibaseConfig> requestedConfigs;
+  private Consumer<LiquibaseConfig> trigger;
+
+  MigrationHandle(Collection<LiquibaseConfig> configs) {
+    ImmutableMap.Builder<LiquibaseConfig, CompletableFuture<MigrationOutcome>> migrations =
+        ImmutableMap.builder();
+    ImmutableMap.Builder<LiquibaseConfig, CompletableFuture<MigrationOutcome>> views =
+        ImmutableMap.builder();
+    checkNotNull(configs, "configs must be defined.").forEach(config -> {
+      CompletableFuture<MigrationOutcome> migration = new CompletableFuture<>();
+      migrations.put(config, migration);
+      views.put(config, migration.thenApply(Function.identity()));
+    });
+    this.migrations = migrations.build();
+    this.views = views.build();
+    this.eagerConfigs = collectEagerConfigs(this.migrations.keySet());
+    this.allMigrations = CompletableFuture.allOf(eagerFutures(this.migrations))
+        .thenApply(Function.identity());
+    this.report = CompletableFuture.allOf(eagerFutures(this.migrations))
+        .handle((result, failure) -> createReport());
+    ImmutableMap.Builder<LiquibaseConfig, DataSource> dataSources = ImmutableMap.builder();
+    this.migrations.forEach((config, migration) -> dataSources.put(config,
+        new MigratedDataSource(config.getDataSource(), () -> {
+          trigger(config);
+          return migration;
+        })));
+    this.dataSources = dataSources.build();
+    ImmutableMap.Builder<LiquibaseConfig, CompletableFuture<MigrationOutcome>> deferredMigrations =
+        ImmutableMap.builder();
+    ImmutableMap.Builder<LiquibaseConfig, CompletableFuture<MigrationOutcome>> deferredViews =
+        ImmutableMap.builder();
+    this.migrations.keySet().forEach(config -> {
+      CompletableFuture<MigrationOutcome> migration = new CompletableFuture<>();
+      deferredMigrations.put(config, migration);
+      deferredViews.put(config, migration.thenApply(Function.identity()));
+    });
+    this.deferredMigrations = deferredMigrations.build();
+    this.deferredViews = deferredViews.build();
+    this.allDeferredMigrations = CompletableFuture.allOf(eagerFutures(this.deferredMigrations))
+        .thenApply(Function.identity());
+    ImmutableMap.Builder<LiquibaseConfig, MigrationDeadline> deadlines = ImmutableMap.builder();
+    this.migrations.keySet().forEach(config ->
+        deadlines.put(config, new MigrationDeadline(config.getDeadline().orElse(null))));
+    this.deadlines = deadlines.build();
+    this.requestedConfigs = Sets.newHashSet();
+  }
+
+  /**
+   * Returns future completed when Liquibase update for passed config is finished. Completing or
+   * cancelling returned future does not affect the update.
+   *
+   * @param config config registered in <code>GuiceLiquibaseConfig</code>
+   * @return future completed with the outcome of the update
+   * @throws IllegalArgumentException when config is not registered
+   */
+  public CompletableFuture<MigrationOutcome> getMigration(LiquibaseConfig config) {
+    CompletableFuture<MigrationOutcome> migration = views.get(config);
+    checkArgument(migration != null, "config is not registered.");
+    return migration;
+  }
+
+  /**
+   * Returns future completed when Liquibase updates for all configs started with the injector
+   * are finished. It is completed exceptionally when any of them failed. Lazy configs are
+   * covered only when an eager config depends on them, outcomes of other lazy configs are
+   * available from <code>getMigration</code>.
+   *
+   * @return future completed when all updates are finished
+   * @see LiquibaseConfig.Builder#withLazy(boolean)
+   */
+  public CompletableFuture<Void> getAllMigrations() {
+    return allMigrations;
+  }
+
+  /**
+   * Returns future completed when Liquibase updates for all configs started with the injector
+   * are finished. Unlike <code>getAllMigrations</code> it is completed normally also when some
+   * updates failed. Like <code>getAllMigrations</code> it does not wait for lazy configs which
+   * no eager config depends on, and the report does not contain them.
+   *
+   * @return future completed with the results of all updates
+   * @see LiquibaseConfig.Builder#withLazy(boolean)
+   */
+  public CompletableFuture<MigrationReport> getReport() {
+    return report;
+  }
+
+  /**
+   * Returns future completed when changesets of the config which are not critical are applied
+   * in background. For a config without critical labels it is completed together with the
+   * future returned by <code>getMigration</code>.
+   *
+   * @param config config registered in <code>GuiceLiquibaseConfig</code>
+   * @return future completed with the outcome of the deferred update
+   * @throws IllegalArgumentException when config is not registered
+   * @see LiquibaseConfig.Builder#withCriticalLabels(String)
+   */
+  public CompletableFuture<MigrationOutcome> getDeferredMigration(LiquibaseConfig config) {
+    CompletableFuture<MigrationOutcome> migration = deferredViews.get(config);
+    checkArgument(migration != null, "config is not registered.");
+    return migration;
+  }
+
+  /**
+   * Returns future completed when deferred updates of all configs started with the injector are
+   * finished. It is completed exceptionally when any of them failed. Like
+   * <code>getAllMigrations</code> it does not wait for lazy configs.
+   *
+   * @return future completed when all deferred updates are finished
+   */
+  public CompletableFuture<Void> getAllDeferredMigrations() {
+    return allDeferredMigrations;
+  }
+
+  /**
+   * Returns DataSource of the config which gives connections only after Liquibase update of the
+   * config is finished. For a lazy config the first connection starts the update, so the
+   * returned DataSource should be bound in the injector in place of the original one.
+   *
+   * @param config config registered in <code>GuiceLiquibaseConfig</code>
+   * @return DataSource waiting for the update of the config
+   * @throws IllegalArgumentException when config is not registered
+   * @throws java.sql.SQLException    from <code>getConnection</code> when the update failed
+   * @see LiquibaseConfig.Builder#withLazy(boolean)
+   */
+  public DataSource getDataSource(LiquibaseConfig config) {
+    DataSource dataSource = dataSources.get(config);
+    checkArgument(dataSource != null, "config is not registered.");
+    return dataSource;
+  }
+
+  /**
+   * Cancels Liquibase update of the config. Statements executed by the update are cancelled and
+   * the update fails as soon as possible. Update which has not started yet fails when it
+   * starts. Cancelling finished update has no effect.
+   *
+   * @param config config registered in <code>GuiceLiquibaseConfig</code>
+   * @throws IllegalArgumentException when config is not registered
+   * @see LiquibaseConfig.Builder#withDeadline(java.time.Duration)
+   */
+  public void cancel(LiquibaseConfig config) {
+    MigrationDeadline deadline = deadlines.get(config);
+    checkArgument(deadline != null, "config is not registered.");
+    deadline.cancel();
+  }
+
+  /**
+   * Cancels Liquibase updates of all configs, e.g. from a shutdown hook.
+   *
+   * @see #cancel(LiquibaseConfig)
+   */
+  public void cancelAll() {
+    deadlines.values().forEach(MigrationDeadline::cancel);
+  }
+
+  MigrationDeadline getDeadline(LiquibaseConfig config) {
+    return deadlines.get(config);
+  }
+
+  /**
+   * Sets action starting updates of lazy configs and starts updates requested before.
+   *
+   * @param value action starting the update of the config
+   */
+  void attachTrigger(Consumer<LiquibaseConfig> value) {
+    Set<LiquibaseConfig> requested;
+    synchronized (this) {
+      trigger = checkNotNull(value, "trigger must be defined.");
+      requested = ImmutableSet.copyOf(requestedConfigs);
+      requestedConfigs.clear();
+    }
+    requested.forEach(value);
+  }
+
+  private void trigger(LiquibaseConfig config) {
+    Consumer<LiquibaseConfig> current;
+    synchronized (this) {
+      if (trigger == null) {
+        requestedConfigs.add(config);
+        return;
+      }
+      current = trigger;
+    }
+    current.accept(config);
+  }
+
+  void complete(LiquibaseConfig config, MigrationOutcome outcome, Throwable failure) {
+    CompletableFuture<MigrationOutcome> migration = migrations.get(config);
+    if (failure == null) {
+      migration.complete(outcome);
+    } else {
+      migration.completeExceptionally(failure);
+    }
+  }
+
+  void completeDeferred(LiquibaseConfig config, MigrationOutcome outcome, Throwable failure) {
+    CompletableFuture<MigrationOutcome> migration = deferredMigrations.get(config);
+    if (failure == null) {
+      migration.complete(outcome);
+    } else {
+      migration.completeExceptionally(failure);
+    }
+  }
+
+  void completeAll(MigrationOutcome outcome) {
+    migrations.values().forEach(migration -> migration.complete(outcome));
+    deferredMigrations.values().forEach(migration -> migration.complete(outcome));
+  }
+
+  /**
+   * Collects configs which are not lazy and all configs they depend on, as those are started
+   * with the injector.
+   */
+  private static Set<LiquibaseConfig> collectEagerConfigs(Set<LiquibaseConfig> configs) {
+    Set<LiquibaseConfig> eager = Sets.newHashSet();
+    Deque<LiquibaseConfig> pending = configs.stream()
+        .filter(config -> !config.isLazy())
+        .collect(Collectors.toCollection(ArrayDeque::new));
+    while (!pending.isEmpty()) {
+      LiquibaseConfig config = pending.pop();
+      if (configs.contains(config) && eager.add(config)) {
+        pending.addAll(config.getDependencies());
+      }
+    }
+    return ImmutableSet.copyOf(eager);
+  }
+
+  private CompletableFuture<?>[] eagerFutures(
+      Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> futures) {
+    return futures.entrySet().stream()
+        .filter(future -> eagerConfigs.contains(future.getKey()))
+        .map(Map.Entry::getValue)
+        .toArray(CompletableFuture<?>[]::new);
+  }
+
+  private MigrationReport createReport() {
+    ImmutableMap.Builder<LiquibaseConfig, MigrationOutcome> outcomes = ImmutableMap.builder();
+    ImmutableMap.Builder<LiquibaseConfig, Throwable> failures = ImmutableMap.builder();
+    Maps.filterKeys(migrations, eagerConfigs::contains).forEach((config, migration) -> migration
+        .handle((outcome, failure) -> {
+          if (failure == null) {
+            outcomes.put(config, outcome);
+          } else {
+            failures.put(config, failure);
+          }
+          return config;
+        })
+        .join());
+    return new MigrationReport(outcomes.build(), failures.build());
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", MigrationHandle.class.getSimpleName() + "[", "]")
+        .add("migrations=" + migrations)
+        .add("views=" + views)
+        .add("allMigrations=" + allMigrations)
+        .add("report=" + report)
+        .add("dataSources=" + dataSources)
+        .add("deferredMigrations=" + deferredMigrations)
+        .toString();
+  }
+}
@@ -0,0 +1,98 @@
+package io.github.michaljonko.guiceliquibase;
+
+import java.time.Duration;
+import liquibase.changelog.ChangeSet;
+
+/**
+ * Receives timings of Liquibase updates executed by <code>GuiceLiquibaseModule</code>. Listeners
+ * are bound with <code>Multibinder.newSetBinder(binder(), MigrationListener.class)</code>.
+ * <br>
+ * Methods are called on the thread applying the config, so configs applied concurrently notify
+ * listeners concurrently. Phase may be reported more than once for a config, e.g. when Liquibase
+ * reads its history table again. Exceptions thrown by listeners are logged and ignored.
+ *
+ * @since 0.1.2
+ */
+public interface MigrationListener {
+
+  /**
+   * Called when applying the config starts, before any of its phases. It is called again for
+   * the deferred update of the config.
+   *
+   * @param config config being applied
+   */
+  default void migrationStarted(LiquibaseConfig config) {
+  }
+
+  /**
+   * Called when a phase of applying the config starts.
+   *
+   * @param config config being applied
+   * @param phase  started phase
+   */
+  default void phaseStarted(LiquibaseConfig config, MigrationPhase phase) {
+  }
+
+  /**
+   * Called when a phase of applying the config finishes, also when it failed.
+   *
+   * @param config   config being applied
+   * @param phase    finished phase
+   * @param duration duration of the phase
+   */
+  default void phaseFinished(LiquibaseConfig config, MigrationPhase phase, Duration duration) {
+  }
+
+  /**
+   * Called when the changelog of the config was parsed, before its changesets are executed. In
+   * streaming mode it is called after each included file with the number of changesets parsed
+   * so far.
+   *
+   * @param config     config being applied
+   * @param changeSets number of changesets in the changelog, including the ones which were
+   *                   already applied or will be filtered out
+   */
+  default void changeLogParsed(LiquibaseConfig config, int changeSets) {
+  }
+
+  /**
+   * Called when a changeset is about to be executed.
+   *
+   * @param config    config being applied
+   * @param changeSet changeset which will be executed
+   */
+  default void changeSetStarted(LiquibaseConfig config, ChangeSet changeSet) {
+  }
+
+  /**
+   * Called when a changeset was executed.
+   *
+   * @param config    config being applied
+   * @param changeSet executed changeset
+   * @param duration  execution time of the changeset
+   */
+  default void changeSetExecuted(LiquibaseConfig config, ChangeSet changeSet, Duration duration) {
+  }
+
+  /**
+   * Called when applying the config finished successfully. Changeset counts are zero when
+   * Liquibase update was not executed.
+   *
+   * @param config            applied config
+   * @param outcome           outcome of the config
+   * @param appliedChangeSets number of executed changesets
+   * @param skippedChangeSets number of changesets which were already applied or filtered out
+   */
+  default void migrationFinished(LiquibaseConfig config, MigrationOutcome outcome,
+      int appliedChangeSets, int skippedChangeSets) {
+  }
+
+  /**
+   * Called when applying the config failed.
+   *
+   * @param config  config being applied
+   * @param failure cause of the failure
+   */
+  default void migrationFailed(LiquibaseConfig config, Throwable failure) {
+  }
+}
@@ -0,0 +1,185 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Singleton;
+import liquibase.changelog.ChangeSet;
+
+/**
+ * Default <code>MigrationListener</code> aggregating timings of all configs. It is bound by
+ * <code>GuiceLiquibaseModule</code>, so it can be injected to expose migration latency, e.g. on
+ * dashboards. Durations of phases reported more than once are summed.
+ *
+ * @since 0.1.2
+ */
+@Singleton
+public final class MigrationMetrics implements MigrationListener {
+
+  private final Map<LiquibaseConfig, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+  @Override
+  public void phaseFinished(LiquibaseConfig config, MigrationPhase phase, Duration duration) {
+    Accumulator accumulator = getAccumulator(config);
+    synchronized (accumulator) {
+      accumulator.phaseDurations.merge(phase, duration, Duration::plus);
+    }
+  }
+
+  @Override
+  public void changeSetExecuted(LiquibaseConfig config, ChangeSet changeSet, Duration duration) {
+    Accumulator accumulator = getAccumulator(config);
+    synchronized (accumulator) {
+      accumulator.changeSetDurations.merge(changeSet.toString(), duration, Duration::plus);
+    }
+  }
+
+  @Override
+  public void migrationFinished(LiquibaseConfig config, MigrationOutcome outcome,
+      int appliedChangeSets, int skippedChangeSets) {
+    Accumulator accumulator = getAccumulator(config);
+    synchronized (accumulator) {
+      accumulator.appliedChangeSets = appliedChangeSets;
+      accumulator.skippedChangeSets = skippedChangeSets;
+    }
+  }
+
+  /**
+   * Returns current metrics of all configs which started to be applied.
+   *
+   * @return immutable metrics per config
+   */
+  public Map<LiquibaseConfig, Snapshot> getSnapshot() {
+    ImmutableMap.Builder<LiquibaseConfig, Snapshot> snapshot = ImmutableMap.builder();
+    accumulators.forEach((config, accumulator) -> {
+      synchronized (accumulator) {
+        snapshot.put(config, new Snapshot(accumulator.phaseDurations,
+            accumulator.changeSetDurations, accumulator.appliedChangeSets,
+            accumulator.skippedChangeSets));
+      }
+    });
+    return snapshot.build();
+  }
+
+  private Accumulator getAccumulator(LiquibaseConfig config) {
+    return accumulators.computeIfAbsent(config, key -> new Accumulator());
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", MigrationMetrics.class.getSimpleName() + "[", "]")
+        .add("accumulators=" + accumulators.size())
+        .toString();
+  }
+
+  private static final class Accumulator {
+
+    private final Map<MigrationPhase, Duration> phaseDurations = Maps.newEnumMap(
+        MigrationPhase.class);
+    private final Map<String, Duration> changeSetDurations = Maps.newLinkedHashMap();
+    private int appliedChangeSets;
+    private int skippedChangeSets;
+  }
+
+  /**
+   * Metrics of a single config.
+   *
+   * @since 0.1.2
+   */
+  public static final class Snapshot {
+
+    private final Map<MigrationPhase, Duration> phaseDurations;
+    private final Map<String, Duration> changeSetDurations;
+    private final int appliedChangeSets;
+    private final int skippedChangeSets;
+
+    Snapshot(Map<MigrationPhase, Duration> phaseDurations,
+        Map<String, Duration> changeSetDurations, int appliedChangeSets, int skippedChangeSets) {
+      this.phaseDurations = ImmutableMap.copyOf(phaseDurations);
+      this.changeSetDurations = ImmutableMap.copyOf(changeSetDurations);
+      this.appliedChangeSets = appliedChangeSets;
+      this.skippedChangeSets = skippedChangeSets;
+    }
+
+    /**
+     * Returns durations of the phases.
+     *
+     * @return durations of finished phases
+     */
+    public Map<MigrationPhase, Duration> getPhaseDurations() {
+      return phaseDurations;
+    }
+
+    /**
+     * Returns execution times of changesets.
+     *
+     * @return durations of executed changesets in execution order, keyed by
+     *     <code>path::id::author</code>
+     */
+    public Map<String, Duration> getChangeSetDurations() {
+      return changeSetDurations;
+    }
+
+    /**
+     * Returns time of waiting for the Liquibase lock.
+     *
+     * @return lock wait time, zero when lock was not acquired
+     */
+    public Duration getLockWait() {
+      return phaseDurations.getOrDefault(MigrationPhase.LOCK_WAIT, Duration.ZERO);
+    }
+
+    /**
+     * Returns number of changesets executed by the update.
+     *
+     * @return number of executed changesets
+     */
+    public int getAppliedChangeSets() {
+      return appliedChangeSets;
+    }
+
+    /**
+     * Returns number of changesets which were already applied or filtered out.
+     *
+     * @return number of not executed changesets
+     */
+    public int getSkippedChangeSets() {
+      return skippedChangeSets;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      Snapshot that = (Snapshot) obj;
+      return appliedChangeSets == that.appliedChangeSets
+          && skippedChangeSets == that.skippedChangeSets
+          && Objects.equals(phaseDurations, that.phaseDurations)
+          && Objects.equals(changeSetDurations, that.changeSetDurations);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(phaseDurations, changeSetDurations, appliedChangeSets,
+          skippedChangeSets);
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", Snapshot.class.getSimpleName() + "[", "]")
+          .add("phaseDurations=" + phaseDurations)
+          .add("changeSetDurations=" + changeSetDurations)
+          .add("appliedChangeSets=" + appliedChangeSets)
+          .add("skippedChangeSets=" + skippedChangeSets)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package io.github.michaljonko.guiceliquibase;
+
+/**
+ * Result of applying a single <code>LiquibaseConfig</code>.
+ *
+ * @since 0.1.2
+ */
+public enum MigrationOutcome {
+  /**
+   * Liquibase update was executed for the config.
+   */
+  APPLIED,
+  /**
+   * Liquibase was not executed because stored changelog fingerprint was not changed.
+   */
+  UP_TO_DATE,
+  /**
+   * Liquibase update was not executed because it was disabled for the config or globally.
+   */
+  SKIPPED,
+  /**
+   * Liquibase update was not executed because Liquibase lock is held by another instance and
+   * <code>LockStrategy</code> of the config allows skipping it.
+   */
+  LOCKED_ELSEWHERE,
+  /**
+   * Liquibase update was not executed because the changelog was applied by the leader of the
+   * cluster, see <code>ClusterCoordination</code>.
+   */
+  APPLIED_ELSEWHERE,
+  /**
+   * Liquibase update was not executed because the empty embedded database was restored from a
+   * migrated template, see <code>LiquibaseConfig.Builder.withTemplateCloning</code>.
+   */
+  CLONED,
+  /**
+   * Liquibase update was not executed because the config was migrated by another injector in the
+   * JVM, see <code>LiquibaseConfig.Builder.withSharedMigration</code>.
+   */
+  JOINED
+}
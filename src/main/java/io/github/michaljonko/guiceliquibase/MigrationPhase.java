@@ -0,0 +1,57 @@
+package io.github.michaljonko.guiceliquibase;
+
+/**
+ * Phase of applying a single <code>LiquibaseConfig</code> reported to
+ * <code>MigrationListener</code>. <code>LOCK_WAIT</code> and <code>HISTORY_READ</code> are part of
+ * <code>UPDATE</code>.
+ *
+ * @since 0.1.2
+ */
+public enum MigrationPhase {
+  /**
+   * Computing and comparing changelog fingerprint.
+   */
+  FINGERPRINT,
+  /**
+   * Acquiring connection from the DataSource.
+   */
+  CONNECTION,
+  /**
+   * Finding Liquibase <code>Database</code> implementation for the connection.
+   */
+  DIALECT_DETECTION,
+  /**
+   * Restoring empty embedded database from a migrated template or keeping migrated database as
+   * the template.
+   */
+  TEMPLATE,
+  /**
+   * Parsing changelog or taking already parsed one from the cache.
+   */
+  CHANGELOG_PARSING,
+  /**
+   * Dropping all database objects when <code>dropFirst</code> is enabled.
+   */
+  DROP_ALL,
+  /**
+   * Executing <code>BaselineSnapshot</code> on empty database and recording changesets it covers.
+   */
+  BASELINE,
+  /**
+   * Liquibase update, including lock wait, history read and execution of changesets.
+   */
+  UPDATE,
+  /**
+   * Waiting for the Liquibase lock.
+   */
+  LOCK_WAIT,
+  /**
+   * Reading applied changesets from <code>DATABASECHANGELOG</code> table.
+   */
+  HISTORY_READ,
+  /**
+   * Waiting for the leader of the cluster to apply the changelog, see
+   * <code>ClusterCoordination</code>.
+   */
+  LEADER_WAIT
+}
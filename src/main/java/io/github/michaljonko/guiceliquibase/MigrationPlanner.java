@@ -0,0 +1,153 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.github.michaljonko.guiceliquibase.annotation.GuiceLiquibaseConfiguration;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.database.Database;
+import liquibase.exception.UnexpectedLiquibaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dry run of all configs of <code>GuiceLiquibaseModule</code>. It lists changesets which were not
+ * applied yet and generates their SQL without changing databases and without taking the
+ * Liquibase lock, so it can run next to instances applying the same changelogs.
+ * <br>
+ * Configs are planned concurrently on the passed executor. SQL of a config is written to the
+ * output as a whole when the config is planned, so scripts of configs are not interleaved and
+ * only scripts of configs planned at the moment are kept in memory.
+ *
+ * @since 0.1.2
+ */
+public final class MigrationPlanner {
+
+  static final String SCOPE_KEY = MigrationPlanner.class.getName();
+  private static final Logger LOGGER = LoggerFactory.getLogger(MigrationPlanner.class);
+  private final GuiceLiquibaseConfig config;
+  private final ChangeLogCache changeLogCache;
+
+  @Inject
+  MigrationPlanner(@GuiceLiquibaseConfiguration GuiceLiquibaseConfig config) {
+    this(config, ChangeLogCache.getInstance());
+  }
+
+  MigrationPlanner(GuiceLiquibaseConfig config, ChangeLogCache changeLogCache) {
+    this.config = checkNotNull(config, "config must be defined.");
+    this.changeLogCache = checkNotNull(changeLogCache, "changeLogCache must be defined.");
+  }
+
+  /**
+   * Checks if a plan is created in the current Liquibase <code>Scope</code>.
+   *
+   * @return true during planning
+   */
+  static boolean isPlanning() {
+    return Boolean.TRUE.equals(Scope.getCurrentScope().get(SCOPE_KEY, Boolean.class));
+  }
+
+  /**
+   * Plans all configs which should run, also lazy ones. Drop of configs with
+   * <code>dropFirst</code> is not planned.
+   *
+   * @param output   writer of generated SQL, which is flushed but not closed
+   * @param executor executor planning configs, e.g. a pool sized by the number of connections
+   *                 which can be used
+   * @return changesets which are not applied yet per config, keyed by
+   *     <code>path::id::author</code>
+   * @throws UnexpectedLiquibaseException when a config cannot be planned, after all configs
+   *                                      were planned
+   * @throws IllegalArgumentException     when executor is not direct and thread-local scopes are
+   *                                      not enabled in <code>GuiceLiquibaseConfig</code>
+   */
+  public Map<LiquibaseConfig, List<String>> plan(Writer output, Executor executor) {
+    checkNotNull(output, "output must be defined.");
+    checkNotNull(executor, "executor must be defined.");
+    if (executor != MoreExecutors.directExecutor()) {
+      checkArgument(config.isThreadLocalScopes(), "executor requires thread-local scopes.");
+      MigrationScheduler.useThreadLocalScopes();
+    }
+    Map<LiquibaseConfig, CompletableFuture<List<String>>> plans = Maps.newLinkedHashMap();
+    config.getConfigs().stream()
+        .filter(LiquibaseConfig::shouldRun)
+        .forEach(liquibaseConfig -> plans.put(liquibaseConfig, CompletableFuture.supplyAsync(
+            () -> plan(liquibaseConfig, output), executor)));
+    try {
+      CompletableFuture.allOf(plans.values().toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException exception) {
+      Throwable cause = MigrationScheduler.unwrap(exception);
+      throw cause instanceof UnexpectedLiquibaseException
+          ? (UnexpectedLiquibaseException) cause
+          : new UnexpectedLiquibaseException(cause);
+    }
+    ImmutableMap.Builder<LiquibaseConfig, List<String>> result = ImmutableMap.builder();
+    plans.forEach((liquibaseConfig, plan) -> result.put(liquibaseConfig, plan.join()));
+    return result.build();
+  }
+
+  private List<String> plan(LiquibaseConfig config, Writer output) {
+    DataSourceSessions sessions = new DataSourceSessions(Collections.singleton(config));
+    try {
+      Database database = sessions.getDatabase(config, MigrationDeadline.NONE, PhaseRecorder.NONE);
+      DatabaseChangeLog changeLog = changeLogCache.acquire(config, database);
+      StringWriter script = new StringWriter();
+      List<ChangeSet> changeSets;
+      try {
+        Liquibase liquibase = new Liquibase(changeLog, config.getResourceAccessor(), database);
+        config.getParameters().forEach(liquibase::setChangeLogParameter);
+        Contexts contexts = new Contexts(config.getContexts());
+        LabelExpression labels = new LabelExpression(config.getLabels());
+        changeSets = Scope.child(ImmutableMap.of(SCOPE_KEY, Boolean.TRUE), () -> {
+          List<ChangeSet> unrun = liquibase.listUnrunChangeSets(contexts, labels, false);
+          liquibase.update(contexts, labels, script);
+          return unrun;
+        });
+      } finally {
+        changeLogCache.release(config, database, changeLog);
+      }
+      synchronized (output) {
+        output.write(script.toString());
+        output.flush();
+      }
+      LOGGER.info("Planned {} changesets of {}", changeSets.size(), config.getChangeLogPath());
+      return changeSets.stream()
+          .map(ChangeSet::toString)
+          .collect(ImmutableList.toImmutableList());
+    } catch (RuntimeException exception) {
+      throw exception;
+    } catch (Exception exception) {
+      // Scope declares any exception, e.g. SQLException, LiquibaseException or IOException.
+      LOGGER.error("Cannot plan changes of {}.", config.getChangeLogPath(), exception);
+      throw new UnexpectedLiquibaseException(exception);
+    } finally {
+      sessions.release(config);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", MigrationPlanner.class.getSimpleName() + "[", "]")
+        .add("config=" + config)
+        .toString();
+  }
+}
@@ -0,0 +1,77 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Results of Liquibase updates for all configs, e.g. per tenant results of a fan-out created by
+ * {@link GuiceLiquibaseConfig.Builder#withTenants(LiquibaseConfig, Iterable)}.
+ *
+ * @since 0.1.2
+ */
+public final class MigrationReport {
+
+  private final Map<LiquibaseConfig, MigrationOutcome> outcomes;
+  private final Map<LiquibaseConfig, Throwable> failures;
+
+  MigrationReport(
+      Map<LiquibaseConfig, MigrationOutcome> outcomes, Map<LiquibaseConfig, Throwable> failures) {
+    this.outcomes = ImmutableMap.copyOf(outcomes);
+    this.failures = ImmutableMap.copyOf(failures);
+  }
+
+  /**
+   * Returns outcomes of successfully finished updates.
+   *
+   * @return outcomes of the configs in registration order
+   */
+  public Map<LiquibaseConfig, MigrationOutcome> getOutcomes() {
+    return outcomes;
+  }
+
+  /**
+   * Returns failures of the configs. Config is failed also when any of its dependencies failed.
+   *
+   * @return failures of the configs in registration order
+   */
+  public Map<LiquibaseConfig, Throwable> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Checks if all updates finished successfully.
+   *
+   * @return true when there are no failures
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    MigrationReport that = (MigrationReport) obj;
+    return Objects.equals(outcomes, that.outcomes)
+        && Objects.equals(failures, that.failures);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(outcomes, failures);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", MigrationReport.class.getSimpleName() + "[", "]")
+        .add("outcomes=" + outcomes)
+        .add("failures=" + failures)
+        .toString();
+  }
+}
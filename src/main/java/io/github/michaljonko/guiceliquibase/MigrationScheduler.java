@@ -0,0 +1,195 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import javax.sql.DataSource;
+import liquibase.Scope;
+import liquibase.ThreadLocalScopeManager;
+import liquibase.exception.UnexpectedLiquibaseException;
+
+/**
+ * Applies <code>LiquibaseConfig</code> objects on the executor. Each config is started when all
+ * its dependencies and the config registered before it for the same DataSource are applied.
+ * Lazy configs are started only when they are triggered, together with their prerequisites.
+ */
+final class MigrationScheduler {
+
+  private static final AtomicBoolean THREAD_LOCAL_SCOPES = new AtomicBoolean(false);
+  private final Executor executor;
+  private final Function<DataSource, String> hostResolver;
+  private final Map<String, Executor> hostExecutors;
+  private final int maxConcurrentPerHost;
+  private final AtomicReference<RuntimeException> failure;
+  private final Map<LiquibaseConfig, CompletableFuture<Void>> triggers;
+  private final Map<LiquibaseConfig, Collection<LiquibaseConfig>> prerequisites;
+
+  MigrationScheduler(Executor executor) {
+    this(executor, null, 0);
+  }
+
+  /**
+   * Creates scheduler limiting number of configs applied concurrently on a single host.
+   *
+   * @param executor             executor used to apply configs
+   * @param hostResolver         function returning host of the DataSource, null when there is no
+   *                             limit
+   * @param maxConcurrentPerHost maximum number of configs applied concurrently on a host
+   */
+  MigrationScheduler(
+      Executor executor, Function<DataSource, String> hostResolver, int maxConcurrentPerHost) {
+    this.executor = checkNotNull(executor, "executor must be defined.");
+    this.hostResolver = hostResolver;
+    this.hostExecutors = Maps.newHashMap();
+    this.maxConcurrentPerHost = maxConcurrentPerHost;
+    this.failure = new AtomicReference<>();
+    this.triggers = Maps.newHashMap();
+    this.prerequisites = Maps.newHashMap();
+  }
+
+  /**
+   * Schedules passed configs.
+   *
+   * @param configs configs in registration order
+   * @param task    action applying a single config
+   * @return futures of all configs in registration order
+   */
+  Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> schedule(
+      Collection<LiquibaseConfig> configs, Function<LiquibaseConfig, MigrationOutcome> task) {
+    Set<LiquibaseConfig> ordered = Sets.newLinkedHashSet();
+    configs.forEach(config -> addInDependencyOrder(config, ordered));
+
+    Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> futures = Maps.newHashMap();
+    Map<DataSource, LiquibaseConfig> lastForDataSource = Maps.newHashMap();
+    for (LiquibaseConfig config : ordered) {
+      Set<LiquibaseConfig> required = Sets.newLinkedHashSet(config.getDependencies());
+      LiquibaseConfig previous = lastForDataSource.put(config.getDataSource(), config);
+      if (previous != null) {
+        required.add(previous);
+      }
+      CompletableFuture<Void> trigger = new CompletableFuture<>();
+      CompletableFuture<MigrationOutcome> future = CompletableFuture.allOf(required.stream()
+              .map(futures::get)
+              .toArray(CompletableFuture<?>[]::new))
+          .thenCombine(trigger, (first, second) -> config)
+          .thenApplyAsync(current -> run(current, task), getExecutor(config));
+      futures.put(config, future);
+      synchronized (triggers) {
+        triggers.put(config, trigger);
+        prerequisites.put(config, required);
+      }
+    }
+    ordered.stream()
+        .filter(config -> !config.isLazy())
+        .forEach(this::trigger);
+
+    ImmutableMap.Builder<LiquibaseConfig, CompletableFuture<MigrationOutcome>> result =
+        ImmutableMap.builder();
+    configs.forEach(config -> result.put(config, futures.get(config)));
+    return result.build();
+  }
+
+  /**
+   * Starts the config scheduled as lazy together with all its prerequisites. Config which was
+   * already triggered is ignored.
+   *
+   * @param config scheduled config
+   */
+  void trigger(LiquibaseConfig config) {
+    CompletableFuture<Void> trigger;
+    Collection<LiquibaseConfig> required;
+    synchronized (triggers) {
+      trigger = triggers.get(config);
+      required = prerequisites.get(config);
+    }
+    if (trigger != null && !trigger.isDone()) {
+      required.forEach(this::trigger);
+      trigger.complete(null);
+    }
+  }
+
+  /**
+   * Checks whether the config was started, either as not lazy or by <code>trigger</code>.
+   *
+   * @param config scheduled config
+   * @return true when the config was started
+   */
+  boolean isTriggered(LiquibaseConfig config) {
+    synchronized (triggers) {
+      CompletableFuture<Void> trigger = triggers.get(config);
+      return trigger != null && trigger.isDone();
+    }
+  }
+
+  /**
+   * Waits for all passed futures and throws the first failure which occurred during applying
+   * a config.
+   *
+   * @param futures futures returned by <code>schedule</code>
+   * @throws RuntimeException the first failure which occurred
+   */
+  void await(Collection<CompletableFuture<MigrationOutcome>> futures) {
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException exception) {
+      RuntimeException cause = failure.get();
+      throw cause != null ? cause : new UnexpectedLiquibaseException(exception.getCause());
+    }
+  }
+
+  private Executor getExecutor(LiquibaseConfig config) {
+    if (hostResolver == null) {
+      return executor;
+    }
+    return hostExecutors.computeIfAbsent(
+        String.valueOf(hostResolver.apply(config.getDataSource())),
+        host -> new BoundedExecutor(executor, maxConcurrentPerHost));
+  }
+
+  private MigrationOutcome run(
+      LiquibaseConfig config, Function<LiquibaseConfig, MigrationOutcome> task) {
+    try {
+      return task.apply(config);
+    } catch (RuntimeException exception) {
+      failure.compareAndSet(null, exception);
+      throw exception;
+    }
+  }
+
+  /**
+   * Returns the failure which caused the future to complete exceptionally.
+   *
+   * @param failure failure passed to the future's callback
+   * @return failure without <code>CompletionException</code> wrapper
+   */
+  static Throwable unwrap(Throwable failure) {
+    return failure instanceof CompletionException && failure.getCause() != null
+        ? failure.getCause()
+        : failure;
+  }
+
+  static void useThreadLocalScopes() {
+    if (THREAD_LOCAL_SCOPES.compareAndSet(false, true)) {
+      // Liquibase keeps its scope in a single global field by default.
+      Scope.setScopeManager(new ThreadLocalScopeManager());
+    }
+  }
+
+  private static void addInDependencyOrder(LiquibaseConfig config, Set<LiquibaseConfig> ordered) {
+    if (!ordered.contains(config)) {
+      config.getDependencies().forEach(dependency -> addInDependencyOrder(dependency, ordered));
+      ordered.add(config);
+    }
+  }
+}
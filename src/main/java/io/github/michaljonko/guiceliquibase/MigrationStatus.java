@@ -0,0 +1,308 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.github.michaljonko.guiceliquibase.annotation.GuiceLiquibaseConfiguration;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import liquibase.changelog.ChangeSet;
+
+/**
+ * Live status of all configs of <code>GuiceLiquibaseModule</code>, e.g. for readiness probes.
+ * It is bound by the module, so it can be injected and read from any thread. Reads take no
+ * locks: status of every config is an immutable object replaced by the thread applying the
+ * config.
+ * <br>
+ * Config stays {@link State#PENDING} until it starts, so lazy configs which were not triggered
+ * and configs whose dependencies failed are pending.
+ *
+ * @since 0.1.2
+ */
+@Singleton
+public final class MigrationStatus implements MigrationListener {
+
+  private final Ticker ticker;
+  private final Set<LiquibaseConfig> readinessConfigs;
+  private final Map<LiquibaseConfig, Progress> progresses;
+
+  @Inject
+  MigrationStatus(@GuiceLiquibaseConfiguration GuiceLiquibaseConfig config) {
+    this(config.getConfigs(), Ticker.systemTicker());
+  }
+
+  MigrationStatus(Collection<LiquibaseConfig> configs, Ticker ticker) {
+    this.ticker = checkNotNull(ticker, "ticker must be defined.");
+    this.readinessConfigs = configs.stream()
+        .filter(config -> !config.isLazy())
+        .collect(ImmutableSet.toImmutableSet());
+    this.progresses = new ConcurrentHashMap<>();
+    configs.forEach(config -> progresses.put(config, Progress.PENDING));
+  }
+
+  @Override
+  public void migrationStarted(LiquibaseConfig config) {
+    long now = ticker.read();
+    progresses.compute(config, (key, progress) -> new Progress(State.RUNNING, null, null, 0, 0,
+        now, now, progress != null && progress.ready));
+  }
+
+  @Override
+  public void changeLogParsed(LiquibaseConfig config, int changeSets) {
+    progresses.computeIfPresent(config, (key, progress) -> new Progress(progress.state,
+        progress.outcome, progress.failure, progress.appliedChangeSets, changeSets,
+        progress.startNanos, progress.endNanos, progress.ready));
+  }
+
+  @Override
+  public void changeSetExecuted(LiquibaseConfig config, ChangeSet changeSet, Duration duration) {
+    progresses.computeIfPresent(config, (key, progress) -> new Progress(progress.state,
+        progress.outcome, progress.failure, progress.appliedChangeSets + 1,
+        progress.totalChangeSets, progress.startNanos, progress.endNanos, progress.ready));
+  }
+
+  @Override
+  public void migrationFinished(LiquibaseConfig config, MigrationOutcome outcome,
+      int appliedChangeSets, int skippedChangeSets) {
+    long now = ticker.read();
+    progresses.compute(config, (key, progress) -> new Progress(State.DONE, outcome, null,
+        appliedChangeSets, appliedChangeSets + skippedChangeSets,
+        isStarted(progress) ? progress.startNanos : now, now, true));
+  }
+
+  @Override
+  public void migrationFailed(LiquibaseConfig config, Throwable failure) {
+    long now = ticker.read();
+    progresses.compute(config, (key, progress) -> isStarted(progress)
+        ? new Progress(State.FAILED, null, failure, progress.appliedChangeSets,
+            progress.totalChangeSets, progress.startNanos, now, false)
+        : new Progress(State.FAILED, null, failure, 0, 0, now, now, false));
+  }
+
+  /**
+   * Checks if all configs which are not lazy were applied. Config with critical labels is ready
+   * when its critical changesets were applied, also when its deferred update is running.
+   *
+   * @return true when schema is ready
+   */
+  public boolean isReady() {
+    return readinessConfigs.stream()
+        .map(progresses::get)
+        .allMatch(progress -> progress.ready && progress.state != State.FAILED);
+  }
+
+  /**
+   * Returns current status of the config.
+   *
+   * @param config config of the module
+   * @return status of the config or empty Optional for unknown config
+   */
+  public Optional<ConfigStatus> getStatus(LiquibaseConfig config) {
+    return Optional.ofNullable(progresses.get(config)).map(this::toStatus);
+  }
+
+  /**
+   * Returns current status of all configs.
+   *
+   * @return immutable statuses per config
+   */
+  public Map<LiquibaseConfig, ConfigStatus> getStatuses() {
+    ImmutableMap.Builder<LiquibaseConfig, ConfigStatus> statuses = ImmutableMap.builder();
+    progresses.forEach((config, progress) -> statuses.put(config, toStatus(progress)));
+    return statuses.build();
+  }
+
+  private ConfigStatus toStatus(Progress progress) {
+    long endNanos = progress.state == State.RUNNING ? ticker.read() : progress.endNanos;
+    return new ConfigStatus(progress.state, progress.outcome, progress.failure,
+        progress.appliedChangeSets, progress.totalChangeSets,
+        Duration.ofNanos(endNanos - progress.startNanos));
+  }
+
+  private static boolean isStarted(Progress progress) {
+    return progress != null && progress.state != State.PENDING;
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", MigrationStatus.class.getSimpleName() + "[", "]")
+        .add("configs=" + progresses.size())
+        .add("ready=" + isReady())
+        .toString();
+  }
+
+  /**
+   * State of a single config.
+   *
+   * @since 0.1.2
+   */
+  public enum State {
+    /**
+     * Config was not started yet.
+     */
+    PENDING,
+    /**
+     * Config is being applied, also by its deferred update.
+     */
+    RUNNING,
+    /**
+     * Config finished with a <code>MigrationOutcome</code>.
+     */
+    DONE,
+    /**
+     * Applying the config failed.
+     */
+    FAILED
+  }
+
+  private static final class Progress {
+
+    private static final Progress PENDING = new Progress(State.PENDING, null, null, 0, 0, 0, 0,
+        false);
+    private final State state;
+    private final MigrationOutcome outcome;
+    private final Throwable failure;
+    private final int appliedChangeSets;
+    private final int totalChangeSets;
+    private final long startNanos;
+    private final long endNanos;
+    private final boolean ready;
+
+    private Progress(State state, MigrationOutcome outcome, Throwable failure,
+        int appliedChangeSets, int totalChangeSets, long startNanos, long endNanos,
+        boolean ready) {
+      this.state = state;
+      this.outcome = outcome;
+      this.failure = failure;
+      this.appliedChangeSets = appliedChangeSets;
+      this.totalChangeSets = totalChangeSets;
+      this.startNanos = startNanos;
+      this.endNanos = endNanos;
+      this.ready = ready;
+    }
+  }
+
+  /**
+   * Status of a single config at the time it was read.
+   *
+   * @since 0.1.2
+   */
+  public static final class ConfigStatus {
+
+    private final State state;
+    private final MigrationOutcome outcome;
+    private final Throwable failure;
+    private final int appliedChangeSets;
+    private final int totalChangeSets;
+    private final Duration elapsed;
+
+    ConfigStatus(State state, MigrationOutcome outcome, Throwable failure,
+        int appliedChangeSets, int totalChangeSets, Duration elapsed) {
+      this.state = state;
+      this.outcome = outcome;
+      this.failure = failure;
+      this.appliedChangeSets = appliedChangeSets;
+      this.totalChangeSets = totalChangeSets;
+      this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns state of the config.
+     *
+     * @return current state
+     */
+    public State getState() {
+      return state;
+    }
+
+    /**
+     * Returns outcome of the config.
+     *
+     * @return outcome when state is {@link State#DONE}, otherwise empty Optional
+     */
+    public Optional<MigrationOutcome> getOutcome() {
+      return Optional.ofNullable(outcome);
+    }
+
+    /**
+     * Returns failure of the config.
+     *
+     * @return failure when state is {@link State#FAILED}, otherwise empty Optional
+     */
+    public Optional<Throwable> getFailure() {
+      return Optional.ofNullable(failure);
+    }
+
+    /**
+     * Returns number of changesets executed by the current update.
+     *
+     * @return number of executed changesets
+     */
+    public int getAppliedChangeSets() {
+      return appliedChangeSets;
+    }
+
+    /**
+     * Returns number of changesets in the changelog, including the ones which were already
+     * applied or are filtered out.
+     *
+     * @return number of changesets, zero before the changelog is parsed
+     */
+    public int getTotalChangeSets() {
+      return totalChangeSets;
+    }
+
+    /**
+     * Returns time of applying the config, growing while it is running.
+     *
+     * @return elapsed time, zero for pending config
+     */
+    public Duration getElapsed() {
+      return elapsed;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      ConfigStatus that = (ConfigStatus) obj;
+      return appliedChangeSets == that.appliedChangeSets
+          && totalChangeSets == that.totalChangeSets
+          && state == that.state
+          && outcome == that.outcome
+          && Objects.equals(failure, that.failure)
+          && Objects.equals(elapsed, that.elapsed);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(state, outcome, failure, appliedChangeSets, totalChangeSets, elapsed);
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", ConfigStatus.class.getSimpleName() + "[", "]")
+          .add("state=" + state)
+          .add("outcome=" + outcome)
+          .add("failure=" + failure)
+          .add("appliedChangeSets=" + appliedChangeSets)
+          .add("totalChangeSets=" + totalChangeSets)
+          .add("elapsed=" + elapsed)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package io.github.michaljonko.guiceliquibase;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import liquibase.Scope;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.changelog.visitor.AbstractChangeExecListener;
+import liquibase.changelog.visitor.ChangeExecListener;
+import liquibase.database.Database;
+import liquibase.exception.LiquibaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies <code>MigrationListener</code> objects about phases of applying a single config.
+ * Recorder is kept in Liquibase <code>Scope</code> during the update, so Liquibase services can
+ * report phases executed inside Liquibase.
+ */
+final class PhaseRecorder {
+
+  static final String SCOPE_KEY = PhaseRecorder.class.getName();
+  static final PhaseRecorder NONE = new PhaseRecorder(null, ImmutableList.of());
+  private static final Logger LOGGER = LoggerFactory.getLogger(PhaseRecorder.class);
+  private final LiquibaseConfig config;
+  private final List<MigrationListener> listeners;
+  private int appliedChangeSets;
+
+  PhaseRecorder(LiquibaseConfig config, Collection<MigrationListener> listeners) {
+    this.config = config;
+    this.listeners = ImmutableList.copyOf(listeners);
+  }
+
+  /**
+   * Returns recorder of the config applied in the current Liquibase <code>Scope</code>.
+   *
+   * @return recorder of the current config or recorder without listeners
+   */
+  static PhaseRecorder current() {
+    PhaseRecorder recorder = Scope.getCurrentScope().get(SCOPE_KEY, PhaseRecorder.class);
+    return recorder != null ? recorder : NONE;
+  }
+
+  /**
+   * Checks if the current Liquibase <code>Scope</code> applies a config of the module. Liquibase
+   * services replaced by the module behave like the standard ones outside of it.
+   *
+   * @return true when a config is applied in the current scope
+   */
+  static boolean isInScope() {
+    return Scope.getCurrentScope().get(SCOPE_KEY, PhaseRecorder.class) != null;
+  }
+
+  /**
+   * Executes the action and reports its duration as the phase.
+   *
+   * @param phase  reported phase
+   * @param action action of the phase
+   * @param <T>    type of the result
+   * @param <E>    type of the exception thrown by the action
+   * @return result of the action
+   * @throws E when the action failed
+   */
+  <T, E extends Exception> T record(MigrationPhase phase, PhaseAction<T, E> action) throws E {
+    if (listeners.isEmpty()) {
+      return action.run();
+    }
+    notifyListeners(listener -> listener.phaseStarted(config, phase));
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try {
+      return action.run();
+    } finally {
+      Duration duration = stopwatch.elapsed();
+      notifyListeners(listener -> listener.phaseFinished(config, phase, duration));
+    }
+  }
+
+  /**
+   * Executes the action with this recorder and passed values kept in Liquibase
+   * <code>Scope</code>.
+   *
+   * @param scopeValues additional values of the scope
+   * @param action      action executing Liquibase
+   * @param <T>         type of the result
+   * @return result of the action
+   * @throws LiquibaseException when the action failed
+   */
+  <T> T runInScope(Map<String, Object> scopeValues, PhaseAction<T, LiquibaseException> action)
+      throws LiquibaseException {
+    Map<String, Object> values = Maps.newHashMap(scopeValues);
+    values.put(SCOPE_KEY, this);
+    try {
+      return Scope.child(values, action::run);
+    } catch (LiquibaseException exception) {
+      throw exception;
+    } catch (Exception exception) {
+      throw new LiquibaseException(exception);
+    }
+  }
+
+  /**
+   * Creates Liquibase listener reporting execution times of changesets. It also stops the
+   * update before the next changeset when deadline of the config passed.
+   *
+   * @return listener for a single Liquibase update
+   */
+  ChangeExecListener createChangeExecListener() {
+    return new AbstractChangeExecListener() {
+      private final Stopwatch stopwatch = Stopwatch.createUnstarted();
+
+      @Override
+      public void willRun(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog,
+          Database database, ChangeSet.RunStatus runStatus) {
+        MigrationDeadline.current().check();
+        notifyListeners(listener -> listener.changeSetStarted(config, changeSet));
+        stopwatch.reset().start();
+      }
+
+      @Override
+      public void ran(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog,
+          Database database, ChangeSet.ExecType execType) {
+        if (execType == ChangeSet.ExecType.EXECUTED || execType == ChangeSet.ExecType.RERAN) {
+          appliedChangeSets++;
+          Duration duration = stopwatch.elapsed();
+          notifyListeners(listener -> listener.changeSetExecuted(config, changeSet, duration));
+        }
+      }
+    };
+  }
+
+  void started() {
+    notifyListeners(listener -> listener.migrationStarted(config));
+  }
+
+  void parsed(int changeSets) {
+    notifyListeners(listener -> listener.changeLogParsed(config, changeSets));
+  }
+
+  void finished(MigrationOutcome outcome, int totalChangeSets) {
+    notifyListeners(listener -> listener.migrationFinished(
+        config, outcome, appliedChangeSets, Math.max(totalChangeSets - appliedChangeSets, 0)));
+  }
+
+  void failed(Throwable failure) {
+    notifyListeners(listener -> listener.migrationFailed(config, failure));
+  }
+
+  private void notifyListeners(Consumer<MigrationListener> notification) {
+    for (MigrationListener listener : listeners) {
+      try {
+        notification.accept(listener);
+      } catch (RuntimeException exception) {
+        LOGGER.warn("MigrationListener {} failed.", listener, exception);
+      }
+    }
+  }
+
+  /**
+   * Action of a recorded phase.
+   *
+   * @param <T> type of the result
+   * @param <E> type of the exception thrown by the action
+   */
+  @FunctionalInterface
+  interface PhaseAction<T, E extends Exception> {
+
+    T run() throws E;
+  }
+}
@@ -0,0 +1,49 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import liquibase.change.CheckSum;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.ParsedNodeException;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Changelog loaded from {@link ChangeLogArchive}. Its changesets use checksums computed at build
+ * time when the archive contains them.
+ */
+final class PrecompiledChangeLog extends DatabaseChangeLog {
+
+  private final ChangeLogArchive archive;
+
+  PrecompiledChangeLog(String physicalFilePath, ChangeLogArchive archive) {
+    super(physicalFilePath);
+    this.archive = checkNotNull(archive, "archive must be defined.");
+  }
+
+  @Override
+  protected ChangeSet createChangeSet(ParsedNode node, ResourceAccessor resourceAccessor)
+      throws ParsedNodeException {
+    ChangeSet changeSet = new PrecompiledChangeSet(this);
+    changeSet.setChangeLogParameters(getChangeLogParameters());
+    changeSet.load(node, resourceAccessor);
+    return changeSet;
+  }
+
+  private final class PrecompiledChangeSet extends ChangeSet {
+
+    private PrecompiledChangeSet(DatabaseChangeLog changeLog) {
+      super(changeLog);
+    }
+
+    @Override
+    public CheckSum generateCheckSum() {
+      if (checkSum == null) {
+        checkSum = archive.getCheckSum(
+            getChangeLog().getPhysicalFilePath(), getId(), getAuthor()).orElse(null);
+      }
+      return super.generateCheckSum();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package io.github.michaljonko.guiceliquibase;
+
+import liquibase.Scope;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.exception.ChangeLogParseException;
+import liquibase.parser.ChangeLogParser;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Liquibase <code>ChangeLogParser</code> which loads changelog files from {@link ChangeLogArchive}
+ * instead of parsing them. It is registered through <code>META-INF/services</code> and supports
+ * only files contained in the archive put into Liquibase scope by <code>ChangeLogCache</code>, so
+ * includes of a precompiled changelog are loaded from the archive as well.
+ *
+ * @since 0.1.2
+ */
+public final class PrecompiledChangeLogParser implements ChangeLogParser {
+
+  @Override
+  public int getPriority() {
+    return PRIORITY_DEFAULT + 1;
+  }
+
+  @Override
+  public boolean supports(String changeLogFile, ResourceAccessor resourceAccessor) {
+    ChangeLogArchive archive = currentArchive();
+    return archive != null && archive.contains(changeLogFile);
+  }
+
+  @Override
+  public DatabaseChangeLog parse(String physicalChangeLogLocation,
+      ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor)
+      throws ChangeLogParseException {
+    ChangeLogArchive archive = currentArchive();
+    if (archive == null) {
+      throw new ChangeLogParseException("There is no precompiled changelog in the scope.");
+    }
+    PrecompiledChangeLog changeLog = new PrecompiledChangeLog(
+        DatabaseChangeLog.normalizePath(physicalChangeLogLocation), archive);
+    changeLog.setChangeLogParameters(changeLogParameters);
+    try {
+      changeLog.load(archive.getNode(physicalChangeLogLocation), resourceAccessor);
+    } catch (Exception exception) {
+      throw new ChangeLogParseException(exception);
+    }
+    return changeLog;
+  }
+
+  private static ChangeLogArchive currentArchive() {
+    return Scope.getCurrentScope().get(ChangeLogArchive.SCOPE_KEY, ChangeLogArchive.class);
+  }
+}
@@ -0,0 +1,95 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Maps;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build time tool which packs resource directories into a single archive read by
+ * {@link MappedArchiveResourceAccessor}. Paths of resources are relative to their directory, so
+ * they match classpath paths when resource roots are packed. When a path exists in many
+ * directories, the first directory wins.
+ * <br>
+ * Usage: <code>ResourceArchiveWriter outputFile resourceDirectory...</code>.
+ *
+ * @since 0.1.2
+ */
+public final class ResourceArchiveWriter {
+
+  private ResourceArchiveWriter() {
+  }
+
+  /**
+   * Packs resource directories from the command line.
+   *
+   * @param args output file and resource directories
+   * @throws IOException when archive cannot be written
+   */
+  public static void main(String... args) throws IOException {
+    checkArgument(args.length >= 2, "Usage: ResourceArchiveWriter outputFile resourceDirectory...");
+    write(Paths.get(args[0]), Arrays.stream(args, 1, args.length)
+        .map(Paths::get)
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * Writes all regular files of passed directories into the archive.
+   *
+   * @param output      archive file, which is replaced when it exists
+   * @param directories resource directories
+   * @throws IOException              when directories cannot be read or archive written
+   * @throws IllegalArgumentException when resources exceed 2 GB
+   */
+  public static void write(Path output, Collection<Path> directories) throws IOException {
+    checkNotNull(output, "output must be defined.");
+    checkNotNull(directories, "directories must be defined.");
+    SortedMap<String, Path> files = Maps.newTreeMap();
+    for (Path directory : directories) {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        paths.filter(Files::isRegularFile).forEach(file -> files.putIfAbsent(
+            directory.relativize(file).toString().replace('\\', '/'), file));
+      }
+    }
+
+    long offset = 12;
+    for (String name : files.keySet()) {
+      offset += 12 + name.getBytes(StandardCharsets.UTF_8).length;
+    }
+    if (output.toAbsolutePath().getParent() != null) {
+      Files.createDirectories(output.toAbsolutePath().getParent());
+    }
+    try (DataOutputStream archive = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(output)))) {
+      archive.writeInt(MappedArchiveResourceAccessor.MAGIC);
+      archive.writeInt(MappedArchiveResourceAccessor.FORMAT_VERSION);
+      archive.writeInt(files.size());
+      for (Map.Entry<String, Path> file : files.entrySet()) {
+        long length = Files.size(file.getValue());
+        checkArgument(offset + length <= Integer.MAX_VALUE, "resources exceed 2 GB.");
+        byte[] name = file.getKey().getBytes(StandardCharsets.UTF_8);
+        archive.writeInt(name.length);
+        archive.write(name);
+        archive.writeInt((int) offset);
+        archive.writeInt((int) length);
+        offset += length;
+      }
+      for (Path file : files.values()) {
+        Files.copy(file, archive);
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+import com.google.common.collect.ImmutableList;
+import com.jparams.verifier.tostring.NameStyle;
+import com.jparams.verifier.tostring.ToStringVerifier;
+import io.github.michaljonko.guiceliquibase.BaselineSnapshot.Builder;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+class BaselineSnapshotTest {
+
+  @Test
+  void shouldCreateBaselineSnapshot() {
+    BaselineSnapshot baseline = Builder.of("baseline.sql")
+        .withChangeSet("changeLog.xml::1::tester")
+        .withChangeSets(ImmutableList.of("changeLog.xml::2::tester", "changeLog.xml::1::tester"))
+        .build();
+
+    assertThat(baseline.getScriptPath())
+        .isEqualTo("baseline.sql");
+    assertThat(baseline.getChangeSets())
+        .containsExactly("changeLog.xml::1::tester", "changeLog.xml::2::tester");
+  }
+
+  @Test
+  void shouldFailOnInvalidProperties() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of(""));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of("baseline.sql").withChangeSet(null));
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of("baseline.sql").withChangeSets(null));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of("baseline.sql").build());
+  }
+
+  @Test
+  void shouldPassEqualsAndHashCodeContracts() {
+    EqualsVerifier.forClass(BaselineSnapshot.class)
+        .usingGetClass()
+        .verify();
+  }
+
+  @Test
+  void verifyToString() {
+    ToStringVerifier.forClass(BaselineSnapshot.class)
+        .withClassName(NameStyle.SIMPLE_NAME).verify();
+  }
+}
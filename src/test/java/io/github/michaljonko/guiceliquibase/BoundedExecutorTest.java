@@ -0,0 +1,68 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BoundedExecutorTest {
+
+  @Test
+  void shouldRunAtMostLimitTasksConcurrently() throws Exception {
+    ExecutorService delegate = Executors.newFixedThreadPool(8);
+    BoundedExecutor executor = new BoundedExecutor(delegate, 2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch finished = new CountDownLatch(20);
+    try {
+      for (int i = 0; i < 20; i++) {
+        executor.execute(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          sleep();
+          running.decrementAndGet();
+          finished.countDown();
+        });
+      }
+
+      assertThat(finished.await(10, TimeUnit.SECONDS))
+          .isTrue();
+      assertThat(maxRunning.get())
+          .isEqualTo(2);
+    } finally {
+      delegate.shutdown();
+    }
+  }
+
+  @Test
+  void shouldRunTasksOnDirectExecutor() {
+    AtomicInteger counter = new AtomicInteger();
+    BoundedExecutor executor = new BoundedExecutor(MoreExecutors.directExecutor(), 1);
+
+    executor.execute(counter::incrementAndGet);
+    executor.execute(counter::incrementAndGet);
+
+    assertThat(counter.get())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void shouldThrowExceptionForNotPositiveLimit() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new BoundedExecutor(MoreExecutors.directExecutor(), 0))
+        .withMessageContaining("limit must be positive.");
+  }
+
+  private static void sleep() {
+    try {
+      TimeUnit.MILLISECONDS.sleep(10);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingResourceAccessorTest {
+
+  private static final String CHANGELOG_PATH = "liquibase/changeLog.xml";
+  private ResourceAccessor delegate;
+
+  @BeforeEach
+  void setUp() {
+    delegate = spy(new ClassLoaderResourceAccessor(getClass().getClassLoader()));
+  }
+
+  @Test
+  void shouldSearchDirectoryOnce() throws Exception {
+    CachingResourceAccessor resourceAccessor = new CachingResourceAccessor(delegate);
+
+    assertThat(resourceAccessor.search("liquibase", true))
+        .extracting(Resource::getPath)
+        .contains(CHANGELOG_PATH, "liquibase/changeLogMulti.xml");
+    assertThat(resourceAccessor.search("liquibase", false))
+        .extracting(Resource::getPath)
+        .contains(CHANGELOG_PATH, "liquibase/changeLogMulti.xml");
+    verify(delegate, times(1)).search("liquibase", true);
+  }
+
+  @Test
+  void shouldKeepSmallResourcesInMemory() throws Exception {
+    CachingResourceAccessor resourceAccessor = new CachingResourceAccessor(delegate);
+    byte[] expected = read(
+        new ClassLoaderResourceAccessor(getClass().getClassLoader()).get(CHANGELOG_PATH));
+
+    assertThat(read(resourceAccessor.get(CHANGELOG_PATH)))
+        .isEqualTo(expected);
+    assertThat(read(resourceAccessor.getExisting(CHANGELOG_PATH)))
+        .isEqualTo(expected);
+    assertThat(resourceAccessor.cachedBytes())
+        .isEqualTo(expected.length);
+    verify(delegate, times(1)).getAll(CHANGELOG_PATH);
+  }
+
+  @Test
+  void shouldReadLargeResourcesFromDelegate() throws Exception {
+    CachingResourceAccessor resourceAccessor = new CachingResourceAccessor(delegate, 16, 1024);
+
+    assertThat(read(resourceAccessor.get(CHANGELOG_PATH)))
+        .isEqualTo(read(delegate.get(CHANGELOG_PATH)));
+    assertThat(resourceAccessor.cachedBytes())
+        .isZero();
+  }
+
+  @Test
+  void shouldResolveSiblingsThroughCache() throws Exception {
+    CachingResourceAccessor resourceAccessor = new CachingResourceAccessor(delegate);
+
+    Resource sibling = resourceAccessor.get(CHANGELOG_PATH).resolveSibling("changeLogMulti.xml");
+
+    assertThat(sibling.exists())
+        .isTrue();
+    assertThat(resourceAccessor.get("liquibase/changeLogMulti.xml"))
+        .isSameAs(sibling);
+  }
+
+  @Test
+  void shouldThrowExceptionForInvalidArguments() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> new CachingResourceAccessor(null))
+        .withMessageContaining("delegate must be defined.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new CachingResourceAccessor(delegate, -1, 0))
+        .withMessageContaining("maxResourceBytes must be positive.");
+  }
+
+  private static byte[] read(Resource resource) throws IOException {
+    try (InputStream inputStream = resource.openInputStream()) {
+      return ByteStreams.toByteArray(inputStream);
+    }
+  }
+}
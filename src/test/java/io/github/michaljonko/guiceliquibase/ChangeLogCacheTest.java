@@ -0,0 +1,160 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.CompositeResourceAccessor;
+import liquibase.resource.DirectoryResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChangeLogCacheTest {
+
+  private Database firstDatabase;
+  private Database secondDatabase;
+
+  @BeforeAll
+  static void beforeClass() throws ClassNotFoundException {
+    Class.forName("org.hsqldb.jdbc.JDBCDriver");
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    firstDatabase = createDatabase();
+    secondDatabase = createDatabase();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    firstDatabase.close();
+    secondDatabase.close();
+  }
+
+  @Test
+  void shouldReuseChangeLogForConfigsDifferingOnlyInDataSource() throws Exception {
+    ChangeLogCache cache = new ChangeLogCache(10);
+    LiquibaseConfig firstConfig = LiquibaseConfig.Builder.of(createJdbcDataSource()).build();
+    LiquibaseConfig secondConfig = LiquibaseConfig.Builder.of(createJdbcDataSource())
+        .withResourceAccessor(firstConfig.getResourceAccessor())
+        .build();
+
+    DatabaseChangeLog changeLog = cache.acquire(firstConfig, firstDatabase);
+    cache.release(firstConfig, firstDatabase, changeLog);
+
+    assertThat(cache.acquire(secondConfig, secondDatabase))
+        .isSameAs(changeLog);
+    assertThat(cache.size())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void shouldParseChangeLogForConcurrentUpdates() throws Exception {
+    ChangeLogCache cache = new ChangeLogCache(10);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(createJdbcDataSource()).build();
+
+    DatabaseChangeLog first = cache.acquire(config, firstDatabase);
+    DatabaseChangeLog second = cache.acquire(config, firstDatabase);
+
+    assertThat(first)
+        .isNotSameAs(second);
+    assertThat(first.getChangeSets())
+        .hasSameSizeAs(second.getChangeSets());
+  }
+
+  @Test
+  void shouldParseChangeLogForDifferentParameters() throws Exception {
+    ChangeLogCache cache = new ChangeLogCache(10);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(createJdbcDataSource()).build();
+    LiquibaseConfig otherConfig = LiquibaseConfig.Builder.of(config.getDataSource())
+        .withResourceAccessor(config.getResourceAccessor())
+        .withParameter("key", "value")
+        .build();
+
+    DatabaseChangeLog changeLog = cache.acquire(config, firstDatabase);
+    cache.release(config, firstDatabase, changeLog);
+
+    assertThat(cache.acquire(otherConfig, firstDatabase))
+        .isNotSameAs(changeLog);
+    assertThat(cache.size())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void shouldLoadChangeLogFromPrecompiledArchive(@TempDir Path directory) throws Exception {
+    String changeLogPath = "liquibase/precompiled/rootChangeLog.xml";
+    ResourceAccessor resourceAccessor = new CompositeResourceAccessor(
+        new ClassLoaderResourceAccessor(getClass().getClassLoader()),
+        new DirectoryResourceAccessor(directory));
+    try (OutputStream outputStream = Files.newOutputStream(directory.resolve("changeLog.glc"))) {
+      ChangeLogPrecompiler.precompile(changeLogPath, resourceAccessor, outputStream);
+    }
+    LiquibaseConfig parsedConfig = LiquibaseConfig.Builder.of(createJdbcDataSource())
+        .withChangeLogPath(changeLogPath)
+        .withResourceAccessor(resourceAccessor)
+        .withParameter("tableName", "parameter_table")
+        .build();
+    LiquibaseConfig precompiledConfig = LiquibaseConfig.Builder.of(parsedConfig.getDataSource())
+        .withChangeLogPath(changeLogPath)
+        .withResourceAccessor(resourceAccessor)
+        .withParameter("tableName", "parameter_table")
+        .withPrecompiledChangeLog("changeLog.glc")
+        .build();
+    ChangeLogCache cache = new ChangeLogCache(10);
+
+    DatabaseChangeLog parsed = cache.acquire(parsedConfig, firstDatabase);
+    DatabaseChangeLog precompiled = cache.acquire(precompiledConfig, firstDatabase);
+
+    assertThat(precompiled)
+        .isInstanceOf(PrecompiledChangeLog.class);
+    assertThat(precompiled.getChangeSets())
+        .extracting(ChangeSet::generateCheckSum)
+        .containsExactlyElementsOf(parsed.getChangeSets().stream()
+            .map(ChangeSet::generateCheckSum)
+            .collect(Collectors.toList()));
+    assertThat(cache.size())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void shouldThrowExceptionForMissingChangeLog() {
+    ChangeLogCache cache = new ChangeLogCache(10);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(createJdbcDataSource())
+        .withChangeLogPath("liquibase/missing.xml")
+        .build();
+
+    assertThatExceptionOfType(LiquibaseException.class)
+        .isThrownBy(() -> cache.acquire(config, firstDatabase));
+  }
+
+  private static Database createDatabase() throws Exception {
+    Connection connection = createJdbcDataSource().getConnection();
+    return DatabaseFactory.getInstance()
+        .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+  }
+
+  private static DataSource createJdbcDataSource() {
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setDatabase("jdbc:hsqldb:mem:" + UUID.randomUUID());
+    dataSource.setUser("SA");
+    return dataSource;
+  }
+}
@@ -0,0 +1,158 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import javax.sql.DataSource;
+import liquibase.resource.DirectoryResourceAccessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChangeLogFingerprintTest {
+
+  private static final DataSource DATA_SOURCE = mock(DataSource.class);
+
+  @Test
+  void shouldComputeSameFingerprintForSameConfig() {
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE).build()))
+        .hasValueSatisfying(fingerprint -> assertThat(fingerprint).hasSize(64))
+        .isEqualTo(ChangeLogFingerprint.of(
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build()));
+  }
+
+  @Test
+  void shouldComputeDifferentFingerprintForDifferentSettings() {
+    Optional<String> fingerprint =
+        ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE).build());
+
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withChangeLogPath("liquibase/changeLogMulti.xml")
+        .build()))
+        .isNotEqualTo(fingerprint);
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withContext("context")
+        .build()))
+        .isNotEqualTo(fingerprint);
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withLabel("label")
+        .build()))
+        .isNotEqualTo(fingerprint);
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withParameter("key", "value")
+        .build()))
+        .isNotEqualTo(fingerprint);
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withBaseline(BaselineSnapshot.Builder.of("liquibase/baseline/baseline.sql")
+            .withChangeSet("liquibase/changeLog.xml::1::tester")
+            .build())
+        .build()))
+        .isPresent()
+        .isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  void shouldKeyStoredFingerprintByChangeLogPathAndSettings() {
+    String key = ChangeLogFingerprint.configKey(LiquibaseConfig.Builder.of(DATA_SOURCE).build());
+
+    assertThat(key)
+        .startsWith("liquibase/changeLog.xml#")
+        .isEqualTo(ChangeLogFingerprint.configKey(
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build()));
+    assertThat(ChangeLogFingerprint.configKey(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withContext("context")
+        .build()))
+        .startsWith("liquibase/changeLog.xml#")
+        .isNotEqualTo(key);
+  }
+
+  @Test
+  void shouldCoverIncludedFilesOutsideDirectoryOfRootChangeLog(@TempDir Path directory)
+      throws Exception {
+    Files.createDirectories(directory.resolve("other"));
+    Files.createDirectories(directory.resolve("sql"));
+    write(directory.resolve("rootChangeLog.xml"), "<include file=\"other/changeLog.xml\"/>");
+    write(directory.resolve("other/changeLog.xml"), "<changeSet id=\"1\" author=\"tester\">"
+        + "<sqlFile path=\"sql/table.sql\"/></changeSet>");
+    Files.write(directory.resolve("sql/table.sql"),
+        "CREATE TABLE first_table (id INT);".getBytes(StandardCharsets.UTF_8));
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withChangeLogPath("rootChangeLog.xml")
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .build();
+    Optional<String> fingerprint = ChangeLogFingerprint.of(config);
+
+    Files.write(directory.resolve("sql/table.sql"),
+        "CREATE TABLE second_table (id INT);".getBytes(StandardCharsets.UTF_8));
+    Optional<String> changedSqlFingerprint = ChangeLogFingerprint.of(config);
+    write(directory.resolve("other/changeLog.xml"), "<changeSet id=\"1\" author=\"tester\">"
+        + "<sqlFile path=\"sql/table.sql\"/></changeSet><changeSet id=\"2\" author=\"tester\">"
+        + "<sql>SELECT 1 FROM (VALUES(0))</sql></changeSet>");
+
+    assertThat(fingerprint)
+        .isPresent()
+        .isNotEqualTo(changedSqlFingerprint);
+    assertThat(ChangeLogFingerprint.of(config))
+        .isPresent()
+        .isNotEqualTo(changedSqlFingerprint);
+  }
+
+  @Test
+  void shouldCoverRelativeReferencesWithoutParsingChangeLog(@TempDir Path directory)
+      throws Exception {
+    Files.createDirectories(directory.resolve("db/data"));
+    // Liquibase cannot parse the unknown change, so the fingerprint does not parse changelogs.
+    write(directory.resolve("rootChangeLog.xml"),
+        "<include file=\"db/changeLog.yaml\" relativeToChangelogFile=\"true\"/>"
+            + "<changeSet id=\"1\" author=\"tester\"><unknownChange/></changeSet>");
+    Files.write(directory.resolve("db/changeLog.yaml"), ("databaseChangeLog:\n"
+        + "  - changeSet:\n"
+        + "      id: 2\n"
+        + "      author: tester\n"
+        + "      changes:\n"
+        + "        - loadData:\n"
+        + "            tableName: first_table\n"
+        + "            file: data/${file}.csv\n"
+        + "            relativeToChangelogFile: true\n").getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("db/data/rows.csv"),
+        "id\n1\n".getBytes(StandardCharsets.UTF_8));
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withChangeLogPath("rootChangeLog.xml")
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .withParameter("file", "rows")
+        .build();
+    Optional<String> fingerprint = ChangeLogFingerprint.of(config);
+
+    Files.write(directory.resolve("db/data/rows.csv"),
+        "id\n2\n".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(fingerprint)
+        .isPresent()
+        .isNotEqualTo(ChangeLogFingerprint.of(config));
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withChangeLogPath("rootChangeLog.xml")
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .build()))
+        .isEmpty();
+  }
+
+  @Test
+  void shouldNotComputeFingerprintForUnresolvedChangeLog() {
+    assertThat(ChangeLogFingerprint.of(LiquibaseConfig.Builder.of(DATA_SOURCE)
+        .withChangeLogPath("liquibase/missing.xml")
+        .build()))
+        .isEmpty();
+  }
+
+  private static void write(Path path, String content) throws Exception {
+    Files.write(path, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<databaseChangeLog xmlns=\"http://www.liquibase.org/xml/ns/dbchangelog\""
+        + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+        + " xsi:schemaLocation=\"http://www.liquibase.org/xml/ns/dbchangelog"
+        + " http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.1.xsd\">"
+        + content + "</databaseChangeLog>").getBytes(StandardCharsets.UTF_8));
+  }
+}
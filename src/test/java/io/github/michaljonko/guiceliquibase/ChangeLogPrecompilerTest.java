@@ -0,0 +1,84 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChangeLogPrecompilerTest {
+
+  private static final String ROOT_PATH = "liquibase/precompiled/rootChangeLog.xml";
+  private static final String INCLUDED_PATH = "liquibase/precompiled/includedChangeLog.xml";
+  private final ResourceAccessor resourceAccessor =
+      new ClassLoaderResourceAccessor(getClass().getClassLoader());
+
+  @Test
+  void shouldPrecompileChangeLogWithIncludes() throws Exception {
+    ChangeLogArchive archive = ChangeLogPrecompiler.createArchive(ROOT_PATH, resourceAccessor);
+
+    assertThat(archive.getNodes())
+        .containsOnlyKeys(ROOT_PATH, INCLUDED_PATH);
+    assertThat(archive.getCheckSums())
+        .containsOnlyKeys(ChangeLogArchive.checkSumKey(ROOT_PATH, "1", "tester"));
+    assertThat(archive.getCheckSum(ROOT_PATH, "1", "tester"))
+        .isPresent();
+    assertThat(archive.getNode(INCLUDED_PATH).getChildren(null, "changeSet"))
+        .hasSize(1);
+  }
+
+  @Test
+  void shouldWriteAndReadArchive() throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    ChangeLogPrecompiler.precompile(ROOT_PATH, resourceAccessor, outputStream);
+    ChangeLogArchive archive =
+        ChangeLogArchive.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+    assertThat(archive.contains(ROOT_PATH))
+        .isTrue();
+    assertThat(archive.contains("/" + INCLUDED_PATH))
+        .isTrue();
+    assertThat(archive.getCheckSums())
+        .isEqualTo(ChangeLogPrecompiler.createArchive(ROOT_PATH, resourceAccessor).getCheckSums());
+  }
+
+  @Test
+  void shouldPrecompileChangeLogFromCommandLine(@TempDir Path directory) throws Exception {
+    Path output = directory.resolve("archive/changeLog.glc");
+
+    ChangeLogPrecompiler.main(ROOT_PATH, output.toString());
+
+    assertThat(ChangeLogArchive.read(Files.newInputStream(output)).getNodes())
+        .containsOnlyKeys(ROOT_PATH, INCLUDED_PATH);
+  }
+
+  @Test
+  void shouldThrowExceptionForInvalidArchive() {
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(() -> ChangeLogArchive.read(new ByteArrayInputStream(new byte[] {1, 2, 3})));
+  }
+
+  @Test
+  void shouldThrowExceptionForInvalidArguments() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> ChangeLogPrecompiler.precompile("", resourceAccessor,
+            new ByteArrayOutputStream()))
+        .withMessageContaining("changeLogPath must be defined.");
+    assertThatNullPointerException()
+        .isThrownBy(() -> ChangeLogPrecompiler.precompile(ROOT_PATH, null,
+            new ByteArrayOutputStream()))
+        .withMessageContaining("resourceAccessor must be defined.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> ChangeLogPrecompiler.main(ROOT_PATH));
+  }
+}
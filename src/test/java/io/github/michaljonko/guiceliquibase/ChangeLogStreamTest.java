@@ -0,0 +1,43 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableList;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+
+class ChangeLogStreamTest {
+
+  @Test
+  void shouldReadIncludedFilesOfRootChangeLog() {
+    LiquibaseConfig config = createConfig("liquibase/streaming/rootChangeLog.xml");
+
+    assertThat(ChangeLogStream.readIncludes(config))
+        .contains(ImmutableList.of(
+            "liquibase/streaming/firstChangeLog.xml", "liquibase/changeLog.xml"));
+  }
+
+  @Test
+  void shouldNotStreamChangeLogWithChangeSets() {
+    LiquibaseConfig config = createConfig("liquibase/precompiled/rootChangeLog.xml");
+
+    assertThat(ChangeLogStream.readIncludes(config))
+        .isEmpty();
+  }
+
+  @Test
+  void shouldNotStreamMissingChangeLog() {
+    LiquibaseConfig config = createConfig("liquibase/streaming/missingChangeLog.xml");
+
+    assertThat(ChangeLogStream.readIncludes(config))
+        .isEmpty();
+  }
+
+  private static LiquibaseConfig createConfig(String changeLogPath) {
+    return LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withChangeLogPath(changeLogPath)
+        .withStreaming(true)
+        .build();
+  }
+}
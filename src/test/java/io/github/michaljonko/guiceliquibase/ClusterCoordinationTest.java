@@ -0,0 +1,198 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Stopwatch;
+import com.jparams.verifier.tostring.NameStyle;
+import com.jparams.verifier.tostring.ToStringVerifier;
+import io.github.michaljonko.guiceliquibase.ClusterCoordination.Builder;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import liquibase.exception.UnexpectedLiquibaseException;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClusterCoordinationTest {
+
+  private JDBCDataSource dataSource;
+  private LiquibaseConfig config;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new JDBCDataSource();
+    dataSource.setDatabase("jdbc:hsqldb:mem:" + UUID.randomUUID());
+    dataSource.setUser("SA");
+    config = LiquibaseConfig.Builder.of(dataSource).build();
+  }
+
+  @Test
+  void shouldCheckExpectedChangeSet() throws Exception {
+    ClusterCoordination coordination = Builder.of("2::tester").build();
+
+    assertThat(coordination.isReached(config))
+        .isFalse();
+
+    execute("CREATE TABLE DATABASECHANGELOG "
+            + "(ID VARCHAR(255), AUTHOR VARCHAR(255), FILENAME VARCHAR(255))",
+        "INSERT INTO DATABASECHANGELOG VALUES ('1', 'tester', 'changeLog.xml')");
+
+    assertThat(coordination.isReached(config))
+        .isFalse();
+
+    execute("INSERT INTO DATABASECHANGELOG VALUES ('2', 'tester', 'changeLog.xml')");
+
+    assertThat(coordination.isReached(config))
+        .isTrue();
+  }
+
+  @Test
+  void shouldNotMatchChangeSetOfOtherAuthorOrFileWithSameId() throws Exception {
+    ClusterCoordination coordination = Builder.of("2::tester").build();
+    ClusterCoordination coordinationOfFile = Builder.of("changeLog.xml::2::tester").build();
+    execute("CREATE TABLE DATABASECHANGELOG "
+            + "(ID VARCHAR(255), AUTHOR VARCHAR(255), FILENAME VARCHAR(255))",
+        "INSERT INTO DATABASECHANGELOG VALUES ('2', 'other', 'changeLog.xml')",
+        "INSERT INTO DATABASECHANGELOG VALUES ('2', 'tester', 'other.xml')");
+
+    assertThat(coordination.isReached(config))
+        .isTrue();
+    assertThat(coordinationOfFile.isReached(config))
+        .isFalse();
+
+    execute("DELETE FROM DATABASECHANGELOG WHERE AUTHOR = 'tester'");
+
+    assertThat(coordination.isReached(config))
+        .isFalse();
+  }
+
+  @Test
+  void shouldElectLeaderThroughLiquibaseLock() throws Exception {
+    ClusterCoordination coordination = Builder.of("2::tester").build();
+
+    assertThat(coordination.isLeader(config))
+        .isTrue();
+
+    execute("CREATE TABLE DATABASECHANGELOGLOCK (ID INT, LOCKED BOOLEAN)",
+        "INSERT INTO DATABASECHANGELOGLOCK VALUES (1, FALSE)");
+
+    assertThat(coordination.isLeader(config))
+        .isTrue();
+
+    execute("UPDATE DATABASECHANGELOGLOCK SET LOCKED = TRUE");
+
+    assertThat(coordination.isLeader(config))
+        .isFalse();
+  }
+
+  @Test
+  void shouldElectLeaderWithPredicate() {
+    assertThat(Builder.of("2::tester").withLeaderPredicate(value -> value == config).build()
+        .isLeader(config))
+        .isTrue();
+    assertThat(Builder.of("2::tester").withLeaderPredicate(value -> false).build()
+        .isLeader(config))
+        .isFalse();
+  }
+
+  @Test
+  void shouldThrowExceptionWhenLeaderDidNotApplyChangeSet() throws SQLException {
+    DataSource brokenDataSource = mock(DataSource.class);
+    when(brokenDataSource.getConnection())
+        .thenThrow(new SQLException("no connection."));
+    ClusterCoordination coordination = Builder.of("2::tester")
+        .withPollInterval(Duration.ofMillis(1))
+        .withTimeout(Duration.ZERO)
+        .build();
+
+    assertThatThrownBy(() -> coordination.awaitLeader(
+        LiquibaseConfig.Builder.of(brokenDataSource).build(), MigrationDeadline.NONE))
+        .isInstanceOf(UnexpectedLiquibaseException.class)
+        .hasMessage("Changeset 2::tester of liquibase/changeLog.xml was not applied by the leader in "
+            + "PT0S.");
+  }
+
+  @Test
+  void shouldStopWaitingForLeaderWhenConfigWasCancelled() throws SQLException {
+    DataSource brokenDataSource = mock(DataSource.class);
+    when(brokenDataSource.getConnection())
+        .thenThrow(new SQLException("no connection."));
+    ClusterCoordination coordination = Builder.of("2::tester")
+        .withPollInterval(Duration.ofMinutes(1))
+        .build();
+    MigrationDeadline deadline = new MigrationDeadline(null);
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try {
+      executor.schedule(deadline::cancel, 100, TimeUnit.MILLISECONDS);
+
+      assertThatThrownBy(() -> coordination.awaitLeader(
+          LiquibaseConfig.Builder.of(brokenDataSource).build(), deadline))
+          .isInstanceOf(MigrationAbortedException.class)
+          .hasMessage("Liquibase update was cancelled.");
+      assertThat(stopwatch.elapsed())
+          .isLessThan(Duration.ofSeconds(10));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionForInvalidProperties() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of(""))
+        .withMessageContaining("expectedChangeSet must be defined.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of("2"))
+        .withMessageContaining("changeSet must be defined as id::author or path::id::author.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of("changeLog.xml::2::"))
+        .withMessageContaining("changeSet must be defined as id::author or path::id::author.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of("2::tester").withPollInterval(Duration.ZERO))
+        .withMessageContaining("pollInterval must be positive.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of("2::tester").withTimeout(Duration.ofMillis(-1)))
+        .withMessageContaining("timeout cannot be negative.");
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of("2::tester").withTimeout(null))
+        .withMessageContaining("timeout must be defined.");
+  }
+
+  @Test
+  void shouldPassEqualsAndHashCodeContracts() {
+    EqualsVerifier.forClass(ClusterCoordination.class)
+        .usingGetClass()
+        .verify();
+  }
+
+  @Test
+  void verifyToString() {
+    ToStringVerifier.forClass(ClusterCoordination.class)
+        .withClassName(NameStyle.SIMPLE_NAME)
+        .withIgnoredFields("LOGGER")
+        .verify();
+  }
+
+  private void execute(String... statements) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      for (String sql : statements) {
+        statement.execute(sql);
+      }
+    }
+  }
+}
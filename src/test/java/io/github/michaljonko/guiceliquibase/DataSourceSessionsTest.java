@@ -0,0 +1,164 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import javax.sql.DataSource;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DataSourceSessionsTest {
+
+  private DatabaseFactory orgDatabaseFactory;
+  private DatabaseFactory databaseFactory;
+
+  @BeforeEach
+  void setUp() {
+    orgDatabaseFactory = DatabaseFactory.getInstance();
+    databaseFactory = mock(DatabaseFactory.class);
+    DatabaseFactory.setInstance(databaseFactory);
+  }
+
+  @AfterEach
+  void tearDown() {
+    DatabaseFactory.setInstance(orgDatabaseFactory);
+  }
+
+  @Test
+  void shouldShareSessionUntilLastConfigIsReleased() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    Database database = mock(Database.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(databaseFactory.findCorrectDatabaseImplementation(any()))
+        .thenReturn(database);
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(dataSource).build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/changeLogMulti.xml")
+        .build();
+    DataSourceSessions sessions = new DataSourceSessions(Lists.newArrayList(first, second));
+
+    assertThat(sessions.getDatabase(dataSource, PhaseRecorder.NONE))
+        .isSameAs(database);
+    sessions.release(first);
+    assertThat(sessions.getDatabase(dataSource, PhaseRecorder.NONE))
+        .isSameAs(database);
+    sessions.release(second);
+
+    verify(dataSource).getConnection();
+    verify(database).close();
+    verify(connection).close();
+  }
+
+  @Test
+  void shouldOpenNewSessionAfterInvalidation() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(databaseFactory.findCorrectDatabaseImplementation(any()))
+        .thenReturn(mock(Database.class), mock(Database.class));
+    DataSourceSessions sessions = new DataSourceSessions(
+        Lists.newArrayList(LiquibaseConfig.Builder.of(dataSource).build()));
+
+    Database database = sessions.getDatabase(dataSource, PhaseRecorder.NONE);
+    sessions.invalidate(dataSource);
+
+    assertThat(sessions.getDatabase(dataSource, PhaseRecorder.NONE))
+        .isNotSameAs(database);
+    verify(dataSource, times(2)).getConnection();
+    verify(connection).close();
+  }
+
+  @Test
+  void shouldOpenConnectionOfMigrationDataSourceWithinBudget() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    DataSource migrationDataSource = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    Database database = mock(Database.class);
+    Semaphore budget = new Semaphore(1);
+    when(migrationDataSource.getConnection()).thenReturn(connection);
+    when(databaseFactory.findCorrectDatabaseImplementation(any()))
+        .thenReturn(database);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(dataSource)
+        .withMigrationDataSource(migrationDataSource)
+        .withConnectionBudget(budget)
+        .build();
+    DataSourceSessions sessions = new DataSourceSessions(Lists.newArrayList(config));
+
+    assertThat(sessions.getDatabase(config, MigrationDeadline.NONE, PhaseRecorder.NONE))
+        .isSameAs(database);
+    assertThat(budget.availablePermits())
+        .isZero();
+    sessions.release(config);
+
+    assertThat(budget.availablePermits())
+        .isOne();
+    verify(migrationDataSource).getConnection();
+    verify(dataSource, never()).getConnection();
+    verify(connection).close();
+  }
+
+  @Test
+  void shouldThrowExceptionWhenConnectionBudgetIsExhausted() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(dataSource)
+        .withConnectionBudget(new Semaphore(0))
+        .withDeadline(Duration.ofMillis(10))
+        .build();
+    DataSourceSessions sessions = new DataSourceSessions(Lists.newArrayList(config));
+
+    assertThatExceptionOfType(SQLException.class)
+        .isThrownBy(() -> sessions.getDatabase(config, MigrationDeadline.NONE, PhaseRecorder.NONE))
+        .withMessageContaining("No connection of the migration budget was free in PT0.01S");
+    verify(dataSource, never()).getConnection();
+  }
+
+  @Test
+  void shouldStopWaitingForConnectionBudgetWhenCancelled() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(dataSource)
+        .withConnectionBudget(new Semaphore(0))
+        .build();
+    DataSourceSessions sessions = new DataSourceSessions(Lists.newArrayList(config));
+    MigrationDeadline deadline = new MigrationDeadline(null);
+    deadline.cancel();
+
+    assertThatExceptionOfType(MigrationAbortedException.class)
+        .isThrownBy(() -> sessions.getDatabase(config, deadline, PhaseRecorder.NONE))
+        .withMessageContaining("cancelled");
+    verify(dataSource, never()).getConnection();
+  }
+
+  @Test
+  void shouldCloseConnectionWhenDatabaseCannotBeFound() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.getMetaData()).thenThrow(new SQLException("My SQLException."));
+    DatabaseFactory.setInstance(orgDatabaseFactory);
+    DataSourceSessions sessions = new DataSourceSessions(
+        Lists.newArrayList(LiquibaseConfig.Builder.of(dataSource).build()));
+
+    try {
+      sessions.getDatabase(dataSource, PhaseRecorder.NONE);
+    } catch (Exception exception) {
+      sessions.invalidate(dataSource);
+    }
+
+    verify(connection).close();
+  }
+}
@@ -0,0 +1,105 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.UUID;
+import javax.sql.DataSource;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.core.HsqlDatabase;
+import liquibase.database.core.UnsupportedDatabase;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatabaseDialectsTest {
+
+  private static final String URL = "jdbc:hsqldb:mem:dialects";
+  private DatabaseFactory orgDatabaseFactory;
+  private DatabaseFactory databaseFactory;
+  private DatabaseDialects dialects;
+
+  @BeforeEach
+  void setUp() {
+    orgDatabaseFactory = DatabaseFactory.getInstance();
+    databaseFactory = mock(DatabaseFactory.class);
+    DatabaseFactory.setInstance(databaseFactory);
+    dialects = new DatabaseDialects(8);
+  }
+
+  @AfterEach
+  void tearDown() {
+    DatabaseFactory.setInstance(orgDatabaseFactory);
+  }
+
+  @Test
+  void shouldDetectDialectOncePerUrl() throws Exception {
+    DataSource dataSource = createJdbcDataSource();
+    when(databaseFactory.findCorrectDatabaseImplementation(any()))
+        .thenReturn(new HsqlDatabase());
+
+    try (Connection firstConnection = dataSource.getConnection();
+        Connection secondConnection = dataSource.getConnection()) {
+      Database first = dialects.getDatabase(firstConnection, null);
+      Database second = dialects.getDatabase(secondConnection, null);
+
+      assertThat(second)
+          .isInstanceOf(HsqlDatabase.class)
+          .isNotSameAs(first);
+      assertThat(second.getConnection().getURL())
+          .isEqualTo(firstConnection.getMetaData().getURL());
+    }
+    assertThat(dialects.size())
+        .isEqualTo(1);
+    verify(databaseFactory, times(1)).findCorrectDatabaseImplementation(any());
+  }
+
+  @Test
+  void shouldNotCacheUnsupportedDialect() throws Exception {
+    when(databaseFactory.findCorrectDatabaseImplementation(any()))
+        .thenReturn(new UnsupportedDatabase());
+
+    dialects.getDatabase(createConnection(URL), null);
+    dialects.getDatabase(createConnection(URL), null);
+
+    assertThat(dialects.size())
+        .isZero();
+    verify(databaseFactory, times(2)).findCorrectDatabaseImplementation(any());
+  }
+
+  @Test
+  void shouldSkipDetectionForPinnedDatabaseClass() throws Exception {
+    try (Connection connection = createJdbcDataSource().getConnection()) {
+      assertThat(dialects.getDatabase(connection, HsqlDatabase.class))
+          .isInstanceOf(HsqlDatabase.class);
+    }
+    assertThat(dialects.size())
+        .isZero();
+    verifyNoInteractions(databaseFactory);
+  }
+
+  private static DataSource createJdbcDataSource() {
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setDatabase("jdbc:hsqldb:mem:" + UUID.randomUUID());
+    dataSource.setUser("SA");
+    return dataSource;
+  }
+
+  private static Connection createConnection(String url) throws SQLException {
+    Connection connection = mock(Connection.class);
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.getURL()).thenReturn(url);
+    return connection;
+  }
+}
@@ -0,0 +1,131 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import org.junit.jupiter.api.Test;
+
+class DatabaseTemplatesTest {
+
+  private final DatabaseTemplates templates = new DatabaseTemplates(1);
+
+  @Test
+  void shouldRestoreEmptyDatabaseFromTemplate() throws Exception {
+    try (Connection templateConnection = openConnection();
+        Connection clonedConnection = openConnection()) {
+      execute(templateConnection,
+          "CREATE SEQUENCE template_sequence START WITH 5",
+          "CREATE TABLE template_table (id INT PRIMARY KEY, name VARCHAR(20))",
+          "CREATE VIEW template_view AS SELECT name FROM template_table",
+          "INSERT INTO template_table VALUES (1, 'a''b' || CHAR(10) || '\\u0041')");
+
+      assertThat(templates.capture("key", createDatabase(templateConnection), 3))
+          .isTrue();
+      assertThat(templates.restore("key", createDatabase(clonedConnection)).getChangeSets())
+          .contains(3);
+      assertThat(query(clonedConnection, "SELECT name FROM template_view"))
+          .isEqualTo("a'b\n\\u0041");
+      assertThat(query(clonedConnection, "VALUES NEXT VALUE FOR template_sequence"))
+          .isEqualTo("5");
+    }
+  }
+
+  @Test
+  void shouldNotRestoreDatabaseWithTables() throws Exception {
+    try (Connection templateConnection = openConnection();
+        Connection clonedConnection = openConnection()) {
+      execute(templateConnection, "CREATE TABLE template_table (id INT PRIMARY KEY)");
+      execute(clonedConnection, "CREATE TABLE other_table (id INT PRIMARY KEY)");
+      templates.capture("key", createDatabase(templateConnection), 1);
+
+      DatabaseTemplates.Restoration restoration =
+          templates.restore("key", createDatabase(clonedConnection));
+      assertThat(restoration.isEmpty())
+          .isFalse();
+      assertThat(restoration.getChangeSets())
+          .isEmpty();
+      assertThat(templates.restore("missing", createDatabase(templateConnection)).isEmpty())
+          .isFalse();
+    }
+  }
+
+  @Test
+  void shouldReportEmptyDatabaseWithoutTemplate() throws Exception {
+    try (Connection connection = openConnection()) {
+      DatabaseTemplates.Restoration restoration =
+          templates.restore("missing", createDatabase(connection));
+
+      assertThat(restoration.isEmpty())
+          .isTrue();
+      assertThat(restoration.getChangeSets())
+          .isEmpty();
+    }
+  }
+
+  @Test
+  void shouldKeepExistingTemplateOfKey() throws Exception {
+    try (Connection templateConnection = openConnection();
+        Connection otherConnection = openConnection();
+        Connection clonedConnection = openConnection()) {
+      execute(templateConnection, "CREATE TABLE template_table (id INT PRIMARY KEY)");
+      execute(otherConnection, "CREATE TABLE other_table (id INT PRIMARY KEY)");
+
+      assertThat(templates.capture("key", createDatabase(templateConnection), 1))
+          .isTrue();
+      assertThat(templates.capture("key", createDatabase(otherConnection), 2))
+          .isFalse();
+      assertThat(templates.restore("key", createDatabase(clonedConnection)).getChangeSets())
+          .contains(1);
+      assertThat(query(clonedConnection, "SELECT COUNT(*) FROM template_table"))
+          .isEqualTo("0");
+    }
+  }
+
+  @Test
+  void shouldNotKeepDatabaseWithLobValues() throws Exception {
+    try (Connection connection = openConnection()) {
+      execute(connection,
+          "CREATE TABLE template_table (id INT PRIMARY KEY, content CLOB)",
+          "INSERT INTO template_table VALUES (1, 'content')");
+
+      assertThat(templates.capture("key", createDatabase(connection), 1))
+          .isFalse();
+      assertThat(templates.size())
+          .isZero();
+    }
+  }
+
+  private static Connection openConnection() throws SQLException {
+    return DriverManager.getConnection("jdbc:hsqldb:mem:" + UUID.randomUUID(), "SA", "");
+  }
+
+  private static Database createDatabase(Connection connection) throws DatabaseException {
+    return DatabaseFactory.getInstance()
+        .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+  }
+
+  private static void execute(Connection connection, String... sqls) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : sqls) {
+        statement.execute(sql);
+      }
+    }
+  }
+
+  private static String query(Connection connection, String sql) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getString(1);
+    }
+  }
+}
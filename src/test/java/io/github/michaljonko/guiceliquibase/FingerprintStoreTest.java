@@ -0,0 +1,114 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+import com.jparams.verifier.tostring.NameStyle;
+import com.jparams.verifier.tostring.ToStringVerifier;
+import java.nio.file.Path;
+import java.util.UUID;
+import javax.sql.DataSource;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FingerprintStoreTest {
+
+  @BeforeAll
+  static void beforeClass() throws ClassNotFoundException {
+    Class.forName("org.hsqldb.jdbc.JDBCDriver");
+  }
+
+  @Test
+  void shouldStoreFingerprintInDatabase() throws Exception {
+    DataSource dataSource = createJdbcDataSource();
+    FingerprintStore store = FingerprintStore.database();
+
+    assertThat(store.load(dataSource, Fixtures.CHANGELOG_PATH))
+        .isEmpty();
+
+    store.store(dataSource, Fixtures.CHANGELOG_PATH, "first");
+    store.store(dataSource, Fixtures.CHANGELOG_PATH, "second");
+    store.store(dataSource, "other.xml", "other");
+
+    assertThat(store.load(dataSource, Fixtures.CHANGELOG_PATH))
+        .contains("second");
+    assertThat(store.load(dataSource, "other.xml"))
+        .contains("other");
+  }
+
+  @Test
+  void shouldStoreFingerprintInFile(@TempDir Path directory) throws Exception {
+    DataSource dataSource = createJdbcDataSource();
+    FingerprintStore store = FingerprintStore.file(directory.resolve("db/fingerprints"));
+
+    assertThat(store.load(dataSource, Fixtures.CHANGELOG_PATH))
+        .isEmpty();
+
+    store.store(dataSource, Fixtures.CHANGELOG_PATH, "first");
+    store.store(dataSource, Fixtures.CHANGELOG_PATH, "second");
+
+    assertThat(FingerprintStore.file(directory.resolve("db/fingerprints"))
+        .load(dataSource, Fixtures.CHANGELOG_PATH))
+        .contains("second");
+  }
+
+  @Test
+  void shouldKeepFingerprintsOfDataSourcesSharingFile(@TempDir Path directory)
+      throws Exception {
+    DataSource firstDataSource = createJdbcDataSource();
+    DataSource secondDataSource = createJdbcDataSource();
+    FingerprintStore store = FingerprintStore.file(directory.resolve("fingerprints"));
+
+    store.store(firstDataSource, Fixtures.CHANGELOG_PATH, "first");
+
+    assertThat(store.load(secondDataSource, Fixtures.CHANGELOG_PATH))
+        .isEmpty();
+
+    store.store(secondDataSource, Fixtures.CHANGELOG_PATH, "second");
+
+    assertThat(store.load(firstDataSource, Fixtures.CHANGELOG_PATH))
+        .contains("first");
+    assertThat(store.load(secondDataSource, Fixtures.CHANGELOG_PATH))
+        .contains("second");
+  }
+
+  @Test
+  void shouldThrowExceptionForNotDefinedPath() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> FingerprintStore.file(null))
+        .withMessageContaining("path must be defined.");
+  }
+
+  @Test
+  void shouldPassEqualsAndHashCodeContracts() {
+    EqualsVerifier.forClass(DatabaseFingerprintStore.class)
+        .usingGetClass()
+        .verify();
+    EqualsVerifier.forClass(FileFingerprintStore.class)
+        .usingGetClass()
+        .verify();
+  }
+
+  @Test
+  void verifyToString() {
+    ToStringVerifier.forClass(DatabaseFingerprintStore.class)
+        .withClassName(NameStyle.SIMPLE_NAME).verify();
+    ToStringVerifier.forClass(FileFingerprintStore.class)
+        .withClassName(NameStyle.SIMPLE_NAME).verify();
+  }
+
+  private static DataSource createJdbcDataSource() {
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setDatabase("jdbc:hsqldb:mem:" + UUID.randomUUID());
+    dataSource.setUser("SA");
+    return dataSource;
+  }
+
+  private static final class Fixtures {
+
+    private static final String CHANGELOG_PATH = "liquibase/changeLog.xml";
+  }
+}
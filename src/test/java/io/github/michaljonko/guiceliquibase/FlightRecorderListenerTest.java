@@ -0,0 +1,92 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Mockito.mock;
+
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import io.github.michaljonko.guiceliquibase.annotation.GuiceLiquibaseConfiguration;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import liquibase.changelog.ChangeSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlightRecorderListenerTest {
+
+  private static final String EVENT_PREFIX = "io.github.michaljonko.guiceliquibase.";
+  private final LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class))
+      .withChangeLogPath("liquibase/changeLog.xml")
+      .build();
+
+  @Test
+  void shouldEmitEventsOfMigration(@TempDir Path directory) throws Exception {
+    FlightRecorderListener listener = new FlightRecorderListener();
+    ChangeSet changeSet = new ChangeSet("1", "author", false, false, "changeLog.xml", null, null,
+        null);
+    Path file = directory.resolve("migration.jfr");
+
+    try (Recording recording = new Recording()) {
+      recording.enable(EVENT_PREFIX + "Migration");
+      recording.enable(EVENT_PREFIX + "MigrationPhase");
+      recording.enable(EVENT_PREFIX + "ChangeSet");
+      recording.start();
+      listener.migrationStarted(config);
+      listener.phaseStarted(config, MigrationPhase.UPDATE);
+      listener.phaseStarted(config, MigrationPhase.LOCK_WAIT);
+      listener.phaseFinished(config, MigrationPhase.LOCK_WAIT, Duration.ZERO);
+      listener.changeSetStarted(config, changeSet);
+      listener.changeSetExecuted(config, changeSet, Duration.ZERO);
+      listener.phaseFinished(config, MigrationPhase.UPDATE, Duration.ZERO);
+      listener.migrationFinished(config, MigrationOutcome.APPLIED, 1, 0);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    assertThat(events)
+        .extracting(event -> event.getEventType().getName())
+        .containsExactlyInAnyOrder(EVENT_PREFIX + "Migration", EVENT_PREFIX + "MigrationPhase",
+            EVENT_PREFIX + "MigrationPhase", EVENT_PREFIX + "ChangeSet");
+    assertThat(events)
+        .filteredOn(event -> event.getEventType().getName().endsWith("MigrationPhase"))
+        .extracting(event -> event.getString("phase"))
+        .containsExactlyInAnyOrder("UPDATE", "LOCK_WAIT");
+    assertThat(events)
+        .filteredOn(event -> event.getEventType().getName().endsWith(".ChangeSet"))
+        .extracting(event -> event.getString("changeSetId"),
+            event -> event.getString("changeLogPath"))
+        .containsExactly(tuple("1", "liquibase/changeLog.xml"));
+    assertThat(events)
+        .filteredOn(event -> event.getEventType().getName().endsWith(".Migration"))
+        .extracting(event -> event.getString("outcome"), event -> event.getInt("appliedChangeSets"))
+        .containsExactly(tuple("APPLIED", 1));
+  }
+
+  @Test
+  void shouldBeBoundByModule() {
+    Set<MigrationListener> listeners = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(LiquibaseConfig.Builder.of(
+                        mock(DataSource.class))
+                    .withShouldRun(false)
+                    .build())
+                    .build()))
+        .getInstance(Key.get(new TypeLiteral<Set<MigrationListener>>() {
+        }));
+
+    assertThat(listeners.stream().map(Object::getClass).collect(Collectors.toList()))
+        .contains(FlightRecorderListener.class, MigrationMetrics.class);
+  }
+}
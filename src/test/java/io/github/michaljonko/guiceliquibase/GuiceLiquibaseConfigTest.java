@@ -1,16 +1,22 @@
 package io.github.michaljonko.guiceliquibase;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatNullPointerException;
 import static org.mockito.Mockito.mock;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.jparams.verifier.tostring.NameStyle;
 import com.jparams.verifier.tostring.ToStringVerifier;
 import io.github.michaljonko.guiceliquibase.GuiceLiquibaseConfig.Builder;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import javax.sql.DataSource;
 import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
 import org.hsqldb.jdbc.JDBCDataSource;
 import org.junit.jupiter.api.Test;
 
@@ -91,10 +97,178 @@ class GuiceLiquibaseConfigTest {
         .withMessageContaining("config must be defined.");
   }
 
+  @Test
+  void shouldUseDirectExecutorByDefault() {
+    GuiceLiquibaseConfig config = Builder.of()
+        .build();
+
+    assertThat(config.getExecutor())
+        .isSameAs(MoreExecutors.directExecutor());
+  }
+
+  @Test
+  void shouldCreateConfigWithExecutor() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      GuiceLiquibaseConfig config = Builder.of()
+          .withExecutor(executor)
+          .withThreadLocalScopes(true)
+          .build();
+
+      assertThat(config.getExecutor())
+          .isSameAs(executor);
+      assertThat(config.isThreadLocalScopes())
+          .isTrue();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionForNotDefinedExecutor() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of().withExecutor(null))
+        .withMessageContaining("executor must be defined.");
+  }
+
+  @Test
+  void shouldCreateAsyncConfig() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      GuiceLiquibaseConfig config = Builder.of()
+          .withExecutor(executor)
+          .withThreadLocalScopes(true)
+          .withAsync(true)
+          .build();
+
+      assertThat(config.isAsync())
+          .isTrue();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionForAsyncConfigWithoutExecutor() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of().withAsync(true).build())
+        .withMessageContaining("async mode requires executor.");
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCriticalLabelsAreUsedWithoutExecutor() {
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withCriticalLabels("!deferred")
+        .build();
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of(config).build())
+        .withMessageContaining("critical labels require executor.");
+    assertThat(Builder.of(config)
+        .withDeferredExecutor(Runnable::run)
+        .withThreadLocalScopes(true)
+        .build()
+        .getDeferredExecutor())
+        .isNotNull();
+  }
+
+  @Test
+  void shouldThrowExceptionWhenExecutorIsUsedWithoutThreadLocalScopes() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertThatIllegalArgumentException()
+          .isThrownBy(() -> Builder.of().withExecutor(executor).build())
+          .withMessageContaining("require thread-local scopes.");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionWhenLazyConfigIsUsedWithoutThreadLocalScopes() {
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withLazy(true)
+        .build();
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of(config).build())
+        .withMessageContaining("require thread-local scopes.");
+  }
+
+  @Test
+  void shouldThrowExceptionWhenConfigsOfDataSourceUseDifferentConnectionBudgets() {
+    DataSource dataSource = mock(DataSource.class);
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(dataSource)
+        .withConnectionBudget(new Semaphore(1))
+        .build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("second.xml")
+        .withMigrationDataSource(mock(DataSource.class))
+        .build();
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of(first).withLiquibaseConfig(second).build())
+        .withMessageContaining("have to use the same migration DataSource and connection budget.");
+  }
+
+  @Test
+  void shouldCreateConfigForTenants() {
+    LiquibaseConfig template = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withContext("context")
+        .build();
+    DataSource firstTenant = mock(DataSource.class);
+    DataSource secondTenant = mock(DataSource.class);
+
+    GuiceLiquibaseConfig config = Builder.of()
+        .withTenants(template, Lists.newArrayList(firstTenant, secondTenant))
+        .withHostConcurrency(dataSource -> "host", 2)
+        .build();
+
+    assertThat(config.getConfigs())
+        .extracting(LiquibaseConfig::getDataSource)
+        .containsExactly(firstTenant, secondTenant);
+    assertThat(config.getConfigs())
+        .allMatch(liquibaseConfig -> liquibaseConfig.getContexts().contains("context"));
+    assertThat(config.getMaxConcurrentPerHost())
+        .isEqualTo(2);
+    assertThat(config.getHostResolver().apply(firstTenant))
+        .isEqualTo("host");
+  }
+
+  @Test
+  void shouldThrowExceptionForInvalidHostConcurrency() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of().withHostConcurrency(dataSource -> "host", 0))
+        .withMessageContaining("maxConcurrentPerHost must be positive.");
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of().withHostConcurrency(null, 1))
+        .withMessageContaining("resolver must be defined.");
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of().withTenants(null, Lists.newArrayList()))
+        .withMessageContaining("template must be defined.");
+  }
+
+  @Test
+  void shouldThrowExceptionForNotRegisteredDependency() {
+    LiquibaseConfig dependency = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .build();
+    LiquibaseConfig dependent = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withDependency(dependency)
+        .build();
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of(dependent).build())
+        .withMessageContaining("have to be registered.");
+  }
+
   @Test
   void shouldPassEqualsAndHashCodeContracts() {
     EqualsVerifier.forClass(GuiceLiquibaseConfig.class)
         .usingGetClass()
+        .withPrefabValues(
+            LiquibaseConfig.class,
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build(),
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build())
         .verify();
   }
 
@@ -102,6 +276,11 @@ class GuiceLiquibaseConfigTest {
   void shouldPassEqualsAndHashCodeContractsForBuilder() {
     EqualsVerifier.forClass(Builder.class)
         .usingGetClass()
+        .suppress(Warning.NONFINAL_FIELDS)
+        .withPrefabValues(
+            LiquibaseConfig.class,
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build(),
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build())
         .verify();
   }
 
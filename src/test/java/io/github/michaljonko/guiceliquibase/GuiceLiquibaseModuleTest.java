@@ -4,40 +4,66 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Monitor;
 import com.google.inject.CreationException;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.google.inject.multibindings.Multibinder;
 import com.jparams.verifier.tostring.NameStyle;
 import com.jparams.verifier.tostring.ToStringVerifier;
 import io.github.michaljonko.guiceliquibase.annotation.GuiceLiquibaseConfiguration;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 import liquibase.database.Database;
 import liquibase.database.DatabaseFactory;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.CompositeResourceAccessor;
+import liquibase.resource.DirectoryResourceAccessor;
+import liquibase.resource.ResourceAccessor;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.hsqldb.jdbc.JDBCDataSource;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class GuiceLiquibaseModuleTest {
 
@@ -102,6 +128,942 @@ class GuiceLiquibaseModuleTest {
     }
   }
 
+  @Test
+  void shouldShareConnectionBetweenConfigurationsOfSameDataSource() throws Exception {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+
+    Guice.createInjector(
+        new GuiceLiquibaseModule(),
+        binder -> binder.bind(GuiceLiquibaseConfig.class)
+            .annotatedWith(GuiceLiquibaseConfiguration.class)
+            .toInstance(GuiceLiquibaseConfig.Builder.of()
+                .withLiquibaseConfig(LiquibaseConfig.Builder.of(dataSource).build())
+                .withLiquibaseConfig(LiquibaseConfig.Builder.of(dataSource)
+                    .withChangeLogPath("liquibase/changeLogMulti.xml")
+                    .withResourceAccessor(new ClassLoaderResourceAccessor(classLoader))
+                    .withParameters(ImmutableMap.of("testParameter", "testValue"))
+                    .build())
+                .build()));
+
+    verify(dataSource, only()).getConnection();
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            Fixtures.GET_ALL_FROM_TABLE_FOR_MULTI_TESTS_QUERY);
+        ResultSet resultSet = preparedStatement.executeQuery()) {
+      assertThat(resultSet.next())
+          .isTrue();
+    }
+  }
+
+  @Test
+  void shouldExecuteLiquibaseUpdateWithExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    DataSource firstDataSource = Fixtures.createJdbcDataSource();
+    DataSource secondDataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig firstConfig = LiquibaseConfig.Builder.of(firstDataSource).build();
+    try {
+      Guice.createInjector(
+          new GuiceLiquibaseModule(),
+          binder -> binder.bind(GuiceLiquibaseConfig.class)
+              .annotatedWith(GuiceLiquibaseConfiguration.class)
+              .toInstance(GuiceLiquibaseConfig.Builder.of(firstConfig)
+                  .withLiquibaseConfig(LiquibaseConfig.Builder.of(secondDataSource)
+                      .withDependency(firstConfig)
+                      .build())
+                  .withExecutor(executor)
+                  .withThreadLocalScopes(true)
+                  .build()));
+    } finally {
+      executor.shutdown();
+    }
+
+    for (DataSource dataSource : new DataSource[]{firstDataSource, secondDataSource}) {
+      try (Connection connection = dataSource.getConnection();
+          PreparedStatement preparedStatement = connection.prepareStatement(
+              Fixtures.GET_ALL_FROM_TABLE_FOR_TEST_QUERY);
+          ResultSet resultSet = preparedStatement.executeQuery()) {
+        assertThat(resultSet.next())
+            .isTrue();
+        assertThat(resultSet.getInt(Fixtures.ID_COLUMN_NAME))
+            .isEqualTo(Fixtures.EXPECTED_ID);
+      }
+    }
+  }
+
+  @Test
+  void shouldExecuteLiquibaseUpdateInBackground() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountDownLatch latch = new CountDownLatch(1);
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource).build();
+    executor.execute(() -> awaitQuietly(latch));
+    try {
+      Injector injector = Guice.createInjector(
+          new GuiceLiquibaseModule(),
+          binder -> binder.bind(GuiceLiquibaseConfig.class)
+              .annotatedWith(GuiceLiquibaseConfiguration.class)
+              .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig)
+                  .withExecutor(executor)
+                  .withThreadLocalScopes(true)
+                  .withAsync(true)
+                  .build()));
+      MigrationHandle migrationHandle = injector.getInstance(MigrationHandle.class);
+
+      assertThat(migrationHandle.getMigration(liquibaseConfig))
+          .isNotDone();
+      assertThat(migrationHandle.getAllMigrations())
+          .isNotDone();
+
+      latch.countDown();
+
+      assertThat(migrationHandle.getMigration(liquibaseConfig).get(10, TimeUnit.SECONDS))
+          .isEqualTo(MigrationOutcome.APPLIED);
+      assertThat(migrationHandle.getAllMigrations())
+          .succeedsWithin(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            Fixtures.GET_ALL_FROM_TABLE_FOR_TEST_QUERY);
+        ResultSet resultSet = preparedStatement.executeQuery()) {
+      assertThat(resultSet.next())
+          .isTrue();
+    }
+  }
+
+  @Test
+  void shouldCompleteMigrationHandleWithFailureInBackground() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(null);
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource).build();
+    try {
+      MigrationHandle migrationHandle = Guice.createInjector(
+              new GuiceLiquibaseModule(),
+              binder -> binder.bind(GuiceLiquibaseConfig.class)
+                  .annotatedWith(GuiceLiquibaseConfiguration.class)
+                  .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig)
+                      .withExecutor(executor)
+                      .withThreadLocalScopes(true)
+                      .withAsync(true)
+                      .build()))
+          .getInstance(MigrationHandle.class);
+
+      assertThat(migrationHandle.getMigration(liquibaseConfig))
+          .failsWithin(10, TimeUnit.SECONDS)
+          .withThrowableOfType(ExecutionException.class)
+          .withCauseInstanceOf(NullPointerException.class)
+          .withMessageContaining("DataSource returns null connection instance.");
+      assertThat(migrationHandle.getAllMigrations())
+          .isCompletedExceptionally();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldCompleteMigrationHandleForSkippedUpdate() {
+    DataSource dataSource = mock(DataSource.class);
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withShouldRun(false)
+        .build();
+
+    MigrationHandle migrationHandle = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig).build()))
+        .getInstance(MigrationHandle.class);
+
+    assertThat(migrationHandle.getMigration(liquibaseConfig))
+        .isCompletedWithValue(MigrationOutcome.SKIPPED);
+    assertThat(migrationHandle.getAllMigrations())
+        .isCompleted();
+  }
+
+  @Test
+  void shouldSkipLiquibaseForUnchangedFingerprint() throws Exception {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withFingerprintStore(FingerprintStore.database())
+        .build();
+    Module module = binder -> binder.bind(GuiceLiquibaseConfig.class)
+        .annotatedWith(GuiceLiquibaseConfiguration.class)
+        .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig).build());
+
+    MigrationHandle firstHandle = Guice.createInjector(new GuiceLiquibaseModule(), module)
+        .getInstance(MigrationHandle.class);
+    MigrationHandle secondHandle = Guice.createInjector(new GuiceLiquibaseModule(), module)
+        .getInstance(MigrationHandle.class);
+
+    assertThat(firstHandle.getMigration(liquibaseConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(secondHandle.getMigration(liquibaseConfig))
+        .isCompletedWithValue(MigrationOutcome.UP_TO_DATE);
+    verify(dataSource, times(4)).getConnection();
+  }
+
+  @Test
+  void shouldCloneMigratedTemplateToEmptyDatabase() throws Exception {
+    DataSource templateDataSource = Fixtures.createJdbcDataSource();
+    DataSource clonedDataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig templateConfig = LiquibaseConfig.Builder.of(templateDataSource)
+        .withParameter("template", UUID.randomUUID().toString())
+        .withTemplateCloning(true)
+        .build();
+    LiquibaseConfig clonedConfig = LiquibaseConfig.Builder.of(templateConfig, clonedDataSource)
+        .build();
+    LiquibaseConfig validatingConfig = LiquibaseConfig.Builder.of(clonedDataSource).build();
+
+    MigrationHandle templateHandle = createMigrationHandle(templateConfig);
+    MigrationHandle clonedHandle = createMigrationHandle(clonedConfig);
+    MigrationHandle validatingHandle = createMigrationHandle(validatingConfig);
+
+    assertThat(templateHandle.getMigration(templateConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(clonedHandle.getMigration(clonedConfig))
+        .isCompletedWithValue(MigrationOutcome.CLONED);
+    assertThat(validatingHandle.getMigration(validatingConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(Fixtures.readChangeLogHistory(clonedDataSource))
+        .containsExactlyElementsOf(Fixtures.readChangeLogHistory(templateDataSource));
+    try (Connection connection = clonedDataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            Fixtures.GET_ALL_FROM_TABLE_FOR_TEST_QUERY);
+        ResultSet resultSet = preparedStatement.executeQuery()) {
+      assertThat(resultSet.next())
+          .isTrue();
+      assertThat(resultSet.getString(Fixtures.NAME_COLUMN_NAME))
+          .isEqualTo(Fixtures.EXPECTED_NAME);
+    }
+    assertThat(ChangeLogTables.isLocked(clonedDataSource))
+        .isFalse();
+  }
+
+  @Test
+  void shouldNotCaptureTemplateOfDatabaseWithTables() throws Exception {
+    DataSource seededDataSource = Fixtures.createJdbcDataSource();
+    try (Connection connection = seededDataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            "CREATE TABLE seeded_table (id INT)")) {
+      preparedStatement.execute();
+    }
+    DataSource migratedDataSource = Fixtures.createJdbcDataSource();
+    DataSource clonedDataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig seededConfig = LiquibaseConfig.Builder.of(seededDataSource)
+        .withParameter("template", UUID.randomUUID().toString())
+        .withTemplateCloning(true)
+        .build();
+    LiquibaseConfig migratedConfig = LiquibaseConfig.Builder.of(seededConfig, migratedDataSource)
+        .build();
+    LiquibaseConfig clonedConfig = LiquibaseConfig.Builder.of(seededConfig, clonedDataSource)
+        .build();
+
+    MigrationHandle seededHandle = createMigrationHandle(seededConfig);
+    MigrationHandle migratedHandle = createMigrationHandle(migratedConfig);
+    MigrationHandle clonedHandle = createMigrationHandle(clonedConfig);
+
+    assertThat(seededHandle.getMigration(seededConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(migratedHandle.getMigration(migratedConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(clonedHandle.getMigration(clonedConfig))
+        .isCompletedWithValue(MigrationOutcome.CLONED);
+    try (Connection connection = clonedDataSource.getConnection();
+        ResultSet tables = connection.getMetaData()
+            .getTables(null, null, "SEEDED_TABLE", null)) {
+      assertThat(tables.next())
+          .isFalse();
+    }
+  }
+
+  @Test
+  void shouldNotCloneTemplateOfChangedIncludedChangeLog(@TempDir Path directory)
+      throws Exception {
+    Files.createDirectories(directory.resolve("other"));
+    Fixtures.writeChangeLog(directory.resolve("rootChangeLog.xml"),
+        "<include file=\"other/changeLog.xml\"/>");
+    Fixtures.writeChangeLog(directory.resolve("other/changeLog.xml"),
+        "<changeSet id=\"1\" author=\"tester\"><sql>CREATE TABLE first_table (id INT)</sql>"
+            + "</changeSet>");
+    LiquibaseConfig templateConfig = LiquibaseConfig.Builder.of(Fixtures.createJdbcDataSource())
+        .withChangeLogPath("rootChangeLog.xml")
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .withTemplateCloning(true)
+        .build();
+    MigrationHandle templateHandle = createMigrationHandle(templateConfig);
+    Fixtures.writeChangeLog(directory.resolve("other/changeLog.xml"),
+        "<changeSet id=\"1\" author=\"tester\"><sql>CREATE TABLE first_table (id INT)</sql>"
+            + "</changeSet><changeSet id=\"2\" author=\"tester\">"
+            + "<sql>CREATE TABLE second_table (id INT)</sql></changeSet>");
+    DataSource changedDataSource = Fixtures.createJdbcDataSource();
+    // Parsed changelogs are cached per accessor, as a new process would use a new one.
+    LiquibaseConfig changedConfig = LiquibaseConfig.Builder.of(templateConfig, changedDataSource)
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .build();
+
+    MigrationHandle changedHandle = createMigrationHandle(changedConfig);
+
+    assertThat(templateHandle.getMigration(templateConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(changedHandle.getMigration(changedConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(Fixtures.readChangeLogHistory(changedDataSource))
+        .containsExactly("other/changeLog.xml::1", "other/changeLog.xml::2");
+  }
+
+  @Test
+  void shouldShareMigrationOfConfigBetweenInjectors() throws Exception {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig firstConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withSharedMigration(true)
+        .build();
+    LiquibaseConfig secondConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withSharedMigration(true)
+        .build();
+
+    MigrationHandle firstHandle = createMigrationHandle(firstConfig);
+    clearInvocations(dataSource);
+    MigrationHandle secondHandle = createMigrationHandle(secondConfig);
+
+    assertThat(firstHandle.getMigration(firstConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(secondHandle.getMigration(secondConfig))
+        .isCompletedWithValue(MigrationOutcome.JOINED);
+    verify(dataSource, never()).getConnection();
+    assertThat(Fixtures.readChangeLogHistory(dataSource))
+        .containsExactly("liquibase/changeLog.xml::1", "liquibase/changeLog.xml::2");
+  }
+
+  @Test
+  void shouldFinishConfigWhenLiquibaseLockIsHeldElsewhere() throws Exception {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    Guice.createInjector(new GuiceLiquibaseModule(), binder -> binder
+        .bind(GuiceLiquibaseConfig.class)
+        .annotatedWith(GuiceLiquibaseConfiguration.class)
+        .toInstance(GuiceLiquibaseConfig.Builder.of(
+            LiquibaseConfig.Builder.of(dataSource).build()).build()));
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            "UPDATE DATABASECHANGELOGLOCK SET LOCKED = TRUE, LOCKEDBY = 'other' WHERE ID = 1")) {
+      preparedStatement.executeUpdate();
+    }
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/changeLogMulti.xml")
+        .withLockStrategy(LockStrategy.failFast())
+        .build();
+
+    MigrationHandle migrationHandle = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig).build()))
+        .getInstance(MigrationHandle.class);
+
+    assertThat(migrationHandle.getMigration(liquibaseConfig))
+        .isCompletedWithValue(MigrationOutcome.LOCKED_ELSEWHERE);
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(connection.getMetaData()
+          .getTables(null, null, "TABLE_FOR_MULTI_TEST", null)
+          .next())
+          .isFalse();
+    }
+  }
+
+  @Test
+  void shouldWaitForLeaderOfCluster() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig followerConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withClusterCoordination(ClusterCoordination.Builder.of("2::tester")
+            .withLeaderPredicate(config -> false)
+            .withPollInterval(Duration.ofMillis(10))
+            .build())
+        .build();
+    LiquibaseConfig leaderConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withClusterCoordination(ClusterCoordination.Builder.of("2::tester")
+            .withLeaderPredicate(config -> true)
+            .build())
+        .build();
+    try {
+      MigrationHandle followerHandle = Guice.createInjector(
+              new GuiceLiquibaseModule(),
+              binder -> binder.bind(GuiceLiquibaseConfig.class)
+                  .annotatedWith(GuiceLiquibaseConfiguration.class)
+                  .toInstance(GuiceLiquibaseConfig.Builder.of(followerConfig)
+                      .withExecutor(executor)
+                      .withThreadLocalScopes(true)
+                      .withAsync(true)
+                      .build()))
+          .getInstance(MigrationHandle.class);
+      MigrationHandle leaderHandle = Guice.createInjector(
+              new GuiceLiquibaseModule(),
+              binder -> binder.bind(GuiceLiquibaseConfig.class)
+                  .annotatedWith(GuiceLiquibaseConfiguration.class)
+                  .toInstance(GuiceLiquibaseConfig.Builder.of(leaderConfig).build()))
+          .getInstance(MigrationHandle.class);
+
+      assertThat(leaderHandle.getMigration(leaderConfig))
+          .isCompletedWithValue(MigrationOutcome.APPLIED);
+      assertThat(followerHandle.getMigration(followerConfig).get(10, TimeUnit.SECONDS))
+          .isEqualTo(MigrationOutcome.APPLIED_ELSEWHERE);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldApplyLazyConfigOnFirstConnection() throws Exception {
+    ExecutorService callers = Executors.newFixedThreadPool(4);
+    DataSource dataSource = spy(Fixtures.createJdbcDataSource());
+    LiquibaseConfig lazyConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withLazy(true)
+        .build();
+    try {
+      MigrationHandle migrationHandle = Guice.createInjector(
+              new GuiceLiquibaseModule(),
+              binder -> binder.bind(GuiceLiquibaseConfig.class)
+                  .annotatedWith(GuiceLiquibaseConfiguration.class)
+                  .toInstance(GuiceLiquibaseConfig.Builder.of(lazyConfig)
+                      .withThreadLocalScopes(true)
+                      .build()))
+          .getInstance(MigrationHandle.class);
+
+      assertThat(migrationHandle.getMigration(lazyConfig))
+          .isNotDone();
+      assertThat(migrationHandle.getAllMigrations())
+          .isCompleted();
+      assertThat(migrationHandle.getReport().join().getOutcomes())
+          .isEmpty();
+      verify(dataSource, times(0)).getConnection();
+
+      DataSource lazyDataSource = migrationHandle.getDataSource(lazyConfig);
+      List<Future<Boolean>> connections = Lists.newArrayList();
+      for (int i = 0; i < 4; i++) {
+        connections.add(callers.submit(() -> {
+          try (Connection connection = lazyDataSource.getConnection()) {
+            return ChangeLogTables.containsChangeSet(dataSource, "1::tester");
+          }
+        }));
+      }
+      for (Future<Boolean> connection : connections) {
+        assertThat(connection.get(10, TimeUnit.SECONDS))
+            .isTrue();
+      }
+      assertThat(migrationHandle.getMigration(lazyConfig))
+          .isCompletedWithValue(MigrationOutcome.APPLIED);
+    } finally {
+      callers.shutdown();
+    }
+  }
+
+  @Test
+  void shouldApplyLazyDependencyOfEagerConfig() {
+    LiquibaseConfig lazyConfig = LiquibaseConfig.Builder.of(Fixtures.createJdbcDataSource())
+        .withLazy(true)
+        .build();
+    LiquibaseConfig eagerConfig = LiquibaseConfig.Builder.of(Fixtures.createJdbcDataSource())
+        .withDependency(lazyConfig)
+        .build();
+
+    MigrationHandle migrationHandle = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(lazyConfig)
+                    .withLiquibaseConfig(eagerConfig)
+                    .withThreadLocalScopes(true)
+                    .build()))
+        .getInstance(MigrationHandle.class);
+
+    assertThat(migrationHandle.getMigration(lazyConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(migrationHandle.getMigration(eagerConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+  }
+
+  @Test
+  void shouldApplyPrecompiledChangeLog(@TempDir Path directory) throws Exception {
+    String changeLogPath = "liquibase/precompiled/rootChangeLog.xml";
+    ResourceAccessor resourceAccessor = new CompositeResourceAccessor(
+        new ClassLoaderResourceAccessor(getClass().getClassLoader()),
+        new DirectoryResourceAccessor(directory));
+    try (OutputStream outputStream = Files.newOutputStream(directory.resolve("changeLog.glc"))) {
+      ChangeLogPrecompiler.precompile(changeLogPath, resourceAccessor, outputStream);
+    }
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig precompiledConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath(changeLogPath)
+        .withResourceAccessor(resourceAccessor)
+        .withParameter("tableName", "parameter_table")
+        .withPrecompiledChangeLog("changeLog.glc")
+        .build();
+    LiquibaseConfig parsedConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath(changeLogPath)
+        .withResourceAccessor(resourceAccessor)
+        .withParameter("tableName", "parameter_table")
+        .withDependency(precompiledConfig)
+        .build();
+
+    MigrationHandle migrationHandle = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(precompiledConfig)
+                    .withLiquibaseConfig(parsedConfig)
+                    .build()))
+        .getInstance(MigrationHandle.class);
+
+    assertThat(migrationHandle.getReport().join().isSuccessful())
+        .isTrue();
+    assertThat(ChangeLogTables.containsChangeSet(dataSource, "2::tester"))
+        .isTrue();
+  }
+
+  @Test
+  void shouldApplyIncludedChangeLogsOneAtATime() throws Exception {
+    DataSource streamedDataSource = Fixtures.createJdbcDataSource();
+    DataSource parsedDataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig streamedConfig = LiquibaseConfig.Builder.of(streamedDataSource)
+        .withChangeLogPath("liquibase/streaming/rootChangeLog.xml")
+        .withStreaming(true)
+        .build();
+    LiquibaseConfig parsedConfig = LiquibaseConfig.Builder.of(parsedDataSource)
+        .withChangeLogPath("liquibase/streaming/rootChangeLog.xml")
+        .build();
+    LiquibaseConfig streamedAgainConfig = LiquibaseConfig.Builder.of(parsedConfig, parsedDataSource)
+        .withStreaming(true)
+        .withDependency(parsedConfig)
+        .build();
+
+    Injector injector = Guice.createInjector(
+        new GuiceLiquibaseModule(),
+        binder -> binder.bind(GuiceLiquibaseConfig.class)
+            .annotatedWith(GuiceLiquibaseConfiguration.class)
+            .toInstance(GuiceLiquibaseConfig.Builder.of(streamedConfig)
+                .withLiquibaseConfig(parsedConfig)
+                .withLiquibaseConfig(streamedAgainConfig)
+                .build()));
+    MigrationMetrics metrics = injector.getInstance(MigrationMetrics.class);
+
+    assertThat(Fixtures.readChangeLogHistory(streamedDataSource))
+        .containsExactly(
+            "liquibase/streaming/firstChangeLog.xml::1",
+            "liquibase/changeLog.xml::1",
+            "liquibase/changeLog.xml::2")
+        .isEqualTo(Fixtures.readChangeLogHistory(parsedDataSource));
+    assertThat(metrics.getSnapshot().get(streamedConfig).getAppliedChangeSets())
+        .isEqualTo(3);
+    assertThat(metrics.getSnapshot().get(streamedAgainConfig).getAppliedChangeSets())
+        .isZero();
+    assertThat(ChangeLogTables.isLocked(streamedDataSource))
+        .isFalse();
+  }
+
+  @Test
+  void shouldSwitchStreamingOfNonRelativeIncludesOnSameDatabase(@TempDir Path directory)
+      throws Exception {
+    Files.createDirectories(directory.resolve("other"));
+    Fixtures.writeChangeLog(directory.resolve("rootChangeLog.xml"),
+        "<include file=\"other\\changeLog.xml\"/>"
+            + "<include file=\"./other/secondChangeLog.xml\"/>");
+    Fixtures.writeChangeLog(directory.resolve("other/changeLog.xml"),
+        "<changeSet id=\"1\" author=\"tester\"><sql>CREATE TABLE first_table (id INT)</sql>"
+            + "</changeSet>");
+    Fixtures.writeChangeLog(directory.resolve("other/secondChangeLog.xml"),
+        "<changeSet id=\"2\" author=\"tester\"><sql>CREATE TABLE second_table (id INT)</sql>"
+            + "</changeSet>");
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig streamedConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("rootChangeLog.xml")
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .withStreaming(true)
+        .build();
+    LiquibaseConfig parsedConfig = LiquibaseConfig.Builder.of(streamedConfig, dataSource)
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .withStreaming(false)
+        .build();
+    LiquibaseConfig streamedAgainConfig = LiquibaseConfig.Builder.of(streamedConfig, dataSource)
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .build();
+
+    MigrationHandle streamedHandle = createMigrationHandle(streamedConfig);
+    List<String> history = Fixtures.readChangeLogHistory(dataSource);
+    MigrationHandle parsedHandle = createMigrationHandle(parsedConfig);
+    MigrationHandle streamedAgainHandle = createMigrationHandle(streamedAgainConfig);
+
+    assertThat(streamedHandle.getMigration(streamedConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(parsedHandle.getMigration(parsedConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(streamedAgainHandle.getMigration(streamedAgainConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(history)
+        .containsExactly("other/changeLog.xml::1", "./other/secondChangeLog.xml::2")
+        .isEqualTo(Fixtures.readChangeLogHistory(dataSource));
+  }
+
+  @Test
+  void shouldExpandPropertiesOfEarlierStreamedFiles(@TempDir Path directory) throws Exception {
+    Fixtures.writeChangeLog(directory.resolve("rootChangeLog.xml"),
+        "<include file=\"first.xml\"/><include file=\"second.xml\"/>");
+    Fixtures.writeChangeLog(directory.resolve("first.xml"),
+        "<property name=\"table.name\" value=\"property_table\"/>"
+            + "<changeSet id=\"1\" author=\"tester\"><sql>CREATE TABLE first_table (id INT)</sql>"
+            + "</changeSet>");
+    Fixtures.writeChangeLog(directory.resolve("second.xml"),
+        "<changeSet id=\"2\" author=\"tester\"><sql>CREATE TABLE ${table.name} (id INT)</sql>"
+            + "</changeSet>");
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig streamedConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("rootChangeLog.xml")
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .withStreaming(true)
+        .build();
+    LiquibaseConfig parsedConfig = LiquibaseConfig.Builder.of(streamedConfig, dataSource)
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .withStreaming(false)
+        .build();
+
+    MigrationHandle streamedHandle = createMigrationHandle(streamedConfig);
+    MigrationHandle parsedHandle = createMigrationHandle(parsedConfig);
+
+    assertThat(streamedHandle.getMigration(streamedConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(parsedHandle.getMigration(parsedConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(Fixtures.readChangeLogHistory(dataSource))
+        .containsExactly("first.xml::1", "second.xml::2");
+    try (Connection connection = dataSource.getConnection();
+        ResultSet tables = connection.getMetaData()
+            .getTables(null, null, "PROPERTY_TABLE", null)) {
+      assertThat(tables.next())
+          .isTrue();
+    }
+  }
+
+  @Test
+  void shouldRecordBaselineOfAllStreamedFilesBeforeFailedUpdate(@TempDir Path directory)
+      throws Exception {
+    Fixtures.writeChangeLog(directory.resolve("rootChangeLog.xml"),
+        "<include file=\"first.xml\"/><include file=\"second.xml\"/>");
+    Fixtures.writeChangeLog(directory.resolve("first.xml"),
+        "<changeSet id=\"1\" author=\"tester\"><sql>CREATE TABLE first_table (id INT)</sql>"
+            + "</changeSet><changeSet id=\"3\" author=\"tester\">"
+            + "<sql>INSERT INTO missing_table VALUES (1)</sql></changeSet>");
+    Fixtures.writeChangeLog(directory.resolve("second.xml"),
+        "<changeSet id=\"2\" author=\"tester\"><sql>CREATE TABLE second_table (id INT)</sql>"
+            + "</changeSet>");
+    Files.write(directory.resolve("baseline.sql"),
+        "CREATE TABLE first_table (id INT);\nCREATE TABLE second_table (id INT);"
+            .getBytes(StandardCharsets.UTF_8));
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig failingConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("rootChangeLog.xml")
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .withStreaming(true)
+        .withBaseline(BaselineSnapshot.Builder.of("baseline.sql")
+            .withChangeSets(ImmutableList.of("first.xml::1::tester", "second.xml::2::tester"))
+            .build())
+        .build();
+
+    assertThatThrownBy(() -> createMigrationHandle(failingConfig))
+        .isInstanceOf(CreationException.class);
+    Fixtures.writeChangeLog(directory.resolve("first.xml"),
+        "<changeSet id=\"1\" author=\"tester\"><sql>CREATE TABLE first_table (id INT)</sql>"
+            + "</changeSet><changeSet id=\"3\" author=\"tester\">"
+            + "<sql>INSERT INTO first_table VALUES (1)</sql></changeSet>");
+    LiquibaseConfig fixedConfig = LiquibaseConfig.Builder.of(failingConfig, dataSource)
+        .withResourceAccessor(new DirectoryResourceAccessor(directory))
+        .build();
+    MigrationHandle fixedHandle = createMigrationHandle(fixedConfig);
+
+    assertThat(fixedHandle.getMigration(fixedConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(Fixtures.readChangeLogHistory(dataSource))
+        .containsExactly("first.xml::1", "second.xml::2", "first.xml::3");
+  }
+
+  @Test
+  void shouldApplyBaselineSnapshotOnEmptyDatabase() throws Exception {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig baselineConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/baseline/changeLog.xml")
+        .withBaseline(BaselineSnapshot.Builder.of("liquibase/baseline/baseline.sql")
+            .withChangeSets(ImmutableList.of(
+                "liquibase/baseline/changeLog.xml::1::tester",
+                "liquibase/baseline/changeLog.xml::2::tester"))
+            .build())
+        .build();
+    LiquibaseConfig validatingConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/baseline/changeLog.xml")
+        .withDependency(baselineConfig)
+        .build();
+    LiquibaseConfig repeatedConfig = LiquibaseConfig.Builder.of(baselineConfig, dataSource)
+        .withDependency(validatingConfig)
+        .build();
+
+    Injector injector = Guice.createInjector(
+        new GuiceLiquibaseModule(),
+        binder -> binder.bind(GuiceLiquibaseConfig.class)
+            .annotatedWith(GuiceLiquibaseConfiguration.class)
+            .toInstance(GuiceLiquibaseConfig.Builder.of(baselineConfig)
+                .withLiquibaseConfig(validatingConfig)
+                .withLiquibaseConfig(repeatedConfig)
+                .build()));
+    MigrationMetrics metrics = injector.getInstance(MigrationMetrics.class);
+
+    assertThat(Fixtures.readChangeLogHistory(dataSource))
+        .containsExactly(
+            "liquibase/baseline/changeLog.xml::1",
+            "liquibase/baseline/changeLog.xml::2",
+            "liquibase/baseline/changeLog.xml::3");
+    assertThat(metrics.getSnapshot().get(baselineConfig).getAppliedChangeSets())
+        .isEqualTo(1);
+    assertThat(metrics.getSnapshot().get(baselineConfig).getPhaseDurations())
+        .containsKey(MigrationPhase.BASELINE);
+    assertThat(metrics.getSnapshot().get(validatingConfig).getAppliedChangeSets())
+        .isZero();
+    assertThat(metrics.getSnapshot().get(repeatedConfig).getAppliedChangeSets())
+        .isZero();
+    assertThat(ChangeLogTables.isLocked(dataSource))
+        .isFalse();
+  }
+
+  @Test
+  void shouldApplyChangeLogFromResourceArchive(@TempDir Path directory) throws Exception {
+    Path archive = directory.resolve("resources.gla");
+    ResourceArchiveWriter.write(archive, ImmutableList.of(Paths.get(getClass().getClassLoader()
+        .getResource("liquibase/precompiled/rootChangeLog.xml").toURI()).getParent()));
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+
+    try (MappedArchiveResourceAccessor resourceAccessor =
+        new MappedArchiveResourceAccessor(archive)) {
+      MigrationHandle migrationHandle = Guice.createInjector(
+              new GuiceLiquibaseModule(),
+              binder -> binder.bind(GuiceLiquibaseConfig.class)
+                  .annotatedWith(GuiceLiquibaseConfiguration.class)
+                  .toInstance(GuiceLiquibaseConfig.Builder.of(
+                      LiquibaseConfig.Builder.of(dataSource)
+                          .withChangeLogPath("rootChangeLog.xml")
+                          .withResourceAccessor(resourceAccessor)
+                          .withParameter("tableName", "archive_table")
+                          .build())
+                      .build()))
+          .getInstance(MigrationHandle.class);
+
+      assertThat(migrationHandle.getReport().join().isSuccessful())
+          .isTrue();
+    }
+    assertThat(ChangeLogTables.containsChangeSet(dataSource, "2::tester"))
+        .isTrue();
+  }
+
+  @Test
+  void shouldApplyDeferredChangeSetsInBackground() throws Exception {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    List<Runnable> deferredTasks = Lists.newArrayList();
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/deferredChangeLog.xml")
+        .withCriticalLabels("!deferred")
+        .build();
+
+    MigrationHandle migrationHandle = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig)
+                    .withDeferredExecutor(deferredTasks::add)
+                    .withThreadLocalScopes(true)
+                    .build()))
+        .getInstance(MigrationHandle.class);
+
+    assertThat(migrationHandle.getMigration(liquibaseConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(ChangeLogTables.containsChangeSet(dataSource, "1::tester"))
+        .isTrue();
+    assertThat(ChangeLogTables.containsChangeSet(dataSource, "2::tester"))
+        .isFalse();
+    assertThat(migrationHandle.getDeferredMigration(liquibaseConfig))
+        .isNotDone();
+
+    deferredTasks.forEach(Runnable::run);
+
+    assertThat(migrationHandle.getDeferredMigration(liquibaseConfig))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(migrationHandle.getAllDeferredMigrations())
+        .isCompleted();
+    assertThat(ChangeLogTables.containsChangeSet(dataSource, "2::tester"))
+        .isTrue();
+  }
+
+  @Test
+  void shouldSkipElectionWhenExpectedChangeSetIsApplied() {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    Guice.createInjector(new GuiceLiquibaseModule(), binder -> binder
+        .bind(GuiceLiquibaseConfig.class)
+        .annotatedWith(GuiceLiquibaseConfiguration.class)
+        .toInstance(GuiceLiquibaseConfig.Builder.of(
+            LiquibaseConfig.Builder.of(dataSource).build()).build()));
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withClusterCoordination(ClusterCoordination.Builder.of("2::tester").build())
+        .build();
+
+    MigrationHandle migrationHandle = Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig).build()))
+        .getInstance(MigrationHandle.class);
+
+    assertThat(migrationHandle.getMigration(liquibaseConfig))
+        .isCompletedWithValue(MigrationOutcome.UP_TO_DATE);
+  }
+
+  @Test
+  void shouldFailFollowerWhenLeaderDidNotApplyChangeLog() throws Exception {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    Guice.createInjector(new GuiceLiquibaseModule(), binder -> binder
+        .bind(GuiceLiquibaseConfig.class)
+        .annotatedWith(GuiceLiquibaseConfiguration.class)
+        .toInstance(GuiceLiquibaseConfig.Builder.of(
+            LiquibaseConfig.Builder.of(dataSource).build()).build()));
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            "UPDATE DATABASECHANGELOGLOCK SET LOCKED = TRUE, LOCKEDBY = 'other' WHERE ID = 1")) {
+      preparedStatement.executeUpdate();
+    }
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/changeLogMulti.xml")
+        .withClusterCoordination(ClusterCoordination.Builder.of("multi::tester")
+            .withPollInterval(Duration.ofMillis(10))
+            .withTimeout(Duration.ofMillis(50))
+            .build())
+        .build();
+
+    assertThatThrownBy(() -> Guice.createInjector(
+        new GuiceLiquibaseModule(),
+        binder -> binder.bind(GuiceLiquibaseConfig.class)
+            .annotatedWith(GuiceLiquibaseConfiguration.class)
+            .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig).build())))
+        .hasRootCauseInstanceOf(UnexpectedLiquibaseException.class)
+        .hasStackTraceContaining("Changeset multi::tester of liquibase/changeLogMulti.xml was not applied "
+            + "by the leader in PT0.05S.");
+  }
+
+  @Test
+  void shouldExecuteLiquibaseUpdateForTenants() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<DataSource> tenants = Lists.newArrayList(
+        Fixtures.createJdbcDataSource(),
+        Fixtures.createJdbcDataSource(),
+        Fixtures.createJdbcDataSource());
+    DataSource failingTenant = mock(DataSource.class);
+    tenants.add(failingTenant);
+    LiquibaseConfig template = LiquibaseConfig.Builder.of(failingTenant).build();
+    try {
+      MigrationReport report = Guice.createInjector(
+              new GuiceLiquibaseModule(),
+              binder -> binder.bind(GuiceLiquibaseConfig.class)
+                  .annotatedWith(GuiceLiquibaseConfiguration.class)
+                  .toInstance(GuiceLiquibaseConfig.Builder.of()
+                      .withTenants(template, tenants)
+                      .withHostConcurrency(dataSource -> "localhost", 2)
+                      .withExecutor(executor)
+                      .withThreadLocalScopes(true)
+                      .withAsync(true)
+                      .build()))
+          .getInstance(MigrationHandle.class)
+          .getReport()
+          .get(30, TimeUnit.SECONDS);
+
+      assertThat(report.isSuccessful())
+          .isFalse();
+      assertThat(report.getOutcomes())
+          .hasSize(3)
+          .containsValues(MigrationOutcome.APPLIED);
+      assertThat(report.getFailures())
+          .containsOnlyKeys(template);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldReportPhasesToMigrationListeners() {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource).build();
+    List<MigrationPhase> phases = Collections.synchronizedList(Lists.newArrayList());
+    Injector injector = Guice.createInjector(
+        new GuiceLiquibaseModule(),
+        binder -> {
+          binder.bind(GuiceLiquibaseConfig.class)
+              .annotatedWith(GuiceLiquibaseConfiguration.class)
+              .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig).build());
+          Multibinder<MigrationListener> listeners =
+              Multibinder.newSetBinder(binder, MigrationListener.class);
+          listeners.addBinding().toInstance(new MigrationListener() {
+            @Override
+            public void phaseFinished(
+                LiquibaseConfig config, MigrationPhase phase, Duration duration) {
+              phases.add(phase);
+            }
+          });
+          listeners.addBinding().toInstance(new MigrationListener() {
+            @Override
+            public void phaseStarted(LiquibaseConfig config, MigrationPhase phase) {
+              throw new IllegalStateException("listener failed.");
+            }
+          });
+        });
+
+    MigrationMetrics.Snapshot snapshot = injector.getInstance(MigrationMetrics.class)
+        .getSnapshot()
+        .get(liquibaseConfig);
+
+    assertThat(phases)
+        .contains(MigrationPhase.CONNECTION, MigrationPhase.DIALECT_DETECTION,
+            MigrationPhase.CHANGELOG_PARSING, MigrationPhase.UPDATE, MigrationPhase.LOCK_WAIT,
+            MigrationPhase.HISTORY_READ)
+        .doesNotContain(MigrationPhase.FINGERPRINT, MigrationPhase.DROP_ALL);
+    assertThat(snapshot.getPhaseDurations())
+        .containsOnlyKeys(Sets.newHashSet(phases));
+    assertThat(snapshot.getAppliedChangeSets())
+        .isPositive()
+        .isEqualTo(snapshot.getChangeSetDurations().size());
+    assertThat(snapshot.getSkippedChangeSets())
+        .isZero();
+    assertThat(snapshot.getLockWait())
+        .isEqualTo(snapshot.getPhaseDurations().get(MigrationPhase.LOCK_WAIT));
+  }
+
+  @Test
+  void shouldExposeMigrationStatus() {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource).build();
+    Injector injector = Guice.createInjector(
+        new GuiceLiquibaseModule(),
+        binder -> binder.bind(GuiceLiquibaseConfig.class)
+            .annotatedWith(GuiceLiquibaseConfiguration.class)
+            .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig).build()));
+
+    MigrationStatus status = injector.getInstance(MigrationStatus.class);
+    MigrationStatus.ConfigStatus configStatus = status.getStatus(liquibaseConfig).get();
+
+    assertThat(status.isReady())
+        .isTrue();
+    assertThat(configStatus.getState())
+        .isEqualTo(MigrationStatus.State.DONE);
+    assertThat(configStatus.getOutcome())
+        .contains(MigrationOutcome.APPLIED);
+    assertThat(configStatus.getAppliedChangeSets())
+        .isPositive()
+        .isEqualTo(configStatus.getTotalChangeSets());
+  }
+
   @Test
   void shouldNotExecuteUpdateWhenShouldRunIsDisabled() {
     DataSource dataSource = mock(DataSource.class);
@@ -139,6 +1101,90 @@ class GuiceLiquibaseModuleTest {
         });
   }
 
+  @Test
+  void shouldApplyConfigWithinDeadline() throws SQLException {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+
+    Guice.createInjector(new GuiceLiquibaseModule(), binder -> binder
+        .bind(GuiceLiquibaseConfig.class)
+        .annotatedWith(GuiceLiquibaseConfiguration.class)
+        .toInstance(GuiceLiquibaseConfig.Builder.of(LiquibaseConfig.Builder.of(dataSource)
+                .withChangeLogPath("liquibase/deferredChangeLog.xml")
+                .withDeadline(Duration.ofMinutes(1))
+                .build())
+            .build()));
+
+    assertThat(ChangeLogTables.containsChangeSet(dataSource, "2::tester"))
+        .isTrue();
+  }
+
+  @Test
+  void shouldFailWhenDeadlineOfConfigPassed() {
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+
+    assertThatThrownBy(() -> Guice.createInjector(new GuiceLiquibaseModule(), binder -> binder
+        .bind(GuiceLiquibaseConfig.class)
+        .annotatedWith(GuiceLiquibaseConfiguration.class)
+        .toInstance(GuiceLiquibaseConfig.Builder.of(LiquibaseConfig.Builder.of(dataSource)
+                .withDeadline(Duration.ofNanos(1))
+                .build())
+            .build())))
+        .isInstanceOf(CreationException.class)
+        .hasRootCauseInstanceOf(MigrationAbortedException.class);
+  }
+
+  @Test
+  void shouldCancelUpdateOfConfigWithoutDeadline() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    DataSource dataSource = Fixtures.createJdbcDataSource();
+    createMigrationHandle(LiquibaseConfig.Builder.of(dataSource).build());
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(
+            "UPDATE DATABASECHANGELOGLOCK SET LOCKED = TRUE, LOCKEDBY = 'other' WHERE ID = 1")) {
+      preparedStatement.executeUpdate();
+    }
+    LiquibaseConfig liquibaseConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/changeLogMulti.xml")
+        .build();
+    CountDownLatch lockWait = new CountDownLatch(1);
+    try {
+      MigrationHandle migrationHandle = Guice.createInjector(
+              new GuiceLiquibaseModule(),
+              binder -> {
+                binder.bind(GuiceLiquibaseConfig.class)
+                    .annotatedWith(GuiceLiquibaseConfiguration.class)
+                    .toInstance(GuiceLiquibaseConfig.Builder.of(liquibaseConfig)
+                        .withExecutor(executor)
+                        .withThreadLocalScopes(true)
+                        .withAsync(true)
+                        .build());
+                Multibinder.newSetBinder(binder, MigrationListener.class)
+                    .addBinding()
+                    .toInstance(new MigrationListener() {
+                      @Override
+                      public void phaseStarted(LiquibaseConfig config, MigrationPhase phase) {
+                        if (phase == MigrationPhase.LOCK_WAIT) {
+                          lockWait.countDown();
+                        }
+                      }
+                    });
+              })
+          .getInstance(MigrationHandle.class);
+      assertThat(lockWait.await(10, TimeUnit.SECONDS))
+          .isTrue();
+
+      // Liquibase would poll the lock held elsewhere for minutes.
+      migrationHandle.cancel(liquibaseConfig);
+
+      assertThatThrownBy(() -> migrationHandle.getMigration(liquibaseConfig)
+          .get(5, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class)
+          .hasRootCauseInstanceOf(MigrationAbortedException.class);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   void shouldThrowExceptionForNotDefinedRequiredBinding() {
     assertThatThrownBy(() -> Guice.createInjector(new GuiceLiquibaseModule()))
@@ -240,6 +1286,7 @@ class GuiceLiquibaseModuleTest {
         .hasRootCauseInstanceOf(NullPointerException.class);
 
     verify(dataSource).getConnection();
+    verify(connection).getMetaData();
     verify(connection).close();
     verify(database).close();
     verifyNoMoreInteractions(connection, dataSource);
@@ -258,6 +1305,10 @@ class GuiceLiquibaseModuleTest {
             Monitor.class,
             new Monitor(true),
             new Monitor(false))
+        .withPrefabValues(
+            MigrationHandle.class,
+            new MigrationHandle(Collections.emptySet()),
+            new MigrationHandle(Collections.emptySet()))
         .verify();
   }
 
@@ -267,6 +1318,23 @@ class GuiceLiquibaseModuleTest {
         .withIgnoredFields("dataSource", "resourceAccessor").verify();
   }
 
+  private static MigrationHandle createMigrationHandle(LiquibaseConfig config) {
+    return Guice.createInjector(
+            new GuiceLiquibaseModule(),
+            binder -> binder.bind(GuiceLiquibaseConfig.class)
+                .annotatedWith(GuiceLiquibaseConfiguration.class)
+                .toInstance(GuiceLiquibaseConfig.Builder.of(config).build()))
+        .getInstance(MigrationHandle.class);
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private Class<GuiceLiquibaseModule.GuiceLiquibaseEngine> getGuiceLiquibaseEngineClass() {
     try {
@@ -329,6 +1397,29 @@ class GuiceLiquibaseModuleTest {
           .toInstance(config);
     };
 
+    private static List<String> readChangeLogHistory(DataSource dataSource)
+        throws SQLException {
+      List<String> changeSets = Lists.newArrayList();
+      try (Connection connection = dataSource.getConnection();
+          PreparedStatement statement = connection.prepareStatement(
+              "SELECT FILENAME, ID FROM DATABASECHANGELOG ORDER BY ORDEREXECUTED");
+          ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          changeSets.add(resultSet.getString(1) + "::" + resultSet.getString(2));
+        }
+      }
+      return changeSets;
+    }
+
+    private static void writeChangeLog(Path path, String content) throws IOException {
+      Files.write(path, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<databaseChangeLog xmlns=\"http://www.liquibase.org/xml/ns/dbchangelog\""
+          + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+          + " xsi:schemaLocation=\"http://www.liquibase.org/xml/ns/dbchangelog"
+          + " http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.1.xsd\">"
+          + content + "</databaseChangeLog>").getBytes(StandardCharsets.UTF_8));
+    }
+
     private static JDBCDataSource createJdbcDataSource() {
       JDBCDataSource dataSource = new JDBCDataSource();
       dataSource.setDatabase("jdbc:hsqldb:mem:" + UUID.randomUUID());
@@ -10,9 +10,12 @@ import com.google.common.collect.Lists;
 import com.jparams.verifier.tostring.NameStyle;
 import com.jparams.verifier.tostring.ToStringVerifier;
 import io.github.michaljonko.guiceliquibase.LiquibaseConfig.Builder;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import javax.sql.DataSource;
+import liquibase.database.core.HsqlDatabase;
 import liquibase.resource.ResourceAccessor;
 import liquibase.sdk.resource.MockResourceAccessor;
 import nl.jqno.equalsverifier.EqualsVerifier;
@@ -79,6 +82,191 @@ class LiquibaseConfigTest {
         .isNotEqualTo(Builder.of(builder).withParameter("k", "v"));
   }
 
+  @Test
+  void shouldCreateConfigWithDependencies() {
+    LiquibaseConfig first = Builder.of(mock(DataSource.class)).build();
+    LiquibaseConfig second = Builder.of(mock(DataSource.class)).build();
+
+    LiquibaseConfig config = Builder.of(Fixtures.DATA_SOURCE)
+        .withDependency(first)
+        .withDependencies(Lists.newArrayList(second))
+        .build();
+
+    assertThat(config.getDependencies())
+        .containsExactly(first, second);
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withDependency(first)).build())
+        .isEqualTo(Builder.of(Fixtures.DATA_SOURCE).withDependency(first).build());
+  }
+
+  @Test
+  void shouldCreateConfigWithFingerprintStore() {
+    FingerprintStore store = FingerprintStore.database();
+
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().getFingerprintStore())
+        .isEmpty();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withFingerprintStore(store))
+        .build()
+        .getFingerprintStore())
+        .contains(store);
+  }
+
+  @Test
+  void shouldCreateConfigWithLockStrategy() {
+    LockStrategy lockStrategy = LockStrategy.failFast();
+
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().getLockStrategy())
+        .isEmpty();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withLockStrategy(lockStrategy))
+        .build()
+        .getLockStrategy())
+        .contains(lockStrategy);
+  }
+
+  @Test
+  void shouldCreateLazyConfig() {
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().isLazy())
+        .isFalse();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withLazy(true))
+        .build()
+        .isLazy())
+        .isTrue();
+  }
+
+  @Test
+  void shouldCreateStreamingConfig() {
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().isStreaming())
+        .isFalse();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withStreaming(true))
+        .build()
+        .isStreaming())
+        .isTrue();
+  }
+
+  @Test
+  void shouldCreateTemplateCloningConfig() {
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().isTemplateCloning())
+        .isFalse();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withTemplateCloning(true))
+        .build()
+        .isTemplateCloning())
+        .isTrue();
+  }
+
+  @Test
+  void shouldCreateSharedMigrationConfig() {
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().isSharedMigration())
+        .isFalse();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withSharedMigration(true))
+        .build()
+        .isSharedMigration())
+        .isTrue();
+  }
+
+  @Test
+  void shouldCreateConfigWithBaseline() {
+    BaselineSnapshot baseline = BaselineSnapshot.Builder.of("baseline.sql")
+        .withChangeSet("changeLog.xml::1::tester")
+        .build();
+
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().getBaseline())
+        .isEmpty();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withBaseline(baseline))
+        .build()
+        .getBaseline())
+        .contains(baseline);
+  }
+
+  @Test
+  void shouldCreateConfigWithDatabaseClass() {
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().getDatabaseClass())
+        .isEmpty();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withDatabaseClass(HsqlDatabase.class))
+        .build()
+        .getDatabaseClass())
+        .contains(HsqlDatabase.class);
+  }
+
+  @Test
+  void shouldCreateConfigWithCriticalLabels() {
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().getCriticalLabels())
+        .isEmpty();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withCriticalLabels("!deferred"))
+        .build()
+        .getCriticalLabels())
+        .contains("!deferred");
+  }
+
+  @Test
+  void shouldCreateConfigWithDeadline() {
+    assertThat(Builder.of(Fixtures.DATA_SOURCE).build().getDeadline())
+        .isEmpty();
+    assertThat(Builder.of(Builder.of(Fixtures.DATA_SOURCE).withDeadline(Duration.ofMinutes(1)))
+        .build()
+        .getDeadline())
+        .contains(Duration.ofMinutes(1));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of(Fixtures.DATA_SOURCE).withDeadline(Duration.ZERO))
+        .withMessageContaining("deadline must be positive.");
+  }
+
+  @Test
+  void shouldNotCopyMigrationDataSourceToTenants() {
+    DataSource migrationDataSource = mock(DataSource.class);
+    Semaphore budget = new Semaphore(2);
+    LiquibaseConfig template = Builder.of(Fixtures.DATA_SOURCE)
+        .withMigrationDataSource(migrationDataSource)
+        .withConnectionBudget(budget)
+        .build();
+    DataSource tenant = mock(DataSource.class);
+
+    LiquibaseConfig config = Builder.of(template, tenant).build();
+
+    assertThat(template.getMigrationDataSource())
+        .isSameAs(migrationDataSource);
+    assertThat(config.getMigrationDataSource())
+        .isSameAs(tenant);
+    assertThat(config.getConnectionBudget())
+        .containsSame(budget);
+  }
+
+  @Test
+  void shouldThrowExceptionForNotDefinedDependency() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of(Fixtures.DATA_SOURCE).withDependency(null))
+        .withMessageContaining("dependency must be defined.");
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of(Fixtures.DATA_SOURCE).withDependencies(null))
+        .withMessageContaining("dependencies must be defined.");
+  }
+
+  @Test
+  void shouldCreateConfigFromTemplate() {
+    LiquibaseConfig template = Builder.of(Fixtures.DATA_SOURCE)
+        .withChangeLogPath(Fixtures.CHANGELOG_PATH)
+        .withDropFirst(Fixtures.DROP_FIRST)
+        .withShouldRun(Fixtures.SHOULD_RUN)
+        .withResourceAccessor(Fixtures.RESOURCE_ACCESSOR)
+        .withContexts(Fixtures.CONTEXT)
+        .withLabels(Fixtures.LABELS)
+        .withParameters(Fixtures.PARAMETERS)
+        .build();
+    DataSource tenant = mock(DataSource.class);
+
+    LiquibaseConfig config = Builder.of(template, tenant).build();
+
+    assertThat(config.getDataSource())
+        .isSameAs(tenant);
+    assertThat(Builder.of(template, Fixtures.DATA_SOURCE).build())
+        .isEqualTo(template);
+  }
+
+  @Test
+  void shouldThrowExceptionForNotDefinedTemplate() {
+    assertThatNullPointerException()
+        .isThrownBy(() -> Builder.of(null, Fixtures.DATA_SOURCE))
+        .withMessageContaining("template must be defined.");
+  }
+
   @Test
   void shouldThrowExceptionForBuilderWithEmptyChangeLogPath() {
     assertThatIllegalArgumentException()
@@ -110,6 +298,10 @@ class LiquibaseConfigTest {
   void shouldPassEqualsAndHashCodeContracts() {
     EqualsVerifier.forClass(LiquibaseConfig.class)
         .usingGetClass()
+        .withPrefabValues(
+            LiquibaseConfig.class,
+            Builder.of(mock(DataSource.class)).build(),
+            Builder.of(mock(DataSource.class)).build())
         .verify();
   }
 
@@ -0,0 +1,120 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jparams.verifier.tostring.NameStyle;
+import com.jparams.verifier.tostring.ToStringVerifier;
+import io.github.michaljonko.guiceliquibase.LockStrategy.Builder;
+import java.time.Duration;
+import java.util.Date;
+import liquibase.exception.LockException;
+import liquibase.lockservice.DatabaseChangeLogLock;
+import liquibase.lockservice.LockService;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+class LockStrategyTest {
+
+  @Test
+  void shouldAcquireLockAfterBackoff() throws Exception {
+    LockService lockService = mock(LockService.class);
+    when(lockService.acquireLock())
+        .thenReturn(false, false, true);
+
+    Builder.of()
+        .withPollInterval(Duration.ofMillis(1))
+        .withMaxPollInterval(Duration.ofMillis(2))
+        .withWaitBudget(Duration.ofSeconds(10))
+        .build()
+        .acquire(lockService);
+
+    verify(lockService, times(3)).acquireLock();
+  }
+
+  @Test
+  void shouldThrowExceptionWhenWaitBudgetPassed() throws Exception {
+    LockService lockService = mock(LockService.class);
+    when(lockService.acquireLock())
+        .thenReturn(false);
+    when(lockService.listLocks())
+        .thenReturn(new DatabaseChangeLogLock[]{
+            new DatabaseChangeLogLock(1, new Date(0), "other")});
+    LockStrategy lockStrategy = Builder.of()
+        .withPollInterval(Duration.ofMillis(1))
+        .withMaxPollInterval(Duration.ofMillis(1))
+        .withWaitBudget(Duration.ofMillis(20))
+        .build();
+
+    assertThatThrownBy(() -> lockStrategy.acquire(lockService))
+        .isExactlyInstanceOf(LockException.class)
+        .hasMessageContaining("Could not acquire Liquibase lock in PT0.02S. Locked by [other");
+  }
+
+  @Test
+  void shouldTryOnceAndReportLockedElsewhereForFailFast() throws Exception {
+    LockService lockService = mock(LockService.class);
+    when(lockService.acquireLock())
+        .thenReturn(false);
+    when(lockService.listLocks())
+        .thenThrow(new LockException("list failed."));
+
+    assertThatThrownBy(() -> LockStrategy.failFast().acquire(lockService))
+        .isInstanceOf(LockedElsewhereException.class)
+        .hasMessageContaining("Locked by unknown.");
+    verify(lockService, times(1)).acquireLock();
+  }
+
+  @Test
+  void shouldThrowExceptionForInvalidProperties() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of().withPollInterval(Duration.ZERO))
+        .withMessageContaining("pollInterval must be positive.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of().withMaxPollInterval(Duration.ofMillis(-1)))
+        .withMessageContaining("maxPollInterval must be positive.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of().withBackoffMultiplier(0.5))
+        .withMessageContaining("backoffMultiplier must be at least 1.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of().withJitter(1.5))
+        .withMessageContaining("jitter must be between 0 and 1.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of().withWaitBudget(Duration.ofMillis(-1)))
+        .withMessageContaining("waitBudget cannot be negative.");
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> Builder.of()
+            .withPollInterval(Duration.ofSeconds(10))
+            .withMaxPollInterval(Duration.ofSeconds(1))
+            .build())
+        .withMessageContaining("maxPollInterval cannot be shorter than pollInterval.");
+  }
+
+  @Test
+  void shouldCreateEqualStrategies() {
+    assertThat(LockStrategy.failFast())
+        .isEqualTo(Builder.of()
+            .withWaitBudget(Duration.ZERO)
+            .withSkipWhenLocked(true)
+            .build());
+  }
+
+  @Test
+  void shouldPassEqualsAndHashCodeContracts() {
+    EqualsVerifier.forClass(LockStrategy.class)
+        .usingGetClass()
+        .verify();
+  }
+
+  @Test
+  void verifyToString() {
+    ToStringVerifier.forClass(LockStrategy.class)
+        .withClassName(NameStyle.SIMPLE_NAME)
+        .verify();
+  }
+}
@@ -0,0 +1,92 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedArchiveResourceAccessorTest {
+
+  private static final String CHANGELOG_PATH = "liquibase/changeLog.xml";
+  @TempDir
+  Path directory;
+  private Path archive;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    archive = directory.resolve("resources.gla");
+    ResourceArchiveWriter.write(archive, ImmutableList.of(Paths.get(
+        getClass().getClassLoader().getResource(CHANGELOG_PATH).toURI()).getParent().getParent()));
+  }
+
+  @Test
+  void shouldReadResourceFromArchive() throws Exception {
+    try (MappedArchiveResourceAccessor resourceAccessor =
+        new MappedArchiveResourceAccessor(archive)) {
+
+      assertThat(read(resourceAccessor.get("classpath:/" + CHANGELOG_PATH)))
+          .isEqualTo(read(
+              new ClassLoaderResourceAccessor(getClass().getClassLoader()).get(CHANGELOG_PATH)));
+      assertThat(resourceAccessor.get("liquibase/missing.xml").exists())
+          .isFalse();
+    }
+  }
+
+  @Test
+  void shouldSearchDirectoriesInArchive() throws Exception {
+    try (MappedArchiveResourceAccessor resourceAccessor =
+        new MappedArchiveResourceAccessor(archive)) {
+
+      assertThat(resourceAccessor.search("liquibase", false))
+          .extracting(Resource::getPath)
+          .contains(CHANGELOG_PATH, "liquibase/changeLogMulti.xml")
+          .doesNotContain("liquibase/precompiled/rootChangeLog.xml");
+      assertThat(resourceAccessor.search("liquibase/", true))
+          .extracting(Resource::getPath)
+          .contains(CHANGELOG_PATH, "liquibase/precompiled/rootChangeLog.xml");
+    }
+  }
+
+  @Test
+  void shouldResolveSiblingsInArchive() throws Exception {
+    try (MappedArchiveResourceAccessor resourceAccessor =
+        new MappedArchiveResourceAccessor(archive)) {
+
+      Resource sibling = resourceAccessor.get("liquibase/precompiled/rootChangeLog.xml")
+          .resolveSibling("includedChangeLog.xml");
+
+      assertThat(sibling.exists())
+          .isTrue();
+      assertThat(sibling.getPath())
+          .isEqualTo("liquibase/precompiled/includedChangeLog.xml");
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionForInvalidArchive() throws Exception {
+    Path invalid = Files.write(directory.resolve("invalid.gla"), new byte[] {1, 2, 3});
+
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(() -> new MappedArchiveResourceAccessor(invalid));
+    assertThatNullPointerException()
+        .isThrownBy(() -> new MappedArchiveResourceAccessor(null));
+  }
+
+  private static byte[] read(Resource resource) throws IOException {
+    try (InputStream inputStream = resource.openInputStream()) {
+      return ByteStreams.toByteArray(inputStream);
+    }
+  }
+}
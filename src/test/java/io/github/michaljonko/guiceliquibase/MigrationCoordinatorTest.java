@@ -0,0 +1,134 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import liquibase.exception.UnexpectedLiquibaseException;
+import org.junit.jupiter.api.Test;
+
+class MigrationCoordinatorTest {
+
+  private final MigrationCoordinator coordinator = new MigrationCoordinator();
+  private final DataSource dataSource = mock(DataSource.class);
+
+  @Test
+  void shouldMemoizeOutcomeOfMigratedConfig() {
+    AtomicInteger migrations = new AtomicInteger();
+    Supplier<MigrationOutcome> migration = () -> {
+      migrations.incrementAndGet();
+      return MigrationOutcome.APPLIED;
+    };
+
+    assertThat(coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE, migration))
+        .isEqualTo(MigrationOutcome.APPLIED);
+    assertThat(coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE, migration))
+        .isEqualTo(MigrationOutcome.JOINED);
+    assertThat(coordinator.migrate(
+        createConfig(mock(DataSource.class)), MigrationDeadline.NONE, migration))
+        .isEqualTo(MigrationOutcome.APPLIED);
+    assertThat(migrations)
+        .hasValue(2);
+    assertThat(coordinator.size())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void shouldJoinRunningMigration() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(1);
+    CompletableFuture<MigrationOutcome> leader = CompletableFuture.supplyAsync(
+        () -> coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE, () -> {
+          started.countDown();
+          awaitQuietly(finished);
+          return MigrationOutcome.APPLIED;
+        }));
+    assertThat(started.await(10, TimeUnit.SECONDS))
+        .isTrue();
+
+    CompletableFuture<MigrationOutcome> follower = CompletableFuture.supplyAsync(
+        () -> coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE,
+            () -> MigrationOutcome.APPLIED));
+    finished.countDown();
+
+    assertThat(leader.get(10, TimeUnit.SECONDS))
+        .isEqualTo(MigrationOutcome.APPLIED);
+    assertThat(follower.get(10, TimeUnit.SECONDS))
+        .isEqualTo(MigrationOutcome.JOINED);
+  }
+
+  @Test
+  void shouldStopWaitingForRunningMigrationWhenCancelled() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(1);
+    CompletableFuture<MigrationOutcome> leader = CompletableFuture.supplyAsync(
+        () -> coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE, () -> {
+          started.countDown();
+          awaitQuietly(finished);
+          return MigrationOutcome.APPLIED;
+        }));
+    assertThat(started.await(10, TimeUnit.SECONDS))
+        .isTrue();
+    MigrationDeadline deadline = new MigrationDeadline(null);
+
+    CompletableFuture<MigrationOutcome> follower = CompletableFuture.supplyAsync(
+        () -> coordinator.migrate(createConfig(dataSource), deadline,
+            () -> MigrationOutcome.APPLIED));
+    deadline.cancel();
+
+    assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(MigrationAbortedException.class);
+    finished.countDown();
+    assertThat(leader.get(10, TimeUnit.SECONDS))
+        .isEqualTo(MigrationOutcome.APPLIED);
+  }
+
+  @Test
+  void shouldMigrateAgainAfterFailureOrLockHeldElsewhere() {
+    assertThatThrownBy(() -> coordinator.migrate(createConfig(dataSource),
+        MigrationDeadline.NONE, () -> {
+          throw new UnexpectedLiquibaseException("failed");
+        })).isInstanceOf(UnexpectedLiquibaseException.class);
+    assertThat(coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE,
+        () -> MigrationOutcome.LOCKED_ELSEWHERE))
+        .isEqualTo(MigrationOutcome.LOCKED_ELSEWHERE);
+    assertThat(coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE,
+        () -> MigrationOutcome.APPLIED))
+        .isEqualTo(MigrationOutcome.APPLIED);
+  }
+
+  @Test
+  void shouldMigrateDifferentChangeLogsOfDataSource() {
+    LiquibaseConfig otherConfig = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("liquibase/emptyChangeLog.xml")
+        .withSharedMigration(true)
+        .build();
+
+    coordinator.migrate(createConfig(dataSource), MigrationDeadline.NONE,
+        () -> MigrationOutcome.APPLIED);
+
+    assertThat(coordinator.migrate(otherConfig, MigrationDeadline.NONE,
+        () -> MigrationOutcome.APPLIED))
+        .isEqualTo(MigrationOutcome.APPLIED);
+  }
+
+  private static LiquibaseConfig createConfig(DataSource dataSource) {
+    return LiquibaseConfig.Builder.of(dataSource)
+        .withSharedMigration(true)
+        .build();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import liquibase.Scope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MigrationDeadlineTest {
+
+  private Connection connection;
+  private PreparedStatement statement;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    connection = mock(Connection.class);
+    statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+  }
+
+  @Test
+  void shouldSetQueryTimeoutToRemainingTime() throws Exception {
+    MigrationDeadline deadline = new MigrationDeadline(Duration.ofSeconds(30));
+    deadline.start();
+
+    Scope.child(Collections.singletonMap(MigrationDeadline.SCOPE_KEY, deadline),
+        () -> MigrationDeadline.wrap(connection).prepareStatement("SELECT 1").execute());
+
+    verify(statement).setQueryTimeout(30);
+    verify(statement).execute();
+  }
+
+  @Test
+  void shouldCancelExecutedStatement() throws Exception {
+    MigrationDeadline deadline = new MigrationDeadline(null);
+    when(statement.executeUpdate()).then(invocation -> {
+      deadline.cancel();
+      return 1;
+    });
+    PreparedStatement wrapped = MigrationDeadline.wrap(connection).prepareStatement("DELETE");
+
+    Scope.child(Collections.singletonMap(MigrationDeadline.SCOPE_KEY, deadline),
+        () -> wrapped.executeUpdate());
+
+    verify(statement).cancel();
+    assertThatThrownBy(() -> Scope.child(
+        Collections.singletonMap(MigrationDeadline.SCOPE_KEY, deadline),
+        () -> wrapped.executeUpdate()))
+        .isInstanceOf(SQLException.class)
+        .hasMessageContaining("Liquibase update was cancelled.");
+    assertThatExceptionOfType(MigrationAbortedException.class)
+        .isThrownBy(deadline::check)
+        .withMessageContaining("cancelled");
+  }
+
+  @Test
+  void shouldStopUpdateWhenDeadlinePassed() throws Exception {
+    MigrationDeadline deadline = new MigrationDeadline(Duration.ofMillis(1));
+    deadline.start();
+    TimeUnit.MILLISECONDS.sleep(5);
+
+    assertThat(deadline.getRemaining())
+        .contains(Duration.ZERO);
+    assertThatExceptionOfType(MigrationAbortedException.class)
+        .isThrownBy(deadline::check)
+        .withMessageContaining("deadline of PT0.001S");
+    assertThat(MigrationDeadline.current())
+        .isSameAs(MigrationDeadline.NONE);
+    assertThat(MigrationDeadline.NONE.getRemaining())
+        .isEmpty();
+  }
+}
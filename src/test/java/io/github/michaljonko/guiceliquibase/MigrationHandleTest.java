@@ -0,0 +1,249 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.jparams.verifier.tostring.NameStyle;
+import com.jparams.verifier.tostring.ToStringVerifier;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import liquibase.Scope;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+class MigrationHandleTest {
+
+  @Test
+  void shouldCompleteMigrations() {
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList(first, second));
+
+    migrationHandle.complete(first, MigrationOutcome.APPLIED, null);
+
+    assertThat(migrationHandle.getMigration(first))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(migrationHandle.getMigration(second))
+        .isNotDone();
+    assertThat(migrationHandle.getAllMigrations())
+        .isNotDone();
+
+    migrationHandle.complete(second, null, new IllegalStateException("failed."));
+
+    assertThat(migrationHandle.getMigration(second))
+        .isCompletedExceptionally();
+    assertThat(migrationHandle.getAllMigrations())
+        .isCompletedExceptionally();
+  }
+
+  @Test
+  void shouldReturnDataSourceWaitingForMigration() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(dataSource).build();
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList(config));
+    List<LiquibaseConfig> triggered = Lists.newArrayList();
+
+    migrationHandle.complete(config, MigrationOutcome.APPLIED, null);
+    migrationHandle.attachTrigger(triggered::add);
+
+    assertThat(migrationHandle.getDataSource(config).getConnection())
+        .isSameAs(connection);
+    assertThat(triggered)
+        .containsExactly(config);
+  }
+
+  @Test
+  void shouldThrowExceptionFromDataSourceWhenMigrationFailed() {
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList(config));
+    IllegalStateException failure = new IllegalStateException("failed.");
+
+    migrationHandle.complete(config, null, failure);
+
+    assertThatThrownBy(() -> migrationHandle.getDataSource(config).getConnection())
+        .isInstanceOf(SQLException.class)
+        .hasCause(failure);
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> migrationHandle.getDataSource(
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build()))
+        .withMessageContaining("config is not registered.");
+  }
+
+  @Test
+  void shouldCreateReport() {
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList(first, second));
+    IllegalStateException failure = new IllegalStateException("failed.");
+
+    migrationHandle.complete(first, MigrationOutcome.APPLIED, null);
+
+    assertThat(migrationHandle.getReport())
+        .isNotDone();
+
+    migrationHandle.complete(second, null, failure);
+
+    assertThat(migrationHandle.getReport())
+        .isCompletedWithValue(new MigrationReport(
+            ImmutableMap.of(first, MigrationOutcome.APPLIED),
+            ImmutableMap.of(second, failure)));
+    assertThat(migrationHandle.getReport().join().isSuccessful())
+        .isFalse();
+  }
+
+  @Test
+  void shouldNotWaitForUntriggeredLazyConfigs() {
+    LiquibaseConfig prerequisite = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withLazy(true)
+        .build();
+    LiquibaseConfig eager = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withDependency(prerequisite)
+        .build();
+    LiquibaseConfig lazy = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withLazy(true)
+        .build();
+    MigrationHandle migrationHandle =
+        new MigrationHandle(Lists.newArrayList(prerequisite, eager, lazy));
+
+    migrationHandle.complete(eager, MigrationOutcome.APPLIED, null);
+
+    assertThat(migrationHandle.getAllMigrations())
+        .isNotDone();
+    assertThat(migrationHandle.getReport())
+        .isNotDone();
+
+    migrationHandle.complete(prerequisite, MigrationOutcome.APPLIED, null);
+
+    assertThat(migrationHandle.getAllMigrations())
+        .isCompleted();
+    assertThat(migrationHandle.getReport())
+        .isCompletedWithValue(new MigrationReport(
+            ImmutableMap.of(prerequisite, MigrationOutcome.APPLIED,
+                eager, MigrationOutcome.APPLIED),
+            ImmutableMap.of()));
+    assertThat(migrationHandle.getMigration(lazy))
+        .isNotDone();
+  }
+
+  @Test
+  void shouldPassEqualsAndHashCodeContractsForReport() {
+    EqualsVerifier.forClass(MigrationReport.class)
+        .usingGetClass()
+        .withPrefabValues(
+            LiquibaseConfig.class,
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build(),
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build())
+        .verify();
+  }
+
+  @Test
+  void verifyToStringForReport() {
+    ToStringVerifier.forClass(MigrationReport.class)
+        .withClassName(NameStyle.SIMPLE_NAME).verify();
+  }
+
+  @Test
+  void shouldCompleteAllMigrations() {
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList(config));
+
+    migrationHandle.completeAll(MigrationOutcome.SKIPPED);
+
+    assertThat(migrationHandle.getMigration(config))
+        .isCompletedWithValue(MigrationOutcome.SKIPPED);
+    assertThat(migrationHandle.getAllMigrations())
+        .isCompleted();
+  }
+
+  @Test
+  void shouldNotAffectMigrationWhenReturnedFutureIsCompleted() {
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList(config));
+
+    migrationHandle.getMigration(config).cancel(true);
+    migrationHandle.complete(config, MigrationOutcome.APPLIED, null);
+
+    assertThat(migrationHandle.getMigration(config))
+        .isCancelled();
+    assertThat(migrationHandle.getAllMigrations())
+        .isCompleted()
+        .isNotCompletedExceptionally();
+  }
+
+  @Test
+  void shouldCancelStatementsOfCancelledMigration() throws Exception {
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList(first, second));
+    CountDownLatch executing = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Statement statement = mock(Statement.class);
+    when(statement.execute("SELECT 1")).thenAnswer(invocation -> {
+      executing.countDown();
+      cancelled.await();
+      throw new SQLException("statement was cancelled.");
+    });
+    doAnswer(invocation -> {
+      cancelled.countDown();
+      return null;
+    }).when(statement).cancel();
+    Connection connection = mock(Connection.class);
+    when(connection.createStatement()).thenReturn(statement);
+
+    CompletableFuture<Boolean> update = CompletableFuture.supplyAsync(() -> execute(
+        migrationHandle.getDeadline(first), MigrationDeadline.wrap(connection), "SELECT 1"));
+    assertThat(executing.await(10, TimeUnit.SECONDS))
+        .isTrue();
+    migrationHandle.cancel(first);
+
+    assertThatThrownBy(() -> update.get(10, TimeUnit.SECONDS))
+        .hasRootCauseInstanceOf(SQLException.class)
+        .hasRootCauseMessage("statement was cancelled.");
+    verify(statement).cancel();
+    assertThatThrownBy(() -> migrationHandle.getDeadline(first).check())
+        .isInstanceOf(MigrationAbortedException.class);
+    migrationHandle.getDeadline(second).check();
+
+    migrationHandle.cancelAll();
+
+    assertThatThrownBy(() -> execute(
+        migrationHandle.getDeadline(second), MigrationDeadline.wrap(connection), "SELECT 2"))
+        .hasRootCauseMessage("Liquibase update was cancelled.");
+    verify(statement, never()).execute("SELECT 2");
+  }
+
+  @Test
+  void shouldThrowExceptionForNotRegisteredConfig() {
+    MigrationHandle migrationHandle = new MigrationHandle(Lists.newArrayList());
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> migrationHandle.getMigration(
+            LiquibaseConfig.Builder.of(mock(DataSource.class)).build()))
+        .withMessageContaining("config is not registered.");
+  }
+
+  private static boolean execute(MigrationDeadline deadline, Connection connection, String sql) {
+    try {
+      return Scope.child(ImmutableMap.of(MigrationDeadline.SCOPE_KEY, deadline),
+          () -> connection.createStatement().execute(sql));
+    } catch (Exception exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.jparams.verifier.tostring.NameStyle;
+import com.jparams.verifier.tostring.ToStringVerifier;
+import java.time.Duration;
+import java.util.Map;
+import javax.sql.DataSource;
+import liquibase.changelog.ChangeSet;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+class MigrationMetricsTest {
+
+  private final LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class))
+      .build();
+
+  @Test
+  void shouldAggregateMetricsOfConfig() {
+    MigrationMetrics metrics = new MigrationMetrics();
+    ChangeSet changeSet = new ChangeSet("1", "author", false, false, "changeLog.xml", null, null,
+        null);
+
+    metrics.phaseFinished(config, MigrationPhase.HISTORY_READ, Duration.ofMillis(10));
+    metrics.phaseFinished(config, MigrationPhase.HISTORY_READ, Duration.ofMillis(5));
+    metrics.phaseFinished(config, MigrationPhase.LOCK_WAIT, Duration.ofMillis(20));
+    metrics.changeSetExecuted(config, changeSet, Duration.ofMillis(30));
+    metrics.migrationFinished(config, MigrationOutcome.APPLIED, 1, 2);
+
+    assertThat(metrics.getSnapshot())
+        .containsExactly(Maps.immutableEntry(config, new MigrationMetrics.Snapshot(
+            ImmutableMap.of(
+                MigrationPhase.HISTORY_READ, Duration.ofMillis(15),
+                MigrationPhase.LOCK_WAIT, Duration.ofMillis(20)),
+            ImmutableMap.of("changeLog.xml::1::author", Duration.ofMillis(30)),
+            1, 2)));
+    assertThat(metrics.getSnapshot().get(config).getLockWait())
+        .isEqualTo(Duration.ofMillis(20));
+  }
+
+  @Test
+  void shouldNotChangeTakenSnapshot() {
+    MigrationMetrics metrics = new MigrationMetrics();
+    metrics.phaseFinished(config, MigrationPhase.UPDATE, Duration.ofMillis(10));
+    Map<LiquibaseConfig, MigrationMetrics.Snapshot> snapshot = metrics.getSnapshot();
+
+    metrics.phaseFinished(config, MigrationPhase.UPDATE, Duration.ofMillis(10));
+
+    assertThat(snapshot.get(config).getPhaseDurations())
+        .containsEntry(MigrationPhase.UPDATE, Duration.ofMillis(10));
+    assertThat(snapshot.get(config).getLockWait())
+        .isZero();
+  }
+
+  @Test
+  void shouldPassEqualsAndHashCodeContractsForSnapshot() {
+    EqualsVerifier.forClass(MigrationMetrics.Snapshot.class)
+        .usingGetClass()
+        .verify();
+  }
+
+  @Test
+  void verifyToStringForSnapshot() {
+    ToStringVerifier.forClass(MigrationMetrics.Snapshot.class)
+        .withClassName(NameStyle.SIMPLE_NAME).verify();
+  }
+}
@@ -0,0 +1,145 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import io.github.michaljonko.guiceliquibase.annotation.GuiceLiquibaseConfiguration;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import javax.sql.DataSource;
+import liquibase.exception.UnexpectedLiquibaseException;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MigrationPlannerTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  void shouldPlanConfigsWithoutChangingDatabases() throws Exception {
+    DataSource freshDataSource = createJdbcDataSource();
+    DataSource migratedDataSource = createJdbcDataSource();
+    LiquibaseConfig freshConfig = LiquibaseConfig.Builder.of(freshDataSource).build();
+    LiquibaseConfig migratedConfig = LiquibaseConfig.Builder.of(migratedDataSource).build();
+    migrate(migratedConfig);
+    execute(migratedDataSource, "UPDATE DATABASECHANGELOGLOCK SET LOCKED = TRUE");
+    MigrationPlanner planner = new MigrationPlanner(GuiceLiquibaseConfig.Builder.of()
+        .withLiquibaseConfig(freshConfig)
+        .withLiquibaseConfig(migratedConfig)
+        .withThreadLocalScopes(true)
+        .build());
+    StringWriter output = new StringWriter();
+
+    Map<LiquibaseConfig, List<String>> plan = planner.plan(output, executor);
+
+    assertThat(plan)
+        .containsEntry(freshConfig, ImmutableList.of(
+            "liquibase/changeLog.xml::1::tester", "liquibase/changeLog.xml::2::tester"))
+        .containsEntry(migratedConfig, ImmutableList.of());
+    assertThat(output.toString())
+        .containsIgnoringCase("CREATE TABLE PUBLIC.table_for_test")
+        .containsIgnoringCase("INSERT INTO PUBLIC.table_for_test");
+    assertThat(countTables(freshDataSource))
+        .isZero();
+  }
+
+  @Test
+  void shouldPlanConfigThroughMigrationDataSourceWithinConnectionBudget() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    DataSource migrationDataSource = createJdbcDataSource();
+    Semaphore budget = new Semaphore(1);
+    LiquibaseConfig config = LiquibaseConfig.Builder.of(dataSource)
+        .withMigrationDataSource(migrationDataSource)
+        .withConnectionBudget(budget)
+        .build();
+    MigrationPlanner planner = new MigrationPlanner(GuiceLiquibaseConfig.Builder.of(config)
+        .withThreadLocalScopes(true)
+        .build());
+
+    Map<LiquibaseConfig, List<String>> plan = planner.plan(new StringWriter(), executor);
+
+    assertThat(plan.get(config))
+        .hasSize(2);
+    assertThat(budget.availablePermits())
+        .isOne();
+    assertThat(countTables(migrationDataSource))
+        .isZero();
+    verify(dataSource, never()).getConnection();
+  }
+
+  @Test
+  void shouldFailWhenConfigCannotBePlanned() {
+    MigrationPlanner planner = new MigrationPlanner(GuiceLiquibaseConfig.Builder.of(
+            LiquibaseConfig.Builder.of(createJdbcDataSource())
+                .withChangeLogPath("liquibase/missingChangeLog.xml")
+                .build())
+        .withThreadLocalScopes(true)
+        .build());
+
+    assertThatThrownBy(() -> planner.plan(new StringWriter(), executor))
+        .isInstanceOf(UnexpectedLiquibaseException.class);
+  }
+
+  @Test
+  void shouldThrowExceptionWhenExecutorIsUsedWithoutThreadLocalScopes() {
+    MigrationPlanner planner = new MigrationPlanner(GuiceLiquibaseConfig.Builder.of(
+            LiquibaseConfig.Builder.of(createJdbcDataSource()).build())
+        .build());
+
+    assertThatThrownBy(() -> planner.plan(new StringWriter(), executor))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("executor requires thread-local scopes.");
+  }
+
+  private static void migrate(LiquibaseConfig config) {
+    Guice.createInjector(
+        new GuiceLiquibaseModule(),
+        binder -> binder.bind(GuiceLiquibaseConfig.class)
+            .annotatedWith(GuiceLiquibaseConfiguration.class)
+            .toInstance(GuiceLiquibaseConfig.Builder.of(config).build()));
+  }
+
+  private static int countTables(DataSource dataSource) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM "
+            + "INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC'")) {
+      resultSet.next();
+      return resultSet.getInt(1);
+    }
+  }
+
+  private static void execute(DataSource dataSource, String sql) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static DataSource createJdbcDataSource() {
+    JDBCDataSource dataSource = new JDBCDataSource();
+    dataSource.setDatabase("jdbc:hsqldb:mem:" + UUID.randomUUID());
+    dataSource.setUser("SA");
+    return dataSource;
+  }
+}
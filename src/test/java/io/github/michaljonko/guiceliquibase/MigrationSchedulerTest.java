@@ -0,0 +1,175 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MigrationSchedulerTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldApplyDependenciesFirst() {
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withDependency(first)
+        .build();
+    List<LiquibaseConfig> applied = Collections.synchronizedList(Lists.newArrayList());
+    MigrationScheduler scheduler = new MigrationScheduler(MoreExecutors.directExecutor());
+
+    scheduler.await(scheduler.schedule(Lists.newArrayList(second, first), config -> {
+      applied.add(config);
+      return MigrationOutcome.APPLIED;
+    }).values());
+
+    assertThat(applied)
+        .containsExactly(first, second);
+  }
+
+  @Test
+  void shouldApplyLazyConfigWhenTriggered() {
+    LiquibaseConfig dependency = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withLazy(true)
+        .build();
+    LiquibaseConfig lazy = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withLazy(true)
+        .withDependency(dependency)
+        .build();
+    List<LiquibaseConfig> applied = Collections.synchronizedList(Lists.newArrayList());
+    MigrationScheduler scheduler = new MigrationScheduler(MoreExecutors.directExecutor());
+
+    Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> futures =
+        scheduler.schedule(Lists.newArrayList(lazy), config -> {
+          applied.add(config);
+          return MigrationOutcome.APPLIED;
+        });
+
+    assertThat(applied)
+        .isEmpty();
+    assertThat(scheduler.isTriggered(lazy))
+        .isFalse();
+
+    scheduler.trigger(lazy);
+    scheduler.trigger(lazy);
+
+    assertThat(futures.get(lazy))
+        .isCompletedWithValue(MigrationOutcome.APPLIED);
+    assertThat(scheduler.isTriggered(lazy))
+        .isTrue();
+    assertThat(applied)
+        .containsExactly(dependency, lazy);
+  }
+
+  @Test
+  void shouldApplyConfigsOfSameDataSourceInRegistrationOrder() {
+    DataSource dataSource = mock(DataSource.class);
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("first.xml")
+        .build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(dataSource)
+        .withChangeLogPath("second.xml")
+        .build();
+    List<LiquibaseConfig> applied = Collections.synchronizedList(Lists.newArrayList());
+    MigrationScheduler scheduler = new MigrationScheduler(executor);
+
+    scheduler.await(scheduler.schedule(Lists.newArrayList(first, second), config -> {
+      if (config.equals(first)) {
+        sleep();
+      }
+      applied.add(config);
+      return MigrationOutcome.APPLIED;
+    }).values());
+
+    assertThat(applied)
+        .containsExactly(first, second);
+  }
+
+  @Test
+  void shouldApplyIndependentConfigsConcurrently() {
+    CountDownLatch latch = new CountDownLatch(2);
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    MigrationScheduler scheduler = new MigrationScheduler(executor);
+
+    Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> futures =
+        scheduler.schedule(Lists.newArrayList(first, second), config -> {
+          latch.countDown();
+          await(latch);
+          return MigrationOutcome.APPLIED;
+        });
+    scheduler.await(futures.values());
+
+    assertThat(futures.values())
+        .allMatch(future -> future.join() == MigrationOutcome.APPLIED);
+  }
+
+  @Test
+  void shouldNotApplyDependentConfigWhenDependencyFailed() {
+    LiquibaseConfig first = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    LiquibaseConfig second = LiquibaseConfig.Builder.of(mock(DataSource.class))
+        .withDependency(first)
+        .build();
+    LiquibaseConfig independent = LiquibaseConfig.Builder.of(mock(DataSource.class)).build();
+    List<LiquibaseConfig> applied = Collections.synchronizedList(Lists.newArrayList());
+    MigrationScheduler scheduler = new MigrationScheduler(executor);
+
+    Map<LiquibaseConfig, CompletableFuture<MigrationOutcome>> futures = scheduler.schedule(
+        Lists.newArrayList(first, second, independent), config -> {
+          if (config.equals(first)) {
+            throw new IllegalStateException("first failed.");
+          }
+          applied.add(config);
+          return MigrationOutcome.APPLIED;
+        });
+
+    assertThatIllegalStateException()
+        .isThrownBy(() -> scheduler.await(futures.values()))
+        .withMessage("first failed.");
+    assertThat(applied)
+        .containsExactly(independent);
+    assertThat(futures.get(second))
+        .isCompletedExceptionally();
+  }
+
+  private static void sleep() {
+    try {
+      TimeUnit.MILLISECONDS.sleep(100);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS))
+          .isTrue();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package io.github.michaljonko.guiceliquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.jparams.verifier.tostring.NameStyle;
+import com.jparams.verifier.tostring.ToStringVerifier;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import liquibase.changelog.ChangeSet;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+class MigrationStatusTest {
+
+  private final LiquibaseConfig config = LiquibaseConfig.Builder.of(mock(DataSource.class))
+      .build();
+  private final LiquibaseConfig lazyConfig = LiquibaseConfig.Builder.of(mock(DataSource.class))
+      .withLazy(true)
+      .build();
+  private final AtomicLong nanos = new AtomicLong();
+  private final Ticker ticker = new Ticker() {
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+  };
+  private final ChangeSet changeSet = new ChangeSet("1", "author", false, false, "changeLog.xml",
+      null, null, null);
+
+  @Test
+  void shouldTrackProgressOfConfig() {
+    MigrationStatus status = new MigrationStatus(ImmutableList.of(config, lazyConfig), ticker);
+    assertThat(status.getStatus(config))
+        .contains(new MigrationStatus.ConfigStatus(
+            MigrationStatus.State.PENDING, null, null, 0, 0, Duration.ZERO));
+
+    status.migrationStarted(config);
+    status.changeLogParsed(config, 3);
+    status.changeSetExecuted(config, changeSet, Duration.ofMillis(1));
+    nanos.addAndGet(Duration.ofMillis(50).toNanos());
+
+    assertThat(status.getStatus(config))
+        .contains(new MigrationStatus.ConfigStatus(
+            MigrationStatus.State.RUNNING, null, null, 1, 3, Duration.ofMillis(50)));
+    assertThat(status.isReady())
+        .isFalse();
+
+    nanos.addAndGet(Duration.ofMillis(50).toNanos());
+    status.migrationFinished(config, MigrationOutcome.APPLIED, 2, 1);
+    nanos.addAndGet(Duration.ofMillis(50).toNanos());
+
+    assertThat(status.getStatuses())
+        .containsEntry(config, new MigrationStatus.ConfigStatus(MigrationStatus.State.DONE,
+            MigrationOutcome.APPLIED, null, 2, 3, Duration.ofMillis(100)))
+        .containsEntry(lazyConfig, new MigrationStatus.ConfigStatus(
+            MigrationStatus.State.PENDING, null, null, 0, 0, Duration.ZERO));
+    assertThat(status.isReady())
+        .isTrue();
+  }
+
+  @Test
+  void shouldStayReadyDuringDeferredUpdate() {
+    MigrationStatus status = new MigrationStatus(ImmutableList.of(config), ticker);
+    status.migrationStarted(config);
+    status.migrationFinished(config, MigrationOutcome.APPLIED, 1, 1);
+
+    status.migrationStarted(config);
+
+    assertThat(status.getStatus(config).map(MigrationStatus.ConfigStatus::getState))
+        .contains(MigrationStatus.State.RUNNING);
+    assertThat(status.isReady())
+        .isTrue();
+  }
+
+  @Test
+  void shouldNotBeReadyWhenConfigFailed() {
+    MigrationStatus status = new MigrationStatus(ImmutableList.of(config), ticker);
+    IllegalStateException failure = new IllegalStateException("failed.");
+
+    status.migrationStarted(config);
+    status.migrationFailed(config, failure);
+
+    assertThat(status.getStatus(config).flatMap(MigrationStatus.ConfigStatus::getFailure))
+        .contains(failure);
+    assertThat(status.isReady())
+        .isFalse();
+  }
+
+  @Test
+  void shouldPassEqualsAndHashCodeContractsForConfigStatus() {
+    EqualsVerifier.forClass(MigrationStatus.ConfigStatus.class)
+        .usingGetClass()
+        .verify();
+  }
+
+  @Test
+  void verifyToStringForConfigStatus() {
+    ToStringVerifier.forClass(MigrationStatus.ConfigStatus.class)
+        .withClassName(NameStyle.SIMPLE_NAME).verify();
+  }
+}
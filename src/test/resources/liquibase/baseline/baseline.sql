@@ -0,0 +1,3 @@
+-- Schema of changesets 1 and 2 of liquibase/baseline/changeLog.xml
+CREATE TABLE baseline_table (id INT NOT NULL PRIMARY KEY);
+INSERT INTO baseline_table (id) VALUES (1);